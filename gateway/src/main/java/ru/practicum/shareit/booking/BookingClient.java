@@ -1,31 +1,42 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    /** Соединения для долгоживущих потоков событий, в обход общего пула. */
+    private final ClientHttpRequestFactory eventStreamRequestFactory;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         ClientHttpRequestFactory serverRequestFactory,
+                         @Qualifier("serverLongLivedRequestFactory") ClientHttpRequestFactory longLivedRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                        .requestFactory(() -> serverRequestFactory)
                         .build()
         );
+        this.eventStreamRequestFactory = longLivedRequestFactory;
     }
 
     /**
@@ -51,10 +62,11 @@ public class BookingClient extends BaseClient {
      *
      * @param userId идентификатор пользователя.
      * @param requestDto данные для бронирования.
+     * @param idempotencyKey ключ идемпотентности клиента (может быть null).
      * @return ответ с созданным бронированием.
      */
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto, String idempotencyKey) {
+        return postIdempotent("", userId, requestDto, idempotencyKey);
     }
 
     /**
@@ -81,6 +93,17 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved={approved}", userId, parameters, null);
     }
 
+    /**
+     * Одобряет или отклоняет несколько бронирований за один запрос к серверу.
+     *
+     * @param userId идентификатор владельца.
+     * @param decisions решения по бронированиям.
+     * @return ответ с результатом по каждому бронированию.
+     */
+    public ResponseEntity<Object> approveOrRejectBatch(long userId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
+
     /**
      * Получает список бронирований владельца.
      *
@@ -98,4 +121,52 @@ public class BookingClient extends BaseClient {
         );
         return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает счётчики бронирований пользователя по состояниям.
+     *
+     * @param userId идентификатор арендатора.
+     * @return ответ со счётчиками.
+     */
+    public ResponseEntity<Object> getSummary(long userId) {
+        return get("/summary", userId);
+    }
+
+    /**
+     * Получает счётчики бронирований вещей владельца по состояниям.
+     *
+     * @param userId идентификатор владельца.
+     * @return ответ со счётчиками.
+     */
+    public ResponseEntity<Object> getOwnerSummary(long userId) {
+        return get("/owner/summary", userId);
+    }
+
+    /**
+     * Выгружает историю бронирований пользователя потоком.
+     *
+     * @param userId идентификатор пользователя.
+     * @param role роль пользователя (owner или booker).
+     * @param format формат выгрузки (ndjson или csv).
+     * @return потоковый ответ сервера.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    public ResponseEntity<StreamingResponseBody> export(long userId, String role, String format) throws IOException {
+        Map<String, Object> parameters = Map.of(
+                "role", role,
+                "format", format
+        );
+        return stream("/export?role={role}&format={format}", userId, parameters);
+    }
+
+    /**
+     * Подписывает пользователя на поток событий бронирований сервера.
+     *
+     * @param userId идентификатор пользователя.
+     * @return потоковый ответ сервера в формате text/event-stream.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    public ResponseEntity<StreamingResponseBody> streamEvents(long userId) throws IOException {
+        return stream(eventStreamRequestFactory, "/stream", userId, Map.of());
+    }
+}
@@ -1,17 +1,27 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
+
+import java.io.IOException;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -48,13 +58,15 @@ public class BookingController {
      *
      * @param bookerId идентификатор пользователя.
      * @param requestDto данные для бронирования.
+     * @param idempotencyKey ключ идемпотентности (необязательный заголовок Idempotency-Key).
      * @return ответ с созданным бронированием.
      */
     @PostMapping
     public ResponseEntity<Object> create(@RequestHeader(USER_ID_HEADER) Long bookerId,
-                                         @RequestBody @Valid BookItemRequestDto requestDto) {
+                                         @RequestBody @Valid BookItemRequestDto requestDto,
+                                         @RequestHeader(value = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("POST /bookings (Booker: {}): Создание бронирования", bookerId);
-        return bookingClient.bookItem(bookerId, requestDto);
+        return bookingClient.bookItem(bookerId, requestDto, idempotencyKey);
     }
 
     /**
@@ -87,6 +99,20 @@ public class BookingController {
         return bookingClient.approveOrReject(ownerId, bookingId, approved);
     }
 
+    /**
+     * Одобряет или отклоняет несколько бронирований за один запрос.
+     *
+     * @param ownerId идентификатор владельца.
+     * @param decisions решения по бронированиям (не более 100).
+     * @return ответ с результатом по каждому бронированию.
+     */
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> approveOrRejectBatch(@RequestHeader(USER_ID_HEADER) Long ownerId,
+                                                       @RequestBody @NotEmpty @Size(max = 100) List<@Valid BookingDecisionDto> decisions) {
+        log.info("PATCH /bookings/batch (Owner: {}): Пакетная установка статуса, решений: {}", ownerId, decisions.size());
+        return bookingClient.approveOrRejectBatch(ownerId, decisions);
+    }
+
     /**
      * Получает список бронирований владельца.
      *
@@ -107,4 +133,60 @@ public class BookingController {
         log.info("Get owner bookings with state {}, userId={}, from={}, size={}", stateParam, ownerId, from, size);
         return bookingClient.getAllByOwner(ownerId, state, from, size);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает количество бронирований пользователя по каждому состоянию.
+     *
+     * @param bookerId идентификатор пользователя.
+     * @return ответ со счётчиками.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<Object> getSummaryByBooker(@RequestHeader(USER_ID_HEADER) Long bookerId) {
+        log.info("GET /bookings/summary (Booker: {}): Счётчики бронирований", bookerId);
+        return bookingClient.getSummary(bookerId);
+    }
+
+    /**
+     * Получает количество бронирований вещей владельца по каждому состоянию.
+     *
+     * @param ownerId идентификатор владельца.
+     * @return ответ со счётчиками.
+     */
+    @GetMapping("/owner/summary")
+    public ResponseEntity<Object> getSummaryByOwner(@RequestHeader(USER_ID_HEADER) Long ownerId) {
+        log.info("GET /bookings/owner/summary (Owner: {}): Счётчики бронирований", ownerId);
+        return bookingClient.getOwnerSummary(ownerId);
+    }
+
+    /**
+     * Выгружает всю историю бронирований пользователя, передавая ответ сервера потоком.
+     *
+     * @param userId идентификатор пользователя.
+     * @param role роль пользователя: owner или booker.
+     * @param format формат выгрузки: ndjson или csv.
+     * @return потоковый ответ.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                        @Pattern(regexp = "owner|booker") @RequestParam(defaultValue = "booker") String role,
+                                                        @Pattern(regexp = "ndjson|csv") @RequestParam(defaultValue = "ndjson") String format)
+            throws IOException {
+        log.info("GET /bookings/export (User: {}): Выгрузка истории бронирований, role={}, format={}", userId, role, format);
+        return bookingClient.export(userId, role, format);
+    }
+
+    /**
+     * Проксирует поток событий бронирований пользователя (Server-Sent Events).
+     * Передача выполняется в виртуальном потоке, поэтому подписчик не занимает поток платформы.
+     *
+     * @param userId идентификатор пользователя.
+     * @return поток событий.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestHeader(USER_ID_HEADER) Long userId) throws IOException {
+        log.info("GET /bookings/stream (User: {}): Подписка на события бронирований", userId);
+        return bookingClient.streamEvents(userId);
+    }
+}
@@ -3,7 +3,7 @@ package ru.practicum.shareit.booking.dto;
 import java.util.Optional;
 
 public enum BookingState {
-    ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED;
+    ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED, CANCELED;
 
     /**
      * Преобразует строковое представление состояния в enum.
@@ -0,0 +1,184 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Фабрика запросов, направляющая каждый запрос на экземпляр сервера, выбранный
+ * {@link ServerInstanceBalancer}: в адресе запроса заменяются схема, хост и порт, путь и параметры
+ * сохраняются. Экземпляр выбирается при выполнении запроса, когда уже известны его заголовки:
+ * ключ маршрутизации — ID вещи для путей {@code /items/{id}}, иначе ID пользователя из заголовка
+ * {@value BaseClient#USER_ID_HEADER}. Запрос считается незавершённым до закрытия ответа; ошибка
+ * соединения и ответы 502/503/504 учитываются балансировщиком как отказ экземпляра.
+ * <p>
+ * Ключ пользователя разводит участников одного бронирования по разным экземплярам: подтверждение
+ * владельца выполняется на экземпляре владельца, а поток событий арендатора открыт на экземпляре
+ * арендатора. Поэтому сервер рассылает события бронирований всем своим экземплярам, и потоки
+ * событий балансируются как обычные запросы. Опросы ленты запросов на вещи ({@value #FEED_PATH})
+ * всегда направляются на первый доступный экземпляр ({@link ServerInstanceBalancer#choosePrimary()}):
+ * курсоры ленты нумеруются каждым экземпляром по-своему.
+ */
+public class BalancingClientHttpRequestFactory implements ClientHttpRequestFactory {
+
+    private static final Pattern ITEM_PATH = Pattern.compile("/items/(\\d+)(/.*)?");
+    static final String FEED_PATH = "/requests/feed";
+
+    private final ClientHttpRequestFactory delegate;
+    private final ServerInstanceBalancer balancer;
+
+    public BalancingClientHttpRequestFactory(ClientHttpRequestFactory delegate, ServerInstanceBalancer balancer) {
+        this.delegate = delegate;
+        this.balancer = balancer;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) {
+        return new BalancedRequest(uri, httpMethod);
+    }
+
+    @Nullable
+    static String routingKey(URI uri, HttpHeaders headers) {
+        if (uri.getPath() != null) {
+            Matcher item = ITEM_PATH.matcher(uri.getPath());
+            if (item.matches()) {
+                return "item:" + item.group(1);
+            }
+        }
+        String userId = headers.getFirst(BaseClient.USER_ID_HEADER);
+        return userId == null ? null : "user:" + userId;
+    }
+
+    private static boolean isInstanceFailure(HttpStatusCode status) {
+        int code = status.value();
+        return code == 502 || code == 503 || code == 504;
+    }
+
+    /**
+     * Запрос, который накапливает заголовки и тело (запросы к серверу небольшие) и создаёт запрос
+     * к выбранному экземпляру только при выполнении.
+     */
+    private class BalancedRequest implements ClientHttpRequest {
+
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        BalancedRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            ServerInstanceBalancer.ServerInstance instance = FEED_PATH.equals(uri.getPath())
+                    ? balancer.choosePrimary()
+                    : balancer.choose(routingKey(uri, headers));
+            URI target = UriComponentsBuilder.fromUri(uri)
+                    .scheme(instance.uri().getScheme())
+                    .host(instance.uri().getHost())
+                    .port(instance.uri().getPort())
+                    .build(true)
+                    .toUri();
+
+            instance.acquire();
+            ClientHttpResponse response;
+            try {
+                ClientHttpRequest request = delegate.createRequest(target, method);
+                request.getHeaders().putAll(headers);
+                if (body.size() > 0) {
+                    body.writeTo(request.getBody());
+                }
+                response = request.execute();
+                if (isInstanceFailure(response.getStatusCode())) {
+                    balancer.onFailure(instance);
+                } else {
+                    balancer.onSuccess(instance);
+                }
+            } catch (IOException | RuntimeException e) {
+                instance.release();
+                balancer.onFailure(instance);
+                throw e;
+            }
+            return new BalancedResponse(response, instance);
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static class BalancedResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse response;
+        private final ServerInstanceBalancer.ServerInstance instance;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        BalancedResponse(ClientHttpResponse response, ServerInstanceBalancer.ServerInstance instance) {
+            this.response = response;
+            this.instance = instance;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    instance.release();
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,52 @@
 
 package ru.practicum.shareit.client;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
 
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
 
 public class BaseClient {
+    /** Заголовок с ID пользователя; по нему же выбирается экземпляр сервера (см. {@link ServerInstanceBalancer}). */
+    public static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
     protected final RestTemplate rest;
+    /** Преобразователь Smile, если он подключён (см. ServerWireFormatConfig); иначе null. */
+    @Nullable
+    private final MappingJackson2SmileHttpMessageConverter smileConverter;
+    private final List<MediaType> accept;
 
     public BaseClient(RestTemplate rest) {
         this.rest = rest;
+        this.smileConverter = rest.getMessageConverters().stream()
+                .filter(MappingJackson2SmileHttpMessageConverter.class::isInstance)
+                .map(MappingJackson2SmileHttpMessageConverter.class::cast)
+                .findFirst()
+                .orElse(null);
+        this.accept = smileConverter != null
+                ? List.of(SMILE, MediaType.APPLICATION_JSON)
+                : List.of(MediaType.APPLICATION_JSON);
     }
 
     /**
@@ -92,6 +121,21 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, parameters, body);
     }
 
+    /**
+     * Выполняет POST-запрос, передавая серверу ключ идемпотентности клиента:
+     * повтор запроса с тем же ключом не создаёт данные повторно.
+     *
+     * @param <T> тип тела запроса.
+     * @param path путь запроса.
+     * @param userId идентификатор пользователя (может быть null).
+     * @param body тело запроса.
+     * @param idempotencyKey ключ идемпотентности (может быть null).
+     * @return ответ сервера.
+     */
+    protected <T> ResponseEntity<Object> postIdempotent(String path, Long userId, T body, @Nullable String idempotencyKey) {
+        return makeAndSendRequest(HttpMethod.POST, path, userId, null, body, idempotencyKey);
+    }
+
     /**
      * Выполняет PUT-запрос с идентификатором пользователя.
      *
@@ -202,8 +246,110 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    /**
+     * Выполняет GET-запрос и передаёт тело ответа сервера клиенту потоком, без буферизации в памяти.
+     * Статус и заголовки ответа сервера известны до начала передачи; ответ с ошибкой
+     * считывается целиком и возвращается как есть.
+     *
+     * @param path путь запроса.
+     * @param userId идентификатор пользователя (может быть null).
+     * @param parameters параметры запроса.
+     * @return потоковый ответ.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(String path, Long userId, Map<String, Object> parameters)
+            throws IOException {
+        return stream(rest.getRequestFactory(), path, userId, parameters);
+    }
+
+    /**
+     * Выполняет потоковый GET-запрос через указанную фабрику соединений, например для долгоживущих
+     * потоков событий, которые не должны занимать соединения общего пула.
+     * Каждая полученная порция данных сразу отправляется клиенту.
+     *
+     * @param requestFactory фабрика соединений с сервером.
+     * @param path путь запроса.
+     * @param userId идентификатор пользователя (может быть null).
+     * @param parameters параметры запроса.
+     * @return потоковый ответ.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(ClientHttpRequestFactory requestFactory, String path,
+                                                           Long userId, Map<String, Object> parameters)
+            throws IOException {
+        URI uri = rest.getUriTemplateHandler().expand(path, parameters);
+        ClientHttpRequest request = requestFactory.createRequest(uri, HttpMethod.GET);
+        request.getHeaders().setAccept(List.of(MediaType.ALL));
+        if (userId != null) {
+            request.getHeaders().set(USER_ID_HEADER, String.valueOf(userId));
+        }
+
+        ClientHttpResponse response = request.execute();
+        HttpHeaders headers = new HttpHeaders();
+        copyHeader(response.getHeaders(), headers, HttpHeaders.CONTENT_TYPE);
+        copyHeader(response.getHeaders(), headers, HttpHeaders.CONTENT_DISPOSITION);
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode()).headers(headers);
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            try (response) {
+                byte[] body = response.getBody().readAllBytes();
+                return responseBuilder.body(out -> out.write(body));
+            }
+        }
+
+        return responseBuilder.body(out -> {
+            try (response; InputStream body = response.getBody()) {
+                byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    out.flush();
+                }
+            }
+        });
+    }
+
+    /**
+     * Создаёт фабрику соединений для долгих запросов (потоки событий, длинный опрос), которые
+     * не должны занимать соединения общего пула (см. {@link ServerHttpClientConfig}):
+     * клиент JDK открывает соединение на каждый запрос и выполняет чтение в виртуальных потоках.
+     *
+     * @return фабрика соединений.
+     */
+    protected static ClientHttpRequestFactory longLivedRequestFactory() {
+        return new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build());
+    }
+
+    /**
+     * Заголовки ответа сервера без описания тела: шлюз кодирует тело заново (в JSON, со своим сжатием),
+     * поэтому тип, длина и кодирование содержимого ответа сервера к нему не относятся.
+     */
+    private static HttpHeaders withoutEntityHeaders(HttpHeaders serverHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(serverHeaders);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_ENCODING);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        return headers;
+    }
+
+    private static void copyHeader(HttpHeaders from, HttpHeaders to, String name) {
+        List<String> values = from.get(name);
+        if (values != null) {
+            to.put(name, values);
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return makeAndSendRequest(method, path, userId, parameters, body, null);
+    }
+
+    private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters,
+                                                          @Nullable T body, @Nullable String idempotencyKey) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId, idempotencyKey));
 
         ResponseEntity<Object> shareitServerResponse;
         try {
@@ -213,24 +359,45 @@ public class BaseClient {
                 shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return ResponseEntity.status(e.getStatusCode()).body(errorBody(e));
         }
         return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    /**
+     * Тело ответа сервера с ошибкой. Ответ в Smile декодируется, чтобы клиент шлюза получил JSON.
+     */
+    private Object errorBody(HttpStatusCodeException e) {
+        byte[] body = e.getResponseBodyAsByteArray();
+        HttpHeaders headers = e.getResponseHeaders();
+        MediaType contentType = headers == null ? null : headers.getContentType();
+        if (smileConverter == null || contentType == null || !SMILE.isCompatibleWith(contentType) || body.length == 0) {
+            return body;
+        }
+        try {
+            return smileConverter.getObjectMapper().readValue(body, Object.class);
+        } catch (IOException ex) {
+            return body;
+        }
+    }
+
+    private HttpHeaders defaultHeaders(Long userId, @Nullable String idempotencyKey) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        headers.setAccept(accept);
         if (userId != null) {
-            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+            headers.set(USER_ID_HEADER, String.valueOf(userId));
+        }
+        if (idempotencyKey != null) {
+            headers.set(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
         }
         return headers;
     }
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
         if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+            return new ResponseEntity<>(response.getBody(), withoutEntityHeaders(response.getHeaders()),
+                    response.getStatusCode());
         }
 
         ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Общий пул соединений HttpComponents для всех клиентов сервера.
+ * <p>
+ * Раньше каждый клиент создавал свою фабрику с пулом по умолчанию (5 соединений на сервер), и при
+ * росте нагрузки запросы ждали свободного соединения. Размеры пула, время жизни простаивающих
+ * соединений и их проверка перед повторным использованием задаются свойствами
+ * {@code shareit.server.http.*}. Метрики пула публикуются под именем {@code httpcomponents.httpclient.pool.*}
+ * (выданные, свободные соединения и ожидающие запросы) с тегом {@code httpclient=shareit-server},
+ * время ожидания соединения — таймером {@value #POOL_WAIT_METRIC}.
+ */
+@Configuration
+public class ServerHttpClientConfig {
+
+    static final String POOL_NAME = "shareit-server";
+    static final String POOL_WAIT_METRIC = "shareit.server.http.pool.wait";
+
+    @Bean
+    public PoolingHttpClientConnectionManager serverConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${shareit.server.http.pool.max-total:200}") int maxTotal,
+            @Value("${shareit.server.http.pool.max-per-route:100}") int maxPerRoute,
+            @Value("${shareit.server.http.pool.validate-after-inactivity-ms:2000}") long validateAfterInactivityMillis,
+            @Value("${shareit.server.http.connect-timeout-ms:2000}") long connectTimeoutMillis) {
+        Timer waitTimer = Timer.builder(POOL_WAIT_METRIC)
+                .description("Время ожидания соединения из пула клиентов сервера")
+                .tag("httpclient", POOL_NAME)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(waitTimer);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMillis))
+                .build());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean
+    public CloseableHttpClient serverHttpClient(
+            PoolingHttpClientConnectionManager serverConnectionManager,
+            @Value("${shareit.server.http.pool.keep-alive-ms:30000}") long keepAliveMillis,
+            @Value("${shareit.server.http.pool.idle-eviction-ms:10000}") long idleEvictionMillis,
+            @Value("${shareit.server.http.connection-request-timeout-ms:5000}") long connectionRequestTimeoutMillis) {
+        return HttpClients.custom()
+                .setConnectionManager(serverConnectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy(TimeValue.ofMilliseconds(keepAliveMillis)))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMillis))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Фабрика запросов, общая для всех клиентов сервера (кроме долгих запросов,
+     * см. {@link #serverLongLivedRequestFactory}); запросы распределяются между экземплярами сервера.
+     */
+    @Bean
+    @Primary
+    public ClientHttpRequestFactory serverRequestFactory(CloseableHttpClient serverHttpClient,
+                                                         ServerInstanceBalancer balancer) {
+        return new BalancingClientHttpRequestFactory(new HttpComponentsClientHttpRequestFactory(serverHttpClient),
+                balancer);
+    }
+
+    /**
+     * Фабрика для долгих запросов (потоки событий, длинный опрос) в обход общего пула,
+     * см. {@link BaseClient#longLivedRequestFactory()}.
+     */
+    @Bean
+    public ClientHttpRequestFactory serverLongLivedRequestFactory(ServerInstanceBalancer balancer) {
+        return new BalancingClientHttpRequestFactory(BaseClient.longLivedRequestFactory(), balancer);
+    }
+
+    /**
+     * Соединение держится открытым столько, сколько разрешил сервер в заголовке Keep-Alive,
+     * но не дольше заданного времени.
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(TimeValue maxKeepAlive) {
+        return (response, context) -> {
+            TimeValue serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(serverKeepAlive) && serverKeepAlive.compareTo(maxKeepAlive) < 0
+                    ? serverKeepAlive
+                    : maxKeepAlive;
+        };
+    }
+
+    /**
+     * Пул, измеряющий время ожидания соединения: от запроса соединения до его выдачи.
+     */
+    static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer waitTimer;
+
+        TimedConnectionManager(Timer waitTimer) {
+            this.waitTimer = waitTimer;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest request = super.lease(id, route, requestTimeout, state);
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.get(timeout);
+                    } finally {
+                        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+    }
+}
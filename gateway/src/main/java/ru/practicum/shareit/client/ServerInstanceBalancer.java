@@ -0,0 +1,372 @@
+package ru.practicum.shareit.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Выбирает экземпляр сервера для очередного запроса шлюза.
+ * <p>
+ * Экземпляры перечисляются в {@code shareit.server.urls} через запятую; без него используется один
+ * {@code shareit-server.url}. Из двух случайных доступных экземпляров выбирается тот, у которого
+ * меньше незавершённых запросов (power of two choices). Экземпляр, вернувший подряд
+ * {@code shareit.server.balancer.outlier.consecutive-failures} ошибок соединения или ответов 502/503/504,
+ * исключается из выбора на время, растущее с каждым исключением; одновременно исключается не больше
+ * {@code max-ejection-percent} процентов экземпляров. Кроме того, каждый экземпляр периодически
+ * опрашивается по {@code shareit.server.balancer.health.path}: не ответивший подряд
+ * {@code unhealthy-threshold} раз не выбирается до первого успешного ответа. Если доступных
+ * экземпляров нет, выбор идёт среди всех.
+ * <p>
+ * С {@code shareit.server.balancer.consistent-hash.enabled=true} запросы с ключом маршрутизации
+ * (пользователь или вещь, см. {@link BalancingClientHttpRequestFactory}) направляются по кольцу
+ * согласованного хеширования, чтобы данные одного пользователя оседали в кеше одного экземпляра.
+ * Нагрузка ограничена (consistent hashing with bounded loads): экземпляр, у которого незавершённых
+ * запросов больше {@code load-factor} от среднего, пропускается, и запрос уходит следующему по кольцу.
+ * Недоступный экземпляр тоже пропускается, поэтому при его исключении и возвращении переезжают
+ * только его ключи. Владелец вещи и арендатор при этом обычно попадают на разные экземпляры.
+ */
+@Slf4j
+@Component
+public class ServerInstanceBalancer implements AutoCloseable {
+
+    private final List<ServerInstance> instances;
+    private final int consecutiveFailures;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjectionPercent;
+    private final String healthPath;
+    private final long healthIntervalMillis;
+    private final Duration healthTimeout;
+    private final int unhealthyThreshold;
+    private final double loadFactor;
+    /** Точки кольца согласованного хеширования по возрастанию и их экземпляры; null — кольцо выключено. */
+    private final long[] ringPoints;
+    private final ServerInstance[] ringOwners;
+    private ScheduledExecutorService healthChecks;
+    private HttpClient healthClient;
+
+    public ServerInstanceBalancer(
+            @Value("${shareit-server.url}") String serverUrl,
+            @Value("${shareit.server.urls:}") String[] serverUrls,
+            @Value("${shareit.server.balancer.outlier.consecutive-failures:5}") int consecutiveFailures,
+            @Value("${shareit.server.balancer.outlier.base-ejection-ms:30000}") long baseEjectionMillis,
+            @Value("${shareit.server.balancer.outlier.max-ejection-ms:300000}") long maxEjectionMillis,
+            @Value("${shareit.server.balancer.outlier.max-ejection-percent:50}") int maxEjectionPercent,
+            @Value("${shareit.server.balancer.health.path:/actuator/health}") String healthPath,
+            @Value("${shareit.server.balancer.health.interval-ms:5000}") long healthIntervalMillis,
+            @Value("${shareit.server.balancer.health.timeout-ms:2000}") long healthTimeoutMillis,
+            @Value("${shareit.server.balancer.health.unhealthy-threshold:2}") int unhealthyThreshold,
+            @Value("${shareit.server.balancer.consistent-hash.enabled:false}") boolean consistentHash,
+            @Value("${shareit.server.balancer.consistent-hash.virtual-nodes:100}") int virtualNodes,
+            @Value("${shareit.server.balancer.consistent-hash.load-factor:1.25}") double loadFactor) {
+        List<String> urls = serverUrls.length > 0 ? Arrays.asList(serverUrls) : List.of(serverUrl);
+        this.instances = urls.stream()
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .map(url -> new ServerInstance(URI.create(url)))
+                .toList();
+        if (instances.isEmpty()) {
+            throw new IllegalStateException("Не задан ни один экземпляр сервера.");
+        }
+        this.consecutiveFailures = consecutiveFailures;
+        this.baseEjectionNanos = TimeUnit.MILLISECONDS.toNanos(baseEjectionMillis);
+        this.maxEjectionNanos = TimeUnit.MILLISECONDS.toNanos(maxEjectionMillis);
+        this.maxEjectionPercent = maxEjectionPercent;
+        this.healthPath = healthPath;
+        this.healthIntervalMillis = healthIntervalMillis;
+        this.healthTimeout = Duration.ofMillis(healthTimeoutMillis);
+        this.unhealthyThreshold = unhealthyThreshold;
+        this.loadFactor = loadFactor;
+        if (consistentHash) {
+            List<RingPoint> ring = new ArrayList<>(instances.size() * virtualNodes);
+            for (ServerInstance instance : instances) {
+                for (int i = 0; i < virtualNodes; i++) {
+                    ring.add(new RingPoint(hash(instance.uri + "#" + i), instance));
+                }
+            }
+            ring.sort(Comparator.comparingLong(RingPoint::hash));
+            this.ringPoints = ring.stream().mapToLong(RingPoint::hash).toArray();
+            this.ringOwners = ring.stream().map(RingPoint::owner).toArray(ServerInstance[]::new);
+        } else {
+            this.ringPoints = null;
+            this.ringOwners = null;
+        }
+        startHealthChecks();
+    }
+
+    /**
+     * Экземпляры сервера в порядке перечисления.
+     */
+    public List<ServerInstance> instances() {
+        return instances;
+    }
+
+    /**
+     * Выбирает экземпляр для запроса.
+     *
+     * @return экземпляр сервера.
+     */
+    public ServerInstance choose() {
+        if (instances.size() == 1) {
+            return instances.get(0);
+        }
+        long now = System.nanoTime();
+        List<ServerInstance> candidates = new ArrayList<>(instances.size());
+        for (ServerInstance instance : instances) {
+            if (instance.isAvailable(now)) {
+                candidates.add(instance);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = instances;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServerInstance a = candidates.get(first);
+        ServerInstance b = candidates.get(second);
+        return a.outstanding.get() <= b.outstanding.get() ? a : b;
+    }
+
+    /**
+     * Выбирает первый доступный экземпляр в порядке перечисления, чтобы запросы к состоянию,
+     * которое ведётся на одном экземпляре (лента запросов на вещи), со всех шлюзов попадали
+     * на один и тот же экземпляр. Если доступных экземпляров нет, выбирается первый.
+     *
+     * @return экземпляр сервера.
+     */
+    public ServerInstance choosePrimary() {
+        long now = System.nanoTime();
+        for (ServerInstance instance : instances) {
+            if (instance.isAvailable(now)) {
+                return instance;
+            }
+        }
+        return instances.get(0);
+    }
+
+    /**
+     * Выбирает экземпляр для запроса с ключом маршрутизации: по кольцу согласованного хеширования
+     * с ограничением нагрузки, если оно включено, иначе как {@link #choose()}.
+     *
+     * @param routingKey ключ маршрутизации (может быть null).
+     * @return экземпляр сервера.
+     */
+    public ServerInstance choose(@Nullable String routingKey) {
+        if (routingKey == null || ringPoints == null || instances.size() == 1) {
+            return choose();
+        }
+        long now = System.nanoTime();
+        int available = 0;
+        long total = 0;
+        for (ServerInstance instance : instances) {
+            if (instance.isAvailable(now)) {
+                available++;
+                total += instance.outstanding.get();
+            }
+        }
+        boolean anyInstance = available == 0;
+        if (anyInstance) {
+            available = instances.size();
+            total = instances.stream().mapToLong(ServerInstance::outstanding).sum();
+        }
+        long bound = (long) Math.ceil(loadFactor * (total + 1) / available);
+
+        int start = Arrays.binarySearch(ringPoints, hash(routingKey));
+        if (start < 0) {
+            start = -start - 1;
+        }
+        for (int i = 0; i < ringPoints.length; i++) {
+            ServerInstance instance = ringOwners[(start + i) % ringPoints.length];
+            if ((anyInstance || instance.isAvailable(now)) && instance.outstanding.get() < bound) {
+                return instance;
+            }
+        }
+        return choose();
+    }
+
+    /**
+     * 64-битный хеш строки: FNV-1a с перемешиванием из MurmurHash3, чтобы точки кольца
+     * и ключи распределялись равномерно.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Учитывает успешный ответ экземпляра.
+     */
+    public void onSuccess(ServerInstance instance) {
+        instance.consecutiveFailures.set(0);
+    }
+
+    /**
+     * Учитывает ошибку соединения или ответ экземпляра, означающий его неработоспособность.
+     */
+    public void onFailure(ServerInstance instance) {
+        if (instance.consecutiveFailures.incrementAndGet() >= consecutiveFailures) {
+            eject(instance);
+        }
+    }
+
+    private synchronized void eject(ServerInstance instance) {
+        long now = System.nanoTime();
+        if (instance.isEjected(now)) {
+            return;
+        }
+        long ejected = instances.stream().filter(i -> i.isEjected(now)).count();
+        if (ejected >= Math.max(1, instances.size() * maxEjectionPercent / 100)) {
+            log.warn("Экземпляр сервера {} не исключён: исключено максимальное число экземпляров.", instance.uri);
+            return;
+        }
+        instance.ejections++;
+        long duration = Math.min(baseEjectionNanos * instance.ejections, maxEjectionNanos);
+        instance.ejectedUntil = now + duration;
+        instance.consecutiveFailures.set(0);
+        log.warn("Экземпляр сервера {} исключён из балансировки на {} мс после {} ошибок подряд.",
+                instance.uri, TimeUnit.NANOSECONDS.toMillis(duration), consecutiveFailures);
+    }
+
+    private void startHealthChecks() {
+        if (healthIntervalMillis <= 0) {
+            return;
+        }
+        healthClient = HttpClient.newBuilder()
+                .connectTimeout(healthTimeout)
+                .build();
+        healthChecks = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("server-health-check").factory());
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, 0, healthIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Опрашивает все экземпляры; успешный опрос постепенно снимает накопленный множитель исключения.
+     */
+    void checkHealth() {
+        for (ServerInstance instance : instances) {
+            boolean up = probe(instance);
+            synchronized (this) {
+                if (up) {
+                    if (!instance.healthy) {
+                        log.info("Экземпляр сервера {} снова доступен.", instance.uri);
+                    }
+                    instance.healthy = true;
+                    instance.probeFailures = 0;
+                    if (instance.ejections > 0 && !instance.isEjected(System.nanoTime())) {
+                        instance.ejections--;
+                    }
+                } else if (++instance.probeFailures >= unhealthyThreshold && instance.healthy) {
+                    instance.healthy = false;
+                    log.warn("Экземпляр сервера {} не прошёл проверку состояния {} раз подряд.",
+                            instance.uri, instance.probeFailures);
+                }
+            }
+        }
+    }
+
+    private boolean probe(ServerInstance instance) {
+        HttpRequest request = HttpRequest.newBuilder(instance.uri.resolve(healthPath))
+                .timeout(healthTimeout)
+                .GET()
+                .build();
+        try {
+            int status = healthClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.debug("Проверка состояния экземпляра сервера {} не удалась: {}", instance.uri, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        if (healthClient != null) {
+            healthClient.close();
+        }
+    }
+
+    private record RingPoint(long hash, ServerInstance owner) {
+    }
+
+    /**
+     * Экземпляр сервера и его состояние. Счётчик незавершённых запросов включает потоковые ответы,
+     * пока они передаются.
+     */
+    public static final class ServerInstance {
+        private final URI uri;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil = Long.MIN_VALUE;
+        private volatile boolean healthy = true;
+        /** Изменяются под монитором балансировщика. */
+        private int ejections;
+        private int probeFailures;
+
+        ServerInstance(URI uri) {
+            this.uri = uri;
+        }
+
+        public URI uri() {
+            return uri;
+        }
+
+        public int outstanding() {
+            return outstanding.get();
+        }
+
+        void acquire() {
+            outstanding.incrementAndGet();
+        }
+
+        void release() {
+            outstanding.decrementAndGet();
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil != Long.MIN_VALUE && now - ejectedUntil < 0;
+        }
+
+        boolean isAvailable(long now) {
+            return healthy && !isEjected(now);
+        }
+    }
+}
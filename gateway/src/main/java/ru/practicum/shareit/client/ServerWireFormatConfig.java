@@ -0,0 +1,26 @@
+package ru.practicum.shareit.client;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Двоичный формат Smile для ответов сервера: клиенты шлюза запрашивают его в заголовке Accept
+ * (см. {@link BaseClient}), а ответы клиентам шлюза по-прежнему отдаются в JSON.
+ * Выключается свойством {@code shareit.server.smile.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shareit.server.smile.enabled", havingValue = "true", matchIfMissing = true)
+public class ServerWireFormatConfig {
+
+    @Bean
+    public RestTemplateCustomizer smileRestTemplateCustomizer(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        MappingJackson2SmileHttpMessageConverter converter = new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build());
+        return restTemplate -> restTemplate.getMessageConverters().add(converter);
+    }
+}
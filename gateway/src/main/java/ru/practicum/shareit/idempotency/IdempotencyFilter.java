@@ -0,0 +1,233 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Повторяет сохранённый ответ на POST-запрос с тем же заголовком {@value #IDEMPOTENCY_KEY_HEADER},
+ * не обращаясь к серверу.
+ * <p>
+ * Ключ действует в пределах пользователя из заголовка X-Sharer-User-Id. Повтор, пришедший во время
+ * выполнения исходного запроса, ждёт его ответа не дольше {@code shareit.idempotency.in-flight-wait-ms},
+ * затем получает 409. Тот же ключ с другим запросом — 422. Ответы с ошибкой сервера (5xx) не сохраняются.
+ * Ключ передаётся и серверу, который хранит его в базе данных: повтор через другой экземпляр шлюза
+ * тоже не выполняется дважды.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final long inFlightWaitMillis;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             ObjectMapper objectMapper,
+                             @Value("${shareit.idempotency.in-flight-wait-ms:10000}") long inFlightWaitMillis) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.inFlightWaitMillis = inFlightWaitMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Ключ " + IDEMPOTENCY_KEY_HEADER
+                    + " должен быть непустым и не длиннее " + MAX_KEY_LENGTH + " символов.");
+            return;
+        }
+        String userId = request.getHeader(USER_ID_HEADER);
+        String key = (userId == null ? "" : userId.trim()) + ":" + idempotencyKey;
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String requestHash = hash(cachedRequest);
+
+        IdempotencyStore.Claim claim = store.claim(key, requestHash);
+        if (claim.outcome() == IdempotencyStore.Outcome.EXISTING) {
+            IdempotencyStore.StoredResponse stored = await(claim.entry());
+            if (stored != null) {
+                replay(response, stored);
+                return;
+            }
+            if (!claim.entry().response().isDone()) {
+                writeError(response, HttpStatus.CONFLICT, "Запрос с этим ключом идемпотентности ещё выполняется.");
+                return;
+            }
+            claim = store.claim(key, requestHash);
+        }
+        switch (claim.outcome()) {
+            case ACQUIRED -> execute(cachedRequest, response, filterChain, key, claim.entry());
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Ключ идемпотентности уже использован для другого запроса.");
+            case EXISTING -> writeError(response, HttpStatus.CONFLICT,
+                    "Запрос с этим ключом идемпотентности ещё выполняется.");
+        }
+    }
+
+    private void execute(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                         String key, IdempotencyStore.Entry entry) throws ServletException, IOException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            if (responseWrapper.getStatus() < 500) {
+                store.complete(entry, new IdempotencyStore.StoredResponse(responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key, entry);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Ждёт ответа на исходный запрос. Возвращает null, если ключ освобождён или ответа нет за время ожидания.
+     */
+    private IdempotencyStore.StoredResponse await(IdempotencyStore.Entry entry) throws ServletException {
+        try {
+            return entry.response().get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        } catch (ExecutionException e) {
+            throw new ServletException(e.getCause());
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyStore.StoredResponse stored)
+            throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.getOutputStream().write(stored.body());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String error) throws IOException {
+        log.debug("Запрос с ключом идемпотентности отклонён: {} {}", status.value(), error);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", error));
+    }
+
+    private static String hash(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Запрос с заранее прочитанным телом: тело нужно для хеша до передачи запроса контроллеру.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * Тело уже в памяти: слушатель сразу получает оставшиеся данные и конец потока.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
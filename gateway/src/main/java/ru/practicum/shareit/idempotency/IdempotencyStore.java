@@ -0,0 +1,130 @@
+package ru.practicum.shareit.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Хранилище выполняющихся и выполненных запросов с ключом идемпотентности в памяти шлюза.
+ * <p>
+ * Размер ограничен {@code shareit.idempotency.max-size}: при переполнении вытесняются самые старые
+ * записи. Записи живут {@code shareit.idempotency.ttl-ms} с момента первого запроса. Вытесненный
+ * ключ не теряет защиты: сервер хранит ключи в базе данных и сам не выполняет повтор.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * Результат попытки занять ключ.
+     */
+    public enum Outcome {
+        /** Ключ занят: запрос нужно выполнить и сохранить ответ. */
+        ACQUIRED,
+        /** Запрос с этим ключом уже выполняется или выполнен: нужно дождаться ответа и вернуть его. */
+        EXISTING,
+        /** Ключ уже использован для другого запроса. */
+        MISMATCH
+    }
+
+    /**
+     * Сохранённый ответ.
+     *
+     * @param status      HTTP-статус.
+     * @param contentType Тип содержимого (может быть null).
+     * @param body        Тело ответа.
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * Запись ключа. Ответ завершается сохранённым ответом или null, если ключ освобождён.
+     */
+    public static final class Entry {
+        private final String requestHash;
+        private final long expiresAt;
+        private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+
+        private Entry(String requestHash, long expiresAt) {
+            this.requestHash = requestHash;
+            this.expiresAt = expiresAt;
+        }
+
+        public CompletableFuture<StoredResponse> response() {
+            return response;
+        }
+    }
+
+    /**
+     * @param outcome Результат.
+     * @param entry   Запись ключа.
+     */
+    public record Claim(Outcome outcome, Entry entry) {
+    }
+
+    private final long ttlNanos;
+    private final int maxSize;
+    /** Записи в порядке добавления, то есть и в порядке истечения срока. */
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    public IdempotencyStore(@Value("${shareit.idempotency.ttl-ms:3600000}") long ttlMillis,
+                            @Value("${shareit.idempotency.max-size:10000}") int maxSize) {
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Занимает ключ для запроса или возвращает запись, уже занявшую его.
+     *
+     * @param key         Ключ в пределах пользователя.
+     * @param requestHash Хеш запроса.
+     * @return Результат и запись ключа.
+     */
+    public synchronized Claim claim(String key, String requestHash) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return new Claim(existing.requestHash.equals(requestHash) ? Outcome.EXISTING : Outcome.MISMATCH, existing);
+        }
+        if (entries.size() >= maxSize) {
+            Iterator<Entry> eldest = entries.values().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+        Entry entry = new Entry(requestHash, now + ttlNanos);
+        entries.put(key, entry);
+        return new Claim(Outcome.ACQUIRED, entry);
+    }
+
+    /**
+     * Сохраняет ответ и передаёт его ожидающим повторам.
+     */
+    public void complete(Entry entry, StoredResponse response) {
+        entry.response.complete(response);
+    }
+
+    /**
+     * Освобождает ключ без ответа (ошибка сервера): ожидающие повторы выполнят запрос заново.
+     */
+    public void release(String key, Entry entry) {
+        synchronized (this) {
+            entries.remove(key, entry);
+        }
+        entry.response.complete(null);
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAt - now > 0) {
+                return;
+            }
+            iterator.remove();
+        }
+    }
+}
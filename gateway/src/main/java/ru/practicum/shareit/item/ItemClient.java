@@ -4,7 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
@@ -19,11 +19,12 @@ public class ItemClient extends BaseClient {
     private static final String API_PREFIX = "/items";
 
     @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory serverRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                        .requestFactory(() -> serverRequestFactory)
                         .build()
         );
     }
@@ -33,10 +34,11 @@ public class ItemClient extends BaseClient {
      *
      * @param userId идентификатор пользователя.
      * @param itemDto данные вещи.
+     * @param idempotencyKey ключ идемпотентности клиента (может быть null).
      * @return ответ с созданной вещью.
      */
-    public ResponseEntity<Object> createItem(long userId, ItemRequestDto itemDto) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> createItem(long userId, ItemRequestDto itemDto, String idempotencyKey) {
+        return postIdempotent("", userId, itemDto, idempotencyKey);
     }
 
     /**
@@ -99,10 +101,27 @@ public class ItemClient extends BaseClient {
      * @param userId идентификатор пользователя.
      * @param itemId идентификатор вещи.
      * @param commentDto данные комментария.
+     * @param idempotencyKey ключ идемпотентности клиента (может быть null).
      * @return ответ с добавленным комментарием.
      */
-    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto commentDto) {
+    public ResponseEntity<Object> addComment(long userId, long itemId, CommentDto commentDto, String idempotencyKey) {
         String path = String.format("/%d/comment", itemId);
-        return post(path, userId, commentDto);
+        return postIdempotent(path, userId, commentDto, idempotencyKey);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает комментарии к вещи постранично.
+     *
+     * @param itemId идентификатор вещи.
+     * @param from начальный индекс для пагинации.
+     * @param size количество элементов на странице.
+     * @return ответ со списком комментариев.
+     */
+    public ResponseEntity<Object> getComments(long itemId, Integer from, Integer size) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "size", size
+        );
+        return get("/" + itemId + "/comments?from={from}&size={size}", null, parameters);
+    }
+}
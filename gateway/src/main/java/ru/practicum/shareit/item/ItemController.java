@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemRequestDto;
 import ru.practicum.shareit.validation.CreateGroup;
@@ -28,13 +30,15 @@ public class ItemController {
      *
      * @param ownerId идентификатор владельца.
      * @param itemDto данные вещи.
+     * @param idempotencyKey ключ идемпотентности (необязательный заголовок Idempotency-Key).
      * @return ответ с созданной вещью.
      */
     @PostMapping
     public ResponseEntity<Object> create(@RequestHeader(USER_ID_HEADER) Long ownerId,
-                                         @Validated(CreateGroup.class) @RequestBody  ItemRequestDto itemDto) {
+                                         @Validated(CreateGroup.class) @RequestBody  ItemRequestDto itemDto,
+                                         @RequestHeader(value = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("POST /items: Создание вещи пользователем {}", ownerId);
-        return itemClient.createItem(ownerId, itemDto);
+        return itemClient.createItem(ownerId, itemDto, idempotencyKey);
     }
 
     /**
@@ -105,15 +109,33 @@ public class ItemController {
      * @param authorId идентификатор автора.
      * @param itemId идентификатор вещи.
      * @param commentDto данные комментария.
+     * @param idempotencyKey ключ идемпотентности (необязательный заголовок Idempotency-Key).
      * @return ответ с добавленным комментарием.
      */
     @PostMapping("/{itemId}/comment")
     public ResponseEntity<Object> addComment(@RequestHeader(USER_ID_HEADER) Long authorId,
                                              @PathVariable Long itemId,
-                                             @Valid @RequestBody CommentDto commentDto) {
+                                             @Valid @RequestBody CommentDto commentDto,
+                                             @RequestHeader(value = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         log.info("POST /items/{}/comment: Добавление комментария пользователем {}", itemId, authorId);
 
-        return itemClient.addComment(authorId, itemId, commentDto);
+        return itemClient.addComment(authorId, itemId, commentDto, idempotencyKey);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает комментарии к вещи постранично.
+     *
+     * @param itemId идентификатор вещи.
+     * @param from начальный индекс для пагинации.
+     * @param size количество элементов на странице (не более 100).
+     * @return ответ со списком комментариев.
+     */
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable Long itemId,
+                                              @PositiveOrZero @RequestParam(defaultValue = "0") int from,
+                                              @Positive @Max(100) @RequestParam(defaultValue = "10") int size) {
+        log.info("GET /items/{}/comments: Получение комментариев, from={}, size={}", itemId, from, size);
+        return itemClient.getComments(itemId, from, size);
+    }
+}
@@ -1,15 +1,19 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -17,14 +21,20 @@ public class ItemRequestClient extends BaseClient {
 
     private static final String API_PREFIX = "/requests";
 
+    /** Соединения для длинного опроса ленты, в обход общего пула. */
+    private final ClientHttpRequestFactory feedRequestFactory;
+
     @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                             ClientHttpRequestFactory serverRequestFactory,
+                             @Qualifier("serverLongLivedRequestFactory") ClientHttpRequestFactory longLivedRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                        .requestFactory(() -> serverRequestFactory)
                         .build()
         );
+        this.feedRequestFactory = longLivedRequestFactory;
     }
 
     /**
@@ -32,10 +42,11 @@ public class ItemRequestClient extends BaseClient {
      *
      * @param userId идентификатор пользователя.
      * @param requestDto данные запроса.
+     * @param idempotencyKey ключ идемпотентности клиента (может быть null).
      * @return ответ с созданным запросом.
      */
-    public ResponseEntity<Object> createRequest(long userId, ItemRequestRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> createRequest(long userId, ItemRequestRequestDto requestDto, String idempotencyKey) {
+        return postIdempotent("", userId, requestDto, idempotencyKey);
     }
 
     /**
@@ -74,4 +85,26 @@ public class ItemRequestClient extends BaseClient {
     public ResponseEntity<Object> getRequestById(long userId, Long requestId) {
         return get("/" + requestId, userId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Опрашивает ленту новых запросов; ответ сервера передаётся клиенту без разбора.
+     *
+     * @param userId идентификатор пользователя.
+     * @param after курсор из предыдущего ответа (может быть null).
+     * @param waitMs время ожидания новых запросов, мс.
+     * @param limit наибольшее количество запросов в ответе.
+     * @return ответ сервера с порцией ленты.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    public ResponseEntity<StreamingResponseBody> pollFeed(long userId, Long after, long waitMs, int limit)
+            throws IOException {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("waitMs", waitMs);
+        parameters.put("limit", limit);
+        if (after == null) {
+            return stream(feedRequestFactory, "/feed?waitMs={waitMs}&limit={limit}", userId, parameters);
+        }
+        parameters.put("after", after);
+        return stream(feedRequestFactory, "/feed?after={after}&waitMs={waitMs}&limit={limit}", userId, parameters);
+    }
+}
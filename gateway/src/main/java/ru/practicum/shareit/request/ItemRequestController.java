@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
@@ -9,8 +10,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
 import ru.practicum.shareit.request.dto.ItemRequestRequestDto;
 
+import java.io.IOException;
+
 @Controller
 @RequestMapping("/requests")
 @RequiredArgsConstructor
@@ -26,13 +31,15 @@ public class ItemRequestController {
      *
      * @param userId идентификатор пользователя.
      * @param requestDto данные запроса.
+     * @param idempotencyKey ключ идемпотентности (необязательный заголовок Idempotency-Key).
      * @return ответ с созданным запросом.
      */
     @PostMapping
     public ResponseEntity<Object> create(@RequestHeader(USER_ID_HEADER) long userId,
-                                         @Valid @RequestBody ItemRequestRequestDto requestDto) {
+                                         @Valid @RequestBody ItemRequestRequestDto requestDto,
+                                         @RequestHeader(value = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("POST /requests: Создание запроса пользователем {}", userId);
-        return requestClient.createRequest(userId, requestDto);
+        return requestClient.createRequest(userId, requestDto, idempotencyKey);
     }
 
     /**
@@ -63,6 +70,26 @@ public class ItemRequestController {
         return requestClient.getAllRequests(userId, from, size);
     }
 
+    /**
+     * Длинный опрос ленты новых запросов других пользователей.
+     *
+     * @param userId идентификатор пользователя.
+     * @param after курсор из предыдущего ответа (без него возвращается текущий курсор ленты).
+     * @param waitMs время ожидания новых запросов, мс.
+     * @param limit наибольшее количество запросов в ответе.
+     * @return порция ленты с новым курсором.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<StreamingResponseBody> feed(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                      @PositiveOrZero @RequestParam(required = false) Long after,
+                                                      @PositiveOrZero @Max(60000) @RequestParam(defaultValue = "25000") long waitMs,
+                                                      @Positive @Max(500) @RequestParam(defaultValue = "100") int limit)
+            throws IOException {
+        log.info("GET /requests/feed: Опрос ленты новых запросов, userId={}, after={}, waitMs={}", userId, after, waitMs);
+        return requestClient.pollFeed(userId, after, waitMs, limit);
+    }
+
     /**
      * Получает запрос по идентификатору.
      *
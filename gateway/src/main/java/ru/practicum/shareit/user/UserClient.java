@@ -4,23 +4,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 
+import java.io.IOException;
+import java.util.Map;
+
 @Service
 public class UserClient extends BaseClient {
 
     private static final String API_PREFIX = "/users";
 
     @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                      ClientHttpRequestFactory serverRequestFactory) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(() -> new HttpComponentsClientHttpRequestFactory())
+                        .requestFactory(() -> serverRequestFactory)
                         .build()
         );
     }
@@ -29,10 +34,11 @@ public class UserClient extends BaseClient {
      * Создает нового пользователя.
      *
      * @param userDto данные пользователя.
+     * @param idempotencyKey ключ идемпотентности клиента (может быть null).
      * @return ответ с созданным пользователем.
      */
-    public ResponseEntity<Object> createUser(UserRequestDto userDto) {
-        return post("", userDto);
+    public ResponseEntity<Object> createUser(UserRequestDto userDto, String idempotencyKey) {
+        return postIdempotent("", null, userDto, idempotencyKey);
     }
 
     /**
@@ -57,12 +63,28 @@ public class UserClient extends BaseClient {
     }
 
     /**
-     * Получает список всех пользователей.
+     * Получает порцию пользователей после указанного идентификатора.
      *
+     * @param afterId идентификатор последнего полученного пользователя.
+     * @param size размер порции.
      * @return ответ с списком пользователей.
      */
-    public ResponseEntity<Object> getAllUsers() {
-        return get("");
+    public ResponseEntity<Object> getUsers(Long afterId, int size) {
+        Map<String, Object> parameters = Map.of(
+                "afterId", afterId,
+                "size", size
+        );
+        return get("?afterId={afterId}&size={size}", null, parameters);
+    }
+
+    /**
+     * Получает всех пользователей потоком.
+     *
+     * @return потоковый ответ сервера.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    public ResponseEntity<StreamingResponseBody> streamUsers() throws IOException {
+        return stream("/stream", null, Map.of());
     }
 
     /**
@@ -1,6 +1,9 @@
 package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.groups.Default;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,9 +11,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.idempotency.IdempotencyFilter;
 import ru.practicum.shareit.user.dto.UserRequestDto;
 import ru.practicum.shareit.validation.CreateGroup;
 
+import java.io.IOException;
+
 @Controller
 @RequestMapping("/users")
 @RequiredArgsConstructor
@@ -24,14 +31,16 @@ public class UserController {
      * Создает нового пользователя.
      *
      * @param userDto данные пользователя.
+     * @param idempotencyKey ключ идемпотентности (необязательный заголовок Idempotency-Key).
      * @return ответ с созданным пользователем.
      */
     @PostMapping
     public ResponseEntity<Object> create(
             @Validated({Default.class, CreateGroup.class})
-            @Valid @RequestBody UserRequestDto userDto) {
+            @Valid @RequestBody UserRequestDto userDto,
+            @RequestHeader(value = IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("POST /users: Создание пользователя с email {}", userDto.getEmail());
-        return userClient.createUser(userDto);
+        return userClient.createUser(userDto, idempotencyKey);
     }
 
     /**
@@ -62,14 +71,29 @@ public class UserController {
     }
 
     /**
-     * Получает список всех пользователей.
+     * Получает порцию пользователей в порядке возрастания идентификатора.
      *
+     * @param afterId идентификатор последнего полученного пользователя.
+     * @param size размер порции.
      * @return ответ с списком пользователей.
      */
     @GetMapping
-    public ResponseEntity<Object> getAll() {
-        log.info("GET /users: Получение всех пользователей");
-        return userClient.getAllUsers();
+    public ResponseEntity<Object> getAll(@PositiveOrZero @RequestParam(defaultValue = "0") Long afterId,
+                                         @Positive @Max(1000) @RequestParam(defaultValue = "100") int size) {
+        log.info("GET /users: Получение пользователей, afterId={}, size={}", afterId, size);
+        return userClient.getUsers(afterId, size);
+    }
+
+    /**
+     * Получает всех пользователей потоком в формате NDJSON.
+     *
+     * @return потоковый ответ.
+     * @throws IOException при ошибке соединения с сервером.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamAll() throws IOException {
+        log.info("GET /users/stream: Потоковая выгрузка пользователей");
+        return userClient.streamUsers();
     }
 
     /**
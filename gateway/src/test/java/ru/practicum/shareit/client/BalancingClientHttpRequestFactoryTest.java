@@ -0,0 +1,191 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import ru.practicum.shareit.client.ServerInstanceBalancer.ServerInstance;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalancingClientHttpRequestFactoryTest {
+
+    private final List<StubServer> stubs = new ArrayList<>();
+    private ServerInstanceBalancer balancer;
+    private BalancingClientHttpRequestFactory factory;
+
+    @AfterEach
+    void tearDown() {
+        if (balancer != null) {
+            balancer.close();
+        }
+        stubs.forEach(StubServer::close);
+    }
+
+    @Test
+    void execute_prefersLessLoadedOfTwoChoices() throws Exception {
+        start(3);
+        ServerInstance busy = balancer.instances().get(0);
+        for (int i = 0; i < 5; i++) {
+            busy.acquire();
+        }
+
+        for (int i = 0; i < 300; i++) {
+            assertEquals(200, send());
+        }
+
+        assertEquals(0, stubs.get(0).requests(), "загруженный экземпляр проигрывает любому из двух других");
+        assertTrue(stubs.get(1).requests() > 50);
+        assertTrue(stubs.get(2).requests() > 50);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {502, 503, 504})
+    void execute_gatewayErrors_ejectInstanceAfterConsecutiveFailures(int status) throws Exception {
+        start(2);
+        stubs.get(0).respondWith(status);
+
+        for (int i = 0; i < 100; i++) {
+            send();
+        }
+
+        assertEquals(3, stubs.get(0).requests());
+        assertEquals(97, stubs.get(1).requests());
+    }
+
+    @Test
+    void execute_otherServerErrors_doNotEjectInstance() throws Exception {
+        start(2);
+        stubs.get(0).respondWith(500);
+
+        for (int i = 0; i < 100; i++) {
+            send();
+        }
+
+        assertTrue(stubs.get(0).requests() > 3);
+        assertTrue(balancer.instances().get(0).isAvailable(System.nanoTime()));
+    }
+
+    @Test
+    void execute_connectErrors_ejectInstance() throws Exception {
+        StubServer up = new StubServer();
+        stubs.add(up);
+        balancer = ServerInstanceBalancerTest.balancer(List.of(StubServer.closedUrl(), up.url()), 60_000, 50, 0);
+        factory = new BalancingClientHttpRequestFactory(new SimpleClientHttpRequestFactory(), balancer);
+
+        int failed = 0;
+        for (int i = 0; i < 50; i++) {
+            try {
+                send();
+            } catch (IOException e) {
+                failed++;
+            }
+        }
+
+        assertEquals(3, failed);
+        assertEquals(47, up.requests());
+        assertEquals(0, balancer.instances().get(0).outstanding());
+    }
+
+    @Test
+    void execute_feedPolls_goToFirstAvailableInstance() throws Exception {
+        start(3);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(200, send(BalancingClientHttpRequestFactory.FEED_PATH + "?cursor=" + i));
+        }
+        assertEquals(20, stubs.get(0).requests());
+
+        stubs.get(0).respondWith(503);
+        for (int i = 0; i < 20; i++) {
+            send(BalancingClientHttpRequestFactory.FEED_PATH);
+        }
+
+        assertEquals(23, stubs.get(0).requests());
+        assertEquals(17, stubs.get(1).requests(), "после исключения первого лента переходит на следующий");
+        assertEquals(0, stubs.get(2).requests());
+    }
+
+    @Test
+    void execute_outstandingReleasedWhenResponseClosed() throws Exception {
+        start(1);
+        ServerInstance instance = balancer.instances().get(0);
+
+        ClientHttpResponse response = request("/bookings").execute();
+        assertEquals(1, instance.outstanding());
+
+        response.close();
+        assertEquals(0, instance.outstanding());
+        response.close();
+        assertEquals(0, instance.outstanding(), "повторное закрытие не уменьшает счётчик");
+    }
+
+    @Test
+    void execute_keepsPathAndQuery() throws Exception {
+        start(1);
+        ClientHttpRequest request = request("/bookings/owner?state=ALL&from=0");
+
+        try (ClientHttpResponse response = request.execute()) {
+            assertEquals(200, response.getStatusCode().value());
+        }
+        assertEquals(1, stubs.get(0).requests());
+    }
+
+    @Test
+    void routingKey_itemPath_usesItemIdBeforeUser() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(BaseClient.USER_ID_HEADER, "7");
+
+        assertEquals("item:42", BalancingClientHttpRequestFactory.routingKey(
+                URI.create("http://server/items/42"), headers));
+        assertEquals("item:42", BalancingClientHttpRequestFactory.routingKey(
+                URI.create("http://server/items/42/comment"), headers));
+    }
+
+    @Test
+    void routingKey_otherPaths_useUserHeader() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(BaseClient.USER_ID_HEADER, "7");
+
+        assertEquals("user:7", BalancingClientHttpRequestFactory.routingKey(
+                URI.create("http://server/items/search?text=drill"), headers));
+        assertEquals("user:7", BalancingClientHttpRequestFactory.routingKey(
+                URI.create("http://server/bookings/owner?state=ALL"), headers));
+        assertNull(BalancingClientHttpRequestFactory.routingKey(
+                URI.create("http://server/bookings"), new HttpHeaders()));
+    }
+
+    private void start(int instances) throws IOException {
+        for (int i = 0; i < instances; i++) {
+            stubs.add(new StubServer());
+        }
+        balancer = ServerInstanceBalancerTest.balancer(stubs.stream().map(StubServer::url).toList(), 60_000, 50, 0);
+        factory = new BalancingClientHttpRequestFactory(new SimpleClientHttpRequestFactory(), balancer);
+    }
+
+    private int send() throws IOException {
+        return send("/bookings");
+    }
+
+    private int send(String pathAndQuery) throws IOException {
+        try (ClientHttpResponse response = request(pathAndQuery).execute()) {
+            return response.getStatusCode().value();
+        }
+    }
+
+    private ClientHttpRequest request(String pathAndQuery) throws IOException {
+        ClientHttpRequest request = factory.createRequest(URI.create("http://server" + pathAndQuery), HttpMethod.GET);
+        request.getHeaders().add(BaseClient.USER_ID_HEADER, "1");
+        return request;
+    }
+}
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.shareit.booking.BookingClient;
+import ru.practicum.shareit.item.ItemClient;
+import ru.practicum.shareit.request.ItemRequestClient;
+import ru.practicum.shareit.user.UserClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Общий пул соединений клиентов сервера: один пул на все клиенты, размеры из свойств
+ * {@code shareit.server.http.*} и метрики пула (выданные соединения, ожидающие запросы,
+ * время ожидания соединения) при исчерпании лимита соединений на сервер.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "shareit.server.http.pool.max-total=7",
+        "shareit.server.http.pool.max-per-route=2",
+        "shareit.server.balancer.health.interval-ms=0"
+})
+class ServerHttpClientConfigTest {
+
+    private static final long HOLD_MILLIS = 200;
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private static final StubServer STUB = startStub();
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+    @Autowired
+    private CloseableHttpClient serverHttpClient;
+    @Autowired
+    private ClientHttpRequestFactory serverRequestFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserClient userClient;
+    @Autowired
+    private ItemClient itemClient;
+    @Autowired
+    private BookingClient bookingClient;
+    @Autowired
+    private ItemRequestClient itemRequestClient;
+
+    @DynamicPropertySource
+    static void serverUrl(DynamicPropertyRegistry registry) {
+        registry.add("shareit-server.url", STUB::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void clients_shareOneConnectionManager() {
+        assertEquals(1, context.getBeansOfType(PoolingHttpClientConnectionManager.class).size());
+        long leasesBefore = waitTimer().count();
+
+        for (BaseClient client : List.of(userClient, itemClient, bookingClient, itemRequestClient)) {
+            assertSame(serverRequestFactory, client.rest.getRequestFactory());
+            client.rest.getForEntity("/pool", String.class);
+        }
+
+        assertEquals(leasesBefore + 4, waitTimer().count(), "каждый клиент берёт соединение из общего пула");
+    }
+
+    @Test
+    void poolLimits_comeFromProperties() {
+        assertEquals(7, connectionManager.getMaxTotal());
+        assertEquals(2, connectionManager.getDefaultMaxPerRoute());
+        assertEquals(7, gauge("httpcomponents.httpclient.pool.total.max"));
+        assertEquals(2, gauge("httpcomponents.httpclient.pool.route.max.default"));
+    }
+
+    @Test
+    void leasePastMaxPerRoute_waitsAndIsRecorded() throws Exception {
+        long leasesBefore = waitTimer().count();
+        ClassicHttpResponse first = open();
+        ClassicHttpResponse second = open();
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try (ClassicHttpResponse response = open()) {
+                EntityUtils.consume(response.getEntity());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        await(() -> gauge("httpcomponents.httpclient.pool.total.pending") == 1);
+        assertEquals(2, leased());
+        assertFalse(third.isDone(), "третий запрос ждёт свободного соединения");
+
+        Thread.sleep(HOLD_MILLIS);
+        release(first);
+        third.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        release(second);
+
+        assertEquals(0, gauge("httpcomponents.httpclient.pool.total.pending"));
+        assertEquals(0, leased());
+        assertEquals(leasesBefore + 3, waitTimer().count());
+        assertTrue(waitTimer().max(TimeUnit.MILLISECONDS) >= HOLD_MILLIS,
+                "время ожидания третьего запроса попадает в " + ServerHttpClientConfig.POOL_WAIT_METRIC);
+    }
+
+    /**
+     * Выполняет запрос, не читая тело ответа: соединение остаётся выданным до {@link #release}.
+     */
+    private ClassicHttpResponse open() throws IOException {
+        return serverHttpClient.executeOpen(null, new HttpGet(STUB.url() + "/pool"), null);
+    }
+
+    private static void release(ClassicHttpResponse response) throws IOException {
+        EntityUtils.consume(response.getEntity());
+        response.close();
+    }
+
+    private Timer waitTimer() {
+        return meterRegistry.get(ServerHttpClientConfig.POOL_WAIT_METRIC)
+                .tag("httpclient", ServerHttpClientConfig.POOL_NAME)
+                .timer();
+    }
+
+    private double leased() {
+        return meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tags("httpclient", ServerHttpClientConfig.POOL_NAME, "state", "leased")
+                .gauge()
+                .value();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("httpclient", ServerHttpClientConfig.POOL_NAME).gauge().value();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Условие не выполнилось за " + TIMEOUT_MILLIS + " мс");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static StubServer startStub() {
+        try {
+            StubServer stub = new StubServer();
+            stub.respondWithBody("{}");
+            return stub;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
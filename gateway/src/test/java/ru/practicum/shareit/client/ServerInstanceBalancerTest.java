@@ -0,0 +1,236 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.client.ServerInstanceBalancer.ServerInstance;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerInstanceBalancerTest {
+
+    private static final int CONSECUTIVE_FAILURES = 3;
+    private static final List<String> RING_URLS = List.of("http://a:9090", "http://b:9090", "http://c:9090",
+            "http://d:9090");
+    private static final int KEYS = 1_000;
+
+    private ServerInstanceBalancer balancer;
+
+    @AfterEach
+    void tearDown() {
+        if (balancer != null) {
+            balancer.close();
+        }
+    }
+
+    @Test
+    void onFailure_consecutiveFailures_ejectsInstance() {
+        balancer = balancer(List.of("http://a:9090", "http://b:9090"), 60_000, 50, 0);
+        ServerInstance a = instance(0);
+
+        reportFailures(a, CONSECUTIVE_FAILURES - 1);
+        assertTrue(a.isAvailable(System.nanoTime()));
+        reportFailures(a, 1);
+
+        assertFalse(a.isAvailable(System.nanoTime()));
+        for (int i = 0; i < 100; i++) {
+            assertSame(instance(1), balancer.choose());
+        }
+    }
+
+    @Test
+    void onSuccess_resetsConsecutiveFailures() {
+        balancer = balancer(List.of("http://a:9090", "http://b:9090"), 60_000, 50, 0);
+        ServerInstance a = instance(0);
+
+        reportFailures(a, CONSECUTIVE_FAILURES - 1);
+        balancer.onSuccess(a);
+        reportFailures(a, CONSECUTIVE_FAILURES - 1);
+
+        assertTrue(a.isAvailable(System.nanoTime()));
+    }
+
+    @Test
+    void eject_repeatedly_growsEjectionTime() throws Exception {
+        balancer = balancer(List.of("http://a:9090", "http://b:9090"), 300, 50, 0);
+        ServerInstance a = instance(0);
+
+        reportFailures(a, CONSECUTIVE_FAILURES);
+        TimeUnit.MILLISECONDS.sleep(450);
+        assertTrue(a.isAvailable(System.nanoTime()), "первое исключение — 300 мс");
+
+        reportFailures(a, CONSECUTIVE_FAILURES);
+        TimeUnit.MILLISECONDS.sleep(450);
+        assertFalse(a.isAvailable(System.nanoTime()), "второе исключение — 600 мс");
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertTrue(a.isAvailable(System.nanoTime()));
+    }
+
+    @Test
+    void eject_overMaxEjectionPercent_keepsInstance() {
+        balancer = balancer(List.of("http://a:9090", "http://b:9090", "http://c:9090"), 60_000, 50, 0);
+
+        reportFailures(instance(0), CONSECUTIVE_FAILURES);
+        reportFailures(instance(1), CONSECUTIVE_FAILURES);
+
+        long now = System.nanoTime();
+        assertFalse(instance(0).isAvailable(now));
+        assertTrue(instance(1).isAvailable(now), "исключается не больше 50% экземпляров");
+        assertTrue(instance(2).isAvailable(now));
+    }
+
+    @Test
+    void choose_allInstancesUnavailable_choosesAmongAll() {
+        balancer = balancer(List.of("http://a:9090", "http://b:9090"), 60_000, 100, 0);
+        reportFailures(instance(0), CONSECUTIVE_FAILURES);
+        reportFailures(instance(1), CONSECUTIVE_FAILURES);
+
+        assertNotNull(balancer.choose());
+    }
+
+    @Test
+    void checkHealth_failedProbes_removeInstanceUntilRecovery() throws Exception {
+        try (StubServer a = new StubServer(); StubServer b = new StubServer()) {
+            balancer = balancer(List.of(a.url(), b.url()), 60_000, 50, 60_000);
+            awaitFirstHealthCheck(a, b);
+            ServerInstance instanceA = instance(0);
+
+            a.healthWith(503);
+            balancer.checkHealth();
+            assertTrue(instanceA.isAvailable(System.nanoTime()), "один неудачный опрос не исключает экземпляр");
+            balancer.checkHealth();
+            assertFalse(instanceA.isAvailable(System.nanoTime()));
+            for (int i = 0; i < 100; i++) {
+                assertSame(instance(1), balancer.choose());
+            }
+
+            a.healthWith(200);
+            balancer.checkHealth();
+            assertTrue(instanceA.isAvailable(System.nanoTime()));
+        }
+    }
+
+    @Test
+    void checkHealth_unreachableInstance_isRemoved() throws Exception {
+        try (StubServer b = new StubServer()) {
+            balancer = balancer(List.of(StubServer.closedUrl(), b.url()), 60_000, 50, 60_000);
+            awaitFirstHealthCheck(b);
+
+            balancer.checkHealth();
+            balancer.checkHealth();
+
+            assertFalse(instance(0).isAvailable(System.nanoTime()));
+            assertTrue(instance(1).isAvailable(System.nanoTime()));
+        }
+    }
+
+    private ServerInstance instance(int index) {
+        return balancer.instances().get(index);
+    }
+
+    @Test
+    void choose_sameKey_returnsSameInstanceAcrossBalancers() {
+        balancer = ring(RING_URLS, 60_000);
+        Map<String, URI> owners = owners();
+
+        try (ServerInstanceBalancer other = ring(RING_URLS, 60_000)) {
+            for (int i = 0; i < KEYS; i++) {
+                String key = "user:" + i;
+                assertEquals(owners.get(key), balancer.choose(key).uri());
+                assertEquals(owners.get(key), other.choose(key).uri(), "кольцо одинаково на всех шлюзах");
+            }
+        }
+        assertEquals(RING_URLS.size(), Set.copyOf(owners.values()).size(), "ключи расходятся по всем экземплярам");
+    }
+
+    @Test
+    void choose_overloadedInstance_spillsToNextOnRingAndReturns() {
+        balancer = ring(RING_URLS, 60_000);
+        ServerInstance home = balancer.choose("user:1");
+        home.acquire();
+        home.acquire();
+
+        ServerInstance spill = balancer.choose("user:1");
+        assertNotSame(home, spill);
+        assertSame(spill, balancer.choose("user:1"), "переполненный экземпляр заменяется одним и тем же");
+
+        home.release();
+        home.release();
+        assertSame(home, balancer.choose("user:1"));
+    }
+
+    @Test
+    void choose_ejectionAndReturn_moveOnlyKeysOfThatInstance() throws InterruptedException {
+        balancer = ring(RING_URLS, 200);
+        Map<String, URI> before = owners();
+        ServerInstance ejected = instance(0);
+
+        reportFailures(ejected, CONSECUTIVE_FAILURES);
+        Map<String, URI> during = owners();
+
+        int moved = 0;
+        for (Map.Entry<String, URI> entry : before.entrySet()) {
+            if (entry.getValue().equals(ejected.uri())) {
+                assertNotEquals(ejected.uri(), during.get(entry.getKey()));
+                moved++;
+            } else {
+                assertEquals(entry.getValue(), during.get(entry.getKey()), "ключи других экземпляров остаются");
+            }
+        }
+        assertTrue(moved > KEYS / 10);
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertEquals(before, owners(), "после возвращения экземпляр получает прежние ключи");
+    }
+
+    /**
+     * Экземпляры для ключей user:0..KEYS-1; запросы не выполняются, поэтому нагрузка всех экземпляров
+     * нулевая и граница нагрузки не влияет на выбор.
+     */
+    private Map<String, URI> owners() {
+        Map<String, URI> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owners.put("user:" + i, balancer.choose("user:" + i).uri());
+        }
+        return owners;
+    }
+
+    private void reportFailures(ServerInstance instance, int times) {
+        for (int i = 0; i < times; i++) {
+            balancer.onFailure(instance);
+        }
+    }
+
+    /**
+     * Ждёт первого опроса, который планировщик выполняет сразу после создания балансировщика,
+     * чтобы он не смешивался с опросами теста.
+     */
+    private static void awaitFirstHealthCheck(StubServer... stubs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (StubServer stub : stubs) {
+            while (stub.healthChecks() == 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            assertTrue(stub.healthChecks() > 0);
+        }
+        TimeUnit.MILLISECONDS.sleep(100);
+    }
+
+    static ServerInstanceBalancer balancer(List<String> urls, long baseEjectionMillis, int maxEjectionPercent,
+                                           long healthIntervalMillis) {
+        return new ServerInstanceBalancer(urls.get(0), urls.toArray(String[]::new), CONSECUTIVE_FAILURES,
+                baseEjectionMillis, baseEjectionMillis * 10, maxEjectionPercent, "/actuator/health",
+                healthIntervalMillis, 1_000, 2, false, 100, 1.25);
+    }
+
+    private static ServerInstanceBalancer ring(List<String> urls, long baseEjectionMillis) {
+        return new ServerInstanceBalancer(urls.get(0), urls.toArray(String[]::new), CONSECUTIVE_FAILURES,
+                baseEjectionMillis, baseEjectionMillis * 10, 50, "/actuator/health", 0, 1_000, 2, true, 100, 1.25);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Заглушка экземпляра сервера: отвечает заданным статусом (и телом, если оно задано) на запросы
+ * и проверки состояния и считает запросы. Пока тело ответа не прочитано, соединение клиента остаётся занятым.
+ */
+class StubServer implements AutoCloseable {
+
+    private static final String HEALTH_PATH = "/actuator/health";
+
+    private final HttpServer server;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger healthStatus = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger healthChecks = new AtomicInteger();
+    private volatile byte[] body;
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Адрес заглушки, на котором никто не принимает соединения.
+     */
+    static String closedUrl() throws IOException {
+        try (StubServer stub = new StubServer()) {
+            return stub.url();
+        }
+    }
+
+    String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    URI uri() {
+        return URI.create(url());
+    }
+
+    void respondWith(int status) {
+        this.status.set(status);
+    }
+
+    void respondWithBody(String body) {
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    void healthWith(int status) {
+        healthStatus.set(status);
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    int healthChecks() {
+        return healthChecks.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        int code;
+        if (HEALTH_PATH.equals(exchange.getRequestURI().getPath())) {
+            healthChecks.incrementAndGet();
+            code = healthStatus.get();
+        } else {
+            requests.incrementAndGet();
+            code = status.get();
+        }
+        byte[] content = body;
+        if (content == null || HEALTH_PATH.equals(exchange.getRequestURI().getPath())) {
+            exchange.sendResponseHeaders(code, -1);
+        } else {
+            exchange.sendResponseHeaders(code, content.length);
+            exchange.getResponseBody().write(content);
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,170 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private static final byte[] CREATED = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retry_replaysStoredResponseWithoutCallingServer() throws Exception {
+        IdempotencyFilter filter = filter(1_000);
+        FilterChain chain = respond(201, CREATED);
+        send(filter, "{\"name\":\"a\"}", chain);
+
+        MockHttpServletResponse retry = send(filter, "{\"name\":\"a\"}", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertArrayEquals(CREATED, retry.getContentAsByteArray());
+    }
+
+    @Test
+    void sameKeyOtherBody_isRejectedWith422() throws Exception {
+        IdempotencyFilter filter = filter(1_000);
+        send(filter, "{\"name\":\"a\"}", respond(201, CREATED));
+
+        MockHttpServletResponse retry = send(filter, "{\"name\":\"b\"}", respond(201, CREATED));
+
+        assertEquals(422, retry.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void largeBody_isReplayedByteForByte() throws Exception {
+        IdempotencyFilter filter = filter(1_000);
+        byte[] body = new byte[100_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        send(filter, "{}", respond(200, body));
+
+        MockHttpServletResponse retry = send(filter, "{}", respond(200, body));
+
+        assertEquals(1, executions.get());
+        assertArrayEquals(body, retry.getContentAsByteArray());
+    }
+
+    @Test
+    void serverError_releasesKeyAndRetryExecutes() throws Exception {
+        IdempotencyFilter filter = filter(1_000);
+        send(filter, "{}", respond(502, new byte[0]));
+
+        MockHttpServletResponse retry = send(filter, "{}", respond(201, CREATED));
+
+        assertEquals(201, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void clientError_isStoredAndReplayed() throws Exception {
+        IdempotencyFilter filter = filter(1_000);
+        send(filter, "{}", respond(400, new byte[0]));
+
+        MockHttpServletResponse retry = send(filter, "{}", respond(201, CREATED));
+
+        assertEquals(400, retry.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void concurrentRetry_waitsForOriginalResponse() throws Exception {
+        IdempotencyFilter filter = filter(5_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> original = sendAsync(filter, blocking(started, finish));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<MockHttpServletResponse> retry = sendAsync(filter, respond(201, CREATED));
+        Thread.sleep(100);
+        assertFalse(retry.isDone());
+        finish.countDown();
+
+        assertNull(original.get(5, TimeUnit.SECONDS).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", retry.get(5, TimeUnit.SECONDS).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertArrayEquals(CREATED, retry.get().getContentAsByteArray());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void concurrentRetry_afterWaitTimeout_isRejectedWith409() throws Exception {
+        IdempotencyFilter filter = filter(50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> original = sendAsync(filter, blocking(started, finish));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse retry = send(filter, "{}", respond(201, CREATED));
+        finish.countDown();
+
+        assertEquals(409, retry.getStatus());
+        assertEquals(201, original.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    private IdempotencyFilter filter(long inFlightWaitMillis) {
+        return new IdempotencyFilter(new IdempotencyStore(60_000, 100), new ObjectMapper(), inFlightWaitMillis);
+    }
+
+    private FilterChain respond(int status, byte[] body) {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType("application/json");
+            response.getOutputStream().write(body);
+        };
+    }
+
+    private FilterChain blocking(CountDownLatch started, CountDownLatch finish) {
+        FilterChain respond = respond(201, CREATED);
+        return (request, response) -> {
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond.doFilter(request, response);
+        };
+    }
+
+    private static MockHttpServletResponse send(IdempotencyFilter filter, String body, FilterChain chain)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bookings");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key");
+        request.addHeader("X-Sharer-User-Id", "1");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static CompletableFuture<MockHttpServletResponse> sendAsync(IdempotencyFilter filter, FilterChain chain) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(filter, "{}", chain);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.idempotency.IdempotencyStore.Claim;
+import ru.practicum.shareit.idempotency.IdempotencyStore.Outcome;
+import ru.practicum.shareit.idempotency.IdempotencyStore.StoredResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private static final StoredResponse CREATED = new StoredResponse(201, "application/json", "{}".getBytes());
+
+    @Test
+    void claim_sameKey_returnsExistingEntryWithResponse() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10);
+        Claim first = store.claim("1:key", "hash");
+
+        Claim retry = store.claim("1:key", "hash");
+        assertEquals(Outcome.ACQUIRED, first.outcome());
+        assertEquals(Outcome.EXISTING, retry.outcome());
+        assertSame(first.entry(), retry.entry());
+        assertFalse(retry.entry().response().isDone());
+
+        store.complete(first.entry(), CREATED);
+
+        assertSame(CREATED, retry.entry().response().get());
+        assertEquals(Outcome.ACQUIRED, store.claim("2:key", "hash").outcome());
+    }
+
+    @Test
+    void claim_sameKeyOtherRequest_isMismatch() {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10);
+        store.claim("1:key", "hash");
+
+        assertEquals(Outcome.MISMATCH, store.claim("1:key", "other").outcome());
+    }
+
+    @Test
+    void release_completesWaitersWithNullAndFreesKey() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10);
+        Claim first = store.claim("1:key", "hash");
+        Claim waiting = store.claim("1:key", "hash");
+
+        store.release("1:key", first.entry());
+
+        assertNull(waiting.entry().response().get());
+        assertEquals(Outcome.ACQUIRED, store.claim("1:key", "hash").outcome());
+    }
+
+    @Test
+    void release_ofReplacedEntry_keepsNewEntry() {
+        IdempotencyStore store = new IdempotencyStore(60_000, 10);
+        Claim first = store.claim("1:key", "hash");
+        store.release("1:key", first.entry());
+        Claim second = store.claim("1:key", "hash");
+
+        store.release("1:key", first.entry());
+
+        assertSame(second.entry(), store.claim("1:key", "hash").entry());
+    }
+
+    @Test
+    void claim_afterTtl_acquiresAgain() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(10, 10);
+        store.claim("1:key", "hash");
+
+        Thread.sleep(30);
+
+        assertEquals(Outcome.ACQUIRED, store.claim("1:key", "other").outcome());
+    }
+
+    @Test
+    void claim_overMaxSize_evictsEldest() {
+        IdempotencyStore store = new IdempotencyStore(60_000, 2);
+        store.claim("1:a", "hash");
+        store.claim("1:b", "hash");
+
+        store.claim("1:c", "hash");
+
+        assertEquals(Outcome.ACQUIRED, store.claim("1:a", "hash").outcome());
+        assertEquals(Outcome.EXISTING, store.claim("1:c", "hash").outcome());
+    }
+}
@@ -0,0 +1,74 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Заполняет показатели (item_stats) для вещей, у которых их ещё нет.
+ * <p>
+ * Образец заполнения данных в миграции: вещи обходятся порциями по ключу, каждая порция
+ * фиксируется отдельной транзакцией, поэтому блокировки держатся недолго, а прерванная миграция
+ * при повторе продолжает с необработанных вещей (уже заполненные строки пропускаются).
+ * Запросы скопированы сюда намеренно: применённая миграция не должна меняться вместе с кодом приложения.
+ */
+public class V3__Backfill_item_stats extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String NEXT_BATCH_END = "SELECT MAX(id) FROM "
+            + "(SELECT id FROM items WHERE id > ? ORDER BY id LIMIT ?) batch";
+
+    private static final String INSERT_MISSING = "INSERT INTO item_stats "
+            + "(item_id, comment_count, booking_count, completed_rental_count, last_rented_at) "
+            + "SELECT i.id, "
+            + "(SELECT COUNT(*) FROM comments c WHERE c.item_id = i.id), "
+            + "(SELECT COUNT(*) FROM bookings b WHERE b.item_id = i.id AND b.status = 'APPROVED'), "
+            + "(SELECT COUNT(*) FROM bookings b WHERE b.item_id = i.id AND b.rental_completed = TRUE), "
+            + "(SELECT MAX(b.end_date) FROM bookings b WHERE b.item_id = i.id AND b.rental_completed = TRUE) "
+            + "FROM items i "
+            + "WHERE i.id > ? AND i.id <= ? "
+            + "AND NOT EXISTS (SELECT 1 FROM item_stats s WHERE s.item_id = i.id)";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement nextBatchEnd = connection.prepareStatement(NEXT_BATCH_END);
+             PreparedStatement insertMissing = connection.prepareStatement(INSERT_MISSING)) {
+            long afterId = 0;
+            while (true) {
+                nextBatchEnd.setLong(1, afterId);
+                nextBatchEnd.setInt(2, BATCH_SIZE);
+                long lastId;
+                try (ResultSet rs = nextBatchEnd.executeQuery()) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                    if (rs.wasNull()) {
+                        break;
+                    }
+                }
+
+                insertMissing.setLong(1, afterId);
+                insertMissing.setLong(2, lastId);
+                insertMissing.executeUpdate();
+                connection.commit();
+                afterId = lastId;
+            }
+        } catch (Exception e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Заполняет копию владельца вещи (owner_id) в бронированиях, добавленных до V4.
+ * <p>
+ * Заполнение устроено как в {@link V3__Backfill_item_stats}: бронирования обходятся порциями
+ * по ID, каждая порция фиксируется отдельной транзакцией, а прерванная миграция при повторе
+ * пропускает уже заполненные строки.
+ */
+public class V4_1__Backfill_bookings_owner_id extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String NEXT_BATCH_END = "SELECT MAX(id) FROM "
+            + "(SELECT id FROM bookings WHERE id > ? ORDER BY id LIMIT ?) batch";
+
+    private static final String FILL_OWNER = "UPDATE bookings b "
+            + "SET owner_id = i.owner_id "
+            + "FROM items i "
+            + "WHERE i.id = b.item_id "
+            + "AND b.id > ? AND b.id <= ? "
+            + "AND b.owner_id IS NULL";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement nextBatchEnd = connection.prepareStatement(NEXT_BATCH_END);
+             PreparedStatement fillOwner = connection.prepareStatement(FILL_OWNER)) {
+            long afterId = 0;
+            while (true) {
+                nextBatchEnd.setLong(1, afterId);
+                nextBatchEnd.setInt(2, BATCH_SIZE);
+                long lastId;
+                try (ResultSet rs = nextBatchEnd.executeQuery()) {
+                    rs.next();
+                    lastId = rs.getLong(1);
+                    if (rs.wasNull()) {
+                        break;
+                    }
+                }
+
+                fillOwner.setLong(1, afterId);
+                fillOwner.setLong(2, lastId);
+                fillOwner.executeUpdate();
+                connection.commit();
+                afterId = lastId;
+            }
+        } catch (Exception e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
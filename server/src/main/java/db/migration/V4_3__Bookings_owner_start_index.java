@@ -0,0 +1,78 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строит индекс (owner_id, start_date DESC, id DESC) бронирований без блокировки записи.
+ * <p>
+ * Для секционированной таблицы CREATE INDEX CONCURRENTLY недоступен, поэтому индекс создаётся
+ * только на родительской таблице (ON ONLY, пока недействительный), затем на каждой секции
+ * с CONCURRENTLY и подключается к родительскому; после подключения всех секций индекс становится
+ * действительным. Секции, создаваемые позже, получают индекс при подключении к таблице.
+ * CONCURRENTLY не выполняется внутри транзакции, поэтому миграция выполняется вне её, как V2.
+ * Индекс секции, оставшийся недействительным после прерванного построения, удаляется
+ * и строится заново при повторе миграции.
+ */
+public class V4_3__Bookings_owner_start_index extends BaseJavaMigration {
+
+    private static final String INDEX = "IX_BOOKINGS_OWNER_START";
+    private static final String COLUMNS = "(owner_id, start_date DESC, id DESC)";
+
+    private static final String PARTITIONS = "SELECT c.relname::text FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid "
+            + "WHERE i.inhparent = to_regclass('bookings')";
+
+    private static final String INVALID_INDEX = "SELECT NOT i.indisvalid FROM pg_index i "
+            + "WHERE i.indexrelid = to_regclass(?)";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX IF NOT EXISTS " + INDEX + " ON ONLY bookings " + COLUMNS);
+            for (String partition : partitions(connection)) {
+                String partitionIndex = partition + "_owner_start";
+                if (isInvalid(connection, partitionIndex)) {
+                    statement.execute("DROP INDEX CONCURRENTLY " + partitionIndex);
+                }
+                statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + partitionIndex
+                        + " ON " + partition + " " + COLUMNS);
+                statement.execute("ALTER INDEX " + INDEX + " ATTACH PARTITION " + partitionIndex);
+            }
+        }
+    }
+
+    private static List<String> partitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PARTITIONS)) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private static boolean isInvalid(Connection connection, String index) throws SQLException {
+        try (PreparedStatement invalid = connection.prepareStatement(INVALID_INDEX)) {
+            invalid.setString(1, index);
+            try (ResultSet rs = invalid.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
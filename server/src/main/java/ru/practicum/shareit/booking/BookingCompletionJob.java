@@ -0,0 +1,90 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.ItemStatsUpdater;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Фоновая задача, учитывающая завершённые аренды в показателях вещей.
+ * <p>
+ * Аренда завершается с течением времени, а не по запросу пользователя, поэтому одобренные
+ * бронирования с прошедшей датой окончания порциями отмечаются завершёнными, а счётчики
+ * вещей увеличиваются в той же транзакции.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item-stats.completion.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingCompletionJob {
+
+    private final BookingRepository bookingRepository;
+    private final ItemStatsUpdater itemStatsUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookingCompletionJob(BookingRepository bookingRepository,
+                                ItemStatsUpdater itemStatsUpdater,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${shareit.item-stats.completion.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.itemStatsUpdater = itemStatsUpdater;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Обрабатывает завершённые аренды, пока порции заполняются целиком.
+     */
+    @Scheduled(fixedDelayString = "${shareit.item-stats.completion.interval-ms:60000}")
+    public void completeRentals() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int processed;
+        do {
+            processed = transactionTemplate.execute(status -> completeBatch(now));
+            total += processed;
+        } while (processed == batchSize);
+
+        if (total > 0) {
+            log.info("Учтено завершённых аренд: {}", total);
+        }
+    }
+
+    /**
+     * Обрабатывает одну порцию завершённых аренд.
+     *
+     * @param now Момент, до которого аренды считаются завершёнными.
+     * @return Количество обработанных бронирований.
+     */
+    int completeBatch(LocalDateTime now) {
+        List<Booking> bookings = bookingRepository.findCompletedRentalsForUpdate(now, PageRequest.of(0, batchSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, List<Booking>> byItem = bookings.stream()
+                .collect(Collectors.groupingBy(b -> b.getItem().getId()));
+        bookingRepository.markRentalCompleted(bookings.stream().map(Booking::getId).toList());
+
+        byItem.forEach((itemId, itemBookings) -> itemStatsUpdater.onRentalsCompleted(
+                itemId,
+                itemBookings.size(),
+                itemBookings.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow()));
+
+        log.debug("Обработана порция завершённых аренд: бронирований {}, вещей {}.", bookings.size(), byItem.size());
+        return bookings.size();
+    }
+}
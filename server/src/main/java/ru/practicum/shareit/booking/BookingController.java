@@ -2,9 +2,18 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.event.BookingEventHub;
 
 import java.util.List;
 
@@ -18,6 +27,8 @@ import java.util.List;
 public class BookingController {
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
+    private final BookingEventHub bookingEventHub;
 
     /**
      * Создаёт новое бронирование.
@@ -29,7 +40,7 @@ public class BookingController {
     @PostMapping
     public BookingResponseDto create(@RequestHeader(USER_ID_HEADER) Long bookerId,
                                      @RequestBody BookingCreateDto dto) {
-        log.info("Вызван метод создания бронирования: " +
+        log.debug("Вызван метод создания бронирования: " +
                         "арендатор (ID) = {}, " +
                         "ID вещи = {}, " +
                         "дата начала = '{}', " +
@@ -50,7 +61,7 @@ public class BookingController {
     public BookingResponseDto approveOrReject(@RequestHeader(USER_ID_HEADER) Long ownerId,
                                               @PathVariable Long bookingId,
                                               @RequestParam Boolean approved) {
-        log.info("Вызван метод подтверждения/отклонения бронирования: " +
+        log.debug("Вызван метод подтверждения/отклонения бронирования: " +
                         "владелец (ID) = {}, " +
                         "ID бронирования = {}, " +
                         "статус подтверждения = {}",
@@ -58,6 +69,23 @@ public class BookingController {
         return bookingService.approveOrReject(ownerId, bookingId, approved);
     }
 
+    /**
+     * Подтверждает или отклоняет несколько бронирований за один запрос.
+     *
+     * @param ownerId   ID владельца вещей.
+     * @param decisions Решения: ID бронирования и флаг подтверждения.
+     * @return Результат по каждому бронированию в порядке решений.
+     */
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> approveOrRejectBatch(@RequestHeader(USER_ID_HEADER) Long ownerId,
+                                                               @RequestBody List<BookingDecisionDto> decisions) {
+        log.debug("Вызван метод пакетного подтверждения/отклонения бронирований: " +
+                        "владелец (ID) = {}, " +
+                        "количество решений = {}",
+                ownerId, decisions.size());
+        return bookingService.approveOrRejectBatch(ownerId, decisions);
+    }
+
     /**
      * Получает бронирование по его ID.
      *
@@ -68,7 +96,7 @@ public class BookingController {
     @GetMapping("/{bookingId}")
     public BookingResponseDto getById(@RequestHeader(USER_ID_HEADER) Long userId,
                                       @PathVariable Long bookingId) {
-        log.info("Вызван метод получения бронирования по ID: " +
+        log.debug("Вызван метод получения бронирования по ID: " +
                         "пользователь (ID) = {}, " +
                         "ID бронирования = {}",
                 userId, bookingId);
@@ -89,7 +117,7 @@ public class BookingController {
                                                    @RequestParam(defaultValue = "ALL") String state,
                                                    @RequestParam(defaultValue = "0") int from,
                                                    @RequestParam(defaultValue = "10") int size) {
-        log.info("Вызван метод получения всех бронирований арендатора: " +
+        log.debug("Вызван метод получения всех бронирований арендатора: " +
                         "арендатор (ID) = {}, " +
                         "состояние фильтра = '{}', " +
                         "пагинация: смещение = {}, размер страницы = {}",
@@ -111,11 +139,79 @@ public class BookingController {
                                                   @RequestParam(defaultValue = "ALL") String state,
                                                   @RequestParam(defaultValue = "0") int from,
                                                   @RequestParam(defaultValue = "10") int size) {
-        log.info("Вызван метод получения всех бронирований для вещей владельца: " +
+        log.debug("Вызван метод получения всех бронирований для вещей владельца: " +
                         "владелец (ID) = {}, " +
                         "состояние фильтра = '{}', " +
                         "пагинация: смещение = {}, размер страницы = {}",
                 ownerId, state, from, size);
         return bookingService.getAllByOwner(ownerId, state, from, size);
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает количество бронирований арендатора по каждому состоянию.
+     *
+     * @param bookerId ID арендатора.
+     * @return Счётчики по состояниям.
+     */
+    @GetMapping("/summary")
+    public BookingSummaryDto getSummaryByBooker(@RequestHeader(USER_ID_HEADER) Long bookerId) {
+        log.debug("Вызван метод получения счётчиков бронирований арендатора: арендатор (ID) = {}", bookerId);
+        return bookingService.getSummaryByBooker(bookerId);
+    }
+
+    /**
+     * Возвращает количество бронирований вещей владельца по каждому состоянию.
+     *
+     * @param ownerId ID владельца вещей.
+     * @return Счётчики по состояниям.
+     */
+    @GetMapping("/owner/summary")
+    public BookingSummaryDto getSummaryByOwner(@RequestHeader(USER_ID_HEADER) Long ownerId) {
+        log.debug("Вызван метод получения счётчиков бронирований владельца: владелец (ID) = {}", ownerId);
+        return bookingService.getSummaryByOwner(ownerId);
+    }
+
+    /**
+     * Выгружает всю историю бронирований пользователя одним потоком.
+     * Параметры и существование пользователя проверяются до начала передачи.
+     *
+     * @param userId ID пользователя.
+     * @param role   Роль пользователя: owner — бронирования его вещей, booker — его собственные бронирования.
+     * @param format Формат выгрузки: ndjson или csv.
+     * @return Поток строк выгрузки.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                        @RequestParam(defaultValue = "booker") String role,
+                                                        @RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("Вызван метод выгрузки истории бронирований: " +
+                        "пользователь (ID) = {}, " +
+                        "роль = '{}', " +
+                        "формат = '{}'",
+                userId, role, format);
+        BookingExporter.Role exportRole = bookingExporter.parseRole(role);
+        BookingExporter.Format exportFormat = bookingExporter.parseFormat(format);
+        bookingExporter.checkUserExists(userId);
+
+        StreamingResponseBody body = out -> bookingExporter.export(userId, exportRole, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings-" + exportRole.name().toLowerCase() + "."
+                                + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Подписывает пользователя на поток событий (Server-Sent Events) о создании, одобрении
+     * и отклонении его бронирований и бронирований его вещей.
+     *
+     * @param userId ID пользователя.
+     * @return Поток событий.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(USER_ID_HEADER) Long userId) {
+        log.debug("Вызван метод подписки на события бронирований: пользователь (ID) = {}", userId);
+        return bookingEventHub.subscribe(userId);
+    }
+}
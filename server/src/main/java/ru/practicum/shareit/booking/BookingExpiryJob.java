@@ -0,0 +1,98 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.EntityChangedEvent;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.payload.BookingPayload;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Фоновая задача, отменяющая бронирования, которые владелец не подтвердил до даты начала.
+ * <p>
+ * Такие бронирования уже не могут состояться, но оставались в статусе WAITING и попадали
+ * в выборки ожидающих решения. Они порциями переводятся в статус CANCELED; каждая порция
+ * обрабатывается в своей транзакции. Строки выбираются с FOR UPDATE SKIP LOCKED, поэтому задачу
+ * можно запускать на всех узлах одновременно: узлы разбирают разные порции, а бронирование,
+ * которое владелец в этот момент подтверждает, пропускается до следующего запуска.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class BookingExpiryJob {
+
+    private final BookingRepository bookingRepository;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public BookingExpiryJob(BookingRepository bookingRepository,
+                            OutboxWriter outboxWriter,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${shareit.booking.expiry.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.outboxWriter = outboxWriter;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Отменяет просроченные бронирования, пока порции заполняются целиком.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval-ms:60000}")
+    public void cancelExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        int processed;
+        do {
+            processed = transactionTemplate.execute(status -> cancelBatch(now));
+            total += processed;
+        } while (processed == batchSize);
+
+        if (total > 0) {
+            log.info("Отменено бронирований, не подтверждённых до начала: {}", total);
+        }
+    }
+
+    /**
+     * Отменяет одну порцию просроченных бронирований.
+     *
+     * @param now Момент, до которого бронирование должно было быть подтверждено.
+     * @return Количество выбранных бронирований.
+     */
+    int cancelBatch(LocalDateTime now) {
+        List<Booking> bookings = bookingRepository.findExpiredWaitingForUpdate(now, PageRequest.of(0, batchSize));
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+
+        int canceled = bookingRepository.cancelWaiting(bookings.stream().map(Booking::getId).toList());
+        for (Booking booking : bookings) {
+            booking.setStatus(BookingStatus.CANCELED);
+            outboxWriter.append(OutboxEventType.BOOKING_CANCELED, booking.getId(), BookingPayload.of(booking));
+            eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CANCELED, booking));
+            eventPublisher.publishEvent(EntityChangedEvent.booking(booking));
+        }
+
+        log.debug("Обработана порция просроченных бронирований: выбрано {}, отменено {}.", bookings.size(), canceled);
+        return bookings.size();
+    }
+}
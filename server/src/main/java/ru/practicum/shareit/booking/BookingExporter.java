@@ -0,0 +1,211 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingExportRow;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Потоковая выгрузка полной истории бронирований владельца или арендатора в NDJSON или CSV.
+ * <p>
+ * Строки читаются курсором только вперёд (stateless-сессия без контекста персистентности,
+ * read-only соединение, ограниченный fetch size) и сразу пишутся в выходной поток,
+ * поэтому расход памяти не зависит от объёма истории.
+ */
+@Slf4j
+@Component
+public class BookingExporter {
+
+    private static final String SELECT_ROWS = "SELECT new ru.practicum.shareit.booking.dto.BookingExportRow(" +
+            "b.id, i.id, i.name, b.booker.id, b.ownerId, b.start, b.end, b.status) " +
+            "FROM Booking b " +
+            "JOIN b.item i ";
+    private static final String ORDER = " ORDER BY b.start DESC, b.id DESC";
+    private static final String CSV_HEADER = "id,itemId,itemName,bookerId,ownerId,start,end,status";
+
+    /**
+     * Чья история выгружается.
+     */
+    public enum Role {
+        OWNER("WHERE b.ownerId = :userId"),
+        BOOKER("WHERE b.booker.id = :userId");
+
+        private final String condition;
+
+        Role(String condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Формат выгрузки.
+     */
+    @Getter
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+    }
+
+    private final SessionFactory sessionFactory;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public BookingExporter(EntityManagerFactory entityManagerFactory,
+                           UserRepository userRepository,
+                           ObjectMapper objectMapper,
+                           @Value("${shareit.booking.export.fetch-size:500}") int fetchSize) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Разбирает параметр роли.
+     *
+     * @param role Значение параметра (owner или booker).
+     * @return Роль.
+     * @throws ValidationException если значение неизвестно.
+     */
+    public Role parseRole(String role) {
+        try {
+            return Role.valueOf(role.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown role: " + role);
+        }
+    }
+
+    /**
+     * Разбирает параметр формата.
+     *
+     * @param format Значение параметра (ndjson или csv).
+     * @return Формат.
+     * @throws ValidationException если значение неизвестно.
+     */
+    public Format parseFormat(String format) {
+        try {
+            return Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown format: " + format);
+        }
+    }
+
+    /**
+     * Проверяет, что пользователь существует. Вызывается до начала передачи,
+     * пока ещё можно вернуть клиенту код ошибки.
+     *
+     * @param userId ID пользователя.
+     * @throws NotFoundException если пользователь не найден.
+     */
+    public void checkUserExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь ID " + userId + " не найден.");
+        }
+    }
+
+    /**
+     * Пишет историю бронирований пользователя в поток.
+     *
+     * @param userId ID пользователя.
+     * @param role   Роль пользователя в бронированиях.
+     * @param format Формат выгрузки.
+     * @param out    Выходной поток (не закрывается).
+     * @return Количество выгруженных бронирований.
+     * @throws IOException при ошибке записи.
+     */
+    public long export(Long userId, Role role, Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long count;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.doWork(connection -> connection.setReadOnly(true));
+            Transaction transaction = session.beginTransaction();
+            try (ScrollableResults<BookingExportRow> rows = session
+                    .createSelectionQuery(SELECT_ROWS + role.condition + ORDER, BookingExportRow.class)
+                    .setParameter("userId", userId)
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                count = format == Format.CSV ? writeCsv(rows, out) : writeNdjson(rows, out);
+            } finally {
+                transaction.rollback();
+            }
+        }
+        log.info("Выгружено {} бронирований: пользователь (ID) = {}, роль = {}, формат = {}, время = {} мс",
+                count, userId, role, format, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+
+    private long writeNdjson(ScrollableResults<BookingExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (rows.next()) {
+                generator.writeObject(rows.get());
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(ScrollableResults<BookingExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (rows.next()) {
+            BookingExportRow row = rows.get();
+            writer.write(row.id() + "," + row.itemId() + "," + csvField(row.itemName()) + ","
+                    + row.bookerId() + "," + row.ownerId() + "," + row.start() + "," + row.end() + ","
+                    + row.status());
+            writer.write('\n');
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Экранирует значение по правилам RFC 4180.
+     */
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,185 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static ru.practicum.shareit.booking.BookingPartitions.*;
+
+/**
+ * Ведение секционирования таблицы бронирований в PostgreSQL (см. {@link BookingPartitions}).
+ * <p>
+ * Секционированная по {@code end_date} таблица и секция по умолчанию создаются миграцией схемы.
+ * При запуске и затем ежедневно создаются архивная и месячные секции (с запасом вперёд),
+ * а секции месяцев старше горизонта архивации помечаются архивными переименованием. Строки при
+ * архивации не переносятся: архивные месяцы остаются секциями той же таблицы, поэтому выборки
+ * прошедших бронирований видят их без изменений, а выборки текущих и будущих бронирований
+ * с условием на {@code end_date} их отсекают.
+ * На других СУБД (H2 в тестах) ничего не делает.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.booking.partitioning.enabled", havingValue = "true")
+public class BookingPartitionManager implements SmartInitializingSingleton {
+
+    /**
+     * Ключ рекомендательной блокировки обслуживания секций.
+     */
+    private static final long LOCK_KEY = 0x5348_4254_5041_5254L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int archiveAfterMonths;
+    private final boolean postgres;
+
+    public BookingPartitionManager(DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${shareit.booking.partitioning.months-ahead:3}") int monthsAhead,
+                                   @Value("${shareit.booking.partitioning.archive-after-months:12}") int archiveAfterMonths) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.archiveAfterMonths = archiveAfterMonths;
+        this.postgres = isPostgres(dataSource);
+    }
+
+    /**
+     * Подготавливает секции после создания схемы и до начала приёма запросов.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!postgres) {
+            log.info("Секционирование бронирований поддерживается только в PostgreSQL и отключено.");
+            return;
+        }
+        maintain();
+    }
+
+    /**
+     * Создаёт недостающие месячные секции и архивирует устаревшие.
+     */
+    @Scheduled(cron = "${shareit.booking.partitioning.cron:0 15 2 * * *}")
+    public void maintain() {
+        if (!postgres) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        inLockedTransaction(() -> ensureArchive(now));
+        for (YearMonth month : requiredMonths(now, archiveAfterMonths, monthsAhead)) {
+            inLockedTransaction(() -> createMonthly(month));
+        }
+        YearMonth boundary = archiveBoundary(now, archiveAfterMonths);
+        for (YearMonth month : monthlyPartitions()) {
+            if (month.isBefore(boundary)) {
+                inLockedTransaction(() -> archive(month));
+            }
+        }
+    }
+
+    /**
+     * Выполняет шаг обслуживания в транзакции под транзакционной рекомендательной блокировкой.
+     * Обслуживание запускается на каждом узле при старте и по расписанию; блокировка выстраивает
+     * узлы в очередь, а проверки состояния внутри шага выполняются уже под ней, поэтому шаг,
+     * выполненный другим узлом, пропускается, а не повторяется с ошибкой.
+     */
+    private void inLockedTransaction(Runnable step) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", LOCK_KEY);
+            step.run();
+        });
+    }
+
+    /**
+     * Создаёт архивную секцию, если её нет (первый запуск после миграции схемы).
+     * Бронирования старше границы архива, уже попавшие в секцию по умолчанию, переносятся в неё.
+     */
+    private void ensureArchive(LocalDateTime now) {
+        if (exists(ARCHIVE)) {
+            return;
+        }
+        String upper = lowerBound(archiveBoundary(now, archiveAfterMonths));
+        attachFromDefault(ARCHIVE, "MINVALUE", upper, "end_date < " + upper);
+    }
+
+    /**
+     * Создаёт месячную секцию, если её нет.
+     */
+    private void createMonthly(YearMonth month) {
+        String name = monthlyName(month);
+        if (exists(name)) {
+            return;
+        }
+        attachFromDefault(name, lowerBound(month), upperBound(month),
+                "end_date >= " + lowerBound(month) + " AND end_date < " + upperBound(month));
+    }
+
+    /**
+     * Создаёт секцию и подключает её к таблице. Строки диапазона, уже попавшие в секцию
+     * по умолчанию, переносятся в новую секцию до подключения; временное ограничение CHECK
+     * избавляет подключение от повторной проверки всех строк секции.
+     */
+    private void attachFromDefault(String name, String from, String to, String range) {
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE bookings INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT + " WHERE " + range + " RETURNING *) "
+                + "INSERT INTO " + name + " SELECT * FROM moved");
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_bound CHECK (" + range + ")");
+        jdbcTemplate.execute("ALTER TABLE bookings ATTACH PARTITION " + name
+                + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT " + name + "_bound");
+        log.info("Создана секция бронирований {} (перенесено из секции по умолчанию: {}).", name, moved);
+    }
+
+    /**
+     * Помечает месячную секцию архивной, если она ещё не помечена. Меняются только метаданные:
+     * переименование коротко блокирует одну эту секцию, таблица бронирований и строки секции
+     * не затрагиваются.
+     */
+    private void archive(YearMonth month) {
+        String name = monthlyName(month);
+        if (!exists(name)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + archivedName(month));
+        log.info("Секция {} помечена архивной: {}.", name, archivedName(month));
+    }
+
+    private List<YearMonth> monthlyPartitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname::text FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = to_regclass(?)", String.class, TABLE)
+                .stream()
+                .map(BookingPartitions::parseMonthly)
+                .flatMap(Optional::stream)
+                .sorted()
+                .toList();
+    }
+
+    private boolean exists(String relation) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, relation));
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return "PostgreSQL".equals(product);
+        } catch (Exception e) {
+            log.warn("Не удалось определить СУБД: {}", e.getMessage());
+            return false;
+        }
+    }
+}
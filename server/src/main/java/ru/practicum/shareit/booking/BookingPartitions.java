@@ -0,0 +1,100 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Разбиение таблицы бронирований на секции по дате окончания.
+ * <p>
+ * Бронирования, закончившиеся до первого запуска секционирования, хранятся в секции
+ * {@code bookings_archive} (от MINVALUE до границы архива на тот момент), далее идут помесячные
+ * секции {@code bookings_pYYYYMM}; месяцы старше горизонта архивации переименовываются
+ * в {@code bookings_archive_pYYYYMM}. Бронирования, заканчивающиеся позже последней созданной
+ * месячной секции, попадают в секцию по умолчанию {@code bookings_default}.
+ */
+final class BookingPartitions {
+
+    static final String TABLE = "bookings";
+    static final String ARCHIVE = "bookings_archive";
+    static final String DEFAULT = "bookings_default";
+
+    private static final String MONTHLY_PREFIX = "bookings_p";
+    private static final String ARCHIVED_PREFIX = "bookings_archive_p";
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private BookingPartitions() {
+        // Утилитарный класс
+    }
+
+    /**
+     * Возвращает имя месячной секции.
+     */
+    static String monthlyName(YearMonth month) {
+        return MONTHLY_PREFIX + month.format(MONTH_SUFFIX);
+    }
+
+    /**
+     * Возвращает имя архивированной месячной секции.
+     */
+    static String archivedName(YearMonth month) {
+        return ARCHIVED_PREFIX + month.format(MONTH_SUFFIX);
+    }
+
+    /**
+     * Определяет месяц по имени месячной секции.
+     *
+     * @return Месяц или пустой результат, если это не месячная секция.
+     */
+    static Optional<YearMonth> parseMonthly(String partitionName) {
+        if (!partitionName.startsWith(MONTHLY_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(YearMonth.parse(partitionName.substring(MONTHLY_PREFIX.length()), MONTH_SUFFIX));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Возвращает первый месяц, который ещё не архивируется: секции более ранних месяцев
+     * считаются архивными.
+     *
+     * @param now                 Текущий момент.
+     * @param archiveAfterMonths  Горизонт архивации в месяцах.
+     */
+    static YearMonth archiveBoundary(LocalDateTime now, int archiveAfterMonths) {
+        return YearMonth.from(now).minusMonths(archiveAfterMonths);
+    }
+
+    /**
+     * Возвращает месяцы, для которых должны существовать месячные секции: от границы архива
+     * до текущего месяца плюс запас вперёд.
+     */
+    static List<YearMonth> requiredMonths(LocalDateTime now, int archiveAfterMonths, int monthsAhead) {
+        YearMonth last = YearMonth.from(now).plusMonths(monthsAhead);
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = archiveBoundary(now, archiveAfterMonths); !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * Возвращает литерал начала месяца для границ секций.
+     */
+    static String lowerBound(YearMonth month) {
+        return "'" + month.atDay(1) + " 00:00:00'";
+    }
+
+    /**
+     * Возвращает литерал начала следующего месяца (верхняя граница секции не включается).
+     */
+    static String upperBound(YearMonth month) {
+        return lowerBound(month.plusMonths(1));
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 
 import java.util.List;
 
@@ -9,15 +12,21 @@ import java.util.List;
  * Сервис для бронирований.
  */
 public interface BookingService {
-    enum BookingState { ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED }
+    enum BookingState { ALL, CURRENT, PAST, FUTURE, WAITING, REJECTED, CANCELED }
 
     BookingResponseDto create(Long bookerId, BookingCreateDto dto);
 
     BookingResponseDto approveOrReject(Long ownerId, Long bookingId, Boolean approved);
 
+    List<BookingDecisionResultDto> approveOrRejectBatch(Long ownerId, List<BookingDecisionDto> decisions);
+
     BookingResponseDto getById(Long userId, Long bookingId);
 
     List<BookingResponseDto> getAllByBooker(Long bookerId, String state, int from, int size);
 
     List<BookingResponseDto> getAllByOwner(Long ownerId, String state, int from, int size);
+
+    BookingSummaryDto getSummaryByBooker(Long bookerId);
+
+    BookingSummaryDto getSummaryByOwner(Long ownerId);
 }
\ No newline at end of file
@@ -2,23 +2,37 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto.Outcome;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.EntityChangedEvent;
+import ru.practicum.shareit.config.RetryOnOptimisticLock;
 import ru.practicum.shareit.exception.*;
+import ru.practicum.shareit.item.ItemStatsUpdater;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.payload.BookingPayload;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Реализация сервиса бронирований.
@@ -31,6 +45,10 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final ItemStatsUpdater itemStatsUpdater;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingSummaryCache summaryCache;
 
     /**
      * Создает бронирование.
@@ -40,6 +58,7 @@ public class BookingServiceImpl implements BookingService {
      * @throws ItemNotAvailableException если даты некорректны или вещь недоступна.
      * @throws NotFoundException если вещь или пользователь не найдены.
      */
+    @RetryOnOptimisticLock
     @Transactional
     @Override
     public BookingResponseDto create(Long bookerId, BookingCreateDto dto) {
@@ -49,7 +68,7 @@ public class BookingServiceImpl implements BookingService {
 
         User booker = userRepository.findById(bookerId)
                 .orElseThrow(() -> new NotFoundException("Пользователь ID " + bookerId + " не найден."));
-        Item item = itemRepository.findById(dto.itemId())
+        Item item = itemRepository.findForBookingById(dto.itemId())
                 .orElseThrow(() -> new NotFoundException("Вещь ID " + dto.itemId() + " не найдена."));
 
         if (!item.getAvailable()) {
@@ -62,6 +81,9 @@ public class BookingServiceImpl implements BookingService {
 
         Booking booking = new Booking(null, dto.start(), dto.end(), item, booker, BookingStatus.WAITING);
         Booking savedBooking = bookingRepository.save(booking);
+        outboxWriter.append(OutboxEventType.BOOKING_CREATED, savedBooking.getId(), BookingPayload.of(savedBooking));
+        eventPublisher.publishEvent(BookingEvent.of(BookingEventType.CREATED, savedBooking));
+        eventPublisher.publishEvent(EntityChangedEvent.booking(savedBooking));
         log.info("Создано бронирование ID {} арендатором {}", savedBooking.getId(), bookerId);
         return BookingMapper.toDto(savedBooking);
     }
@@ -69,6 +91,10 @@ public class BookingServiceImpl implements BookingService {
     /**
      * Одобряет или отклоняет бронирование вещи.
      * Только владелец вещи может изменить статус бронирования, и бронирование должно находиться в статусе WAITING.
+     * Переход выполняется одним условным UPDATE; причина отказа (нет бронирования, чужая вещь,
+     * уже обработано) выясняется дополнительным запросом только при неудаче.
+     * Одобрение учитывается в показателях вещи в той же транзакции.
+     * Подписчики потока событий получают изменение после фиксации транзакции.
      *
      * @param ownerId   Идентификатор пользователя, который является владельцем вещи.
      * @param bookingId Идентификатор бронирования.
@@ -81,23 +107,96 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     @Override
     public BookingResponseDto approveOrReject(Long ownerId, Long bookingId, Boolean approved) {
+        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
 
-        Booking booking = bookingRepository.findById(bookingId)
+        int updated = bookingRepository.updateStatusIfOwnedAndInStatus(
+                bookingId, ownerId, BookingStatus.WAITING, newStatus);
+        if (updated == 0) {
+            throw resolveApprovalFailure(ownerId, bookingId);
+        }
+
+        Booking savedBooking = bookingRepository.findWithItemAndBookerById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Бронирование ID " + bookingId + " не найдено."));
+        if (approved) {
+            itemStatsUpdater.onBookingApproved(savedBooking.getItem().getId());
+        }
+        outboxWriter.append(approved ? OutboxEventType.BOOKING_APPROVED : OutboxEventType.BOOKING_REJECTED,
+                bookingId, BookingPayload.of(savedBooking));
+        eventPublisher.publishEvent(BookingEvent.of(
+                approved ? BookingEventType.APPROVED : BookingEventType.REJECTED, savedBooking));
+        eventPublisher.publishEvent(EntityChangedEvent.booking(savedBooking));
+        log.info("Владелец {} установил статус {} для бронирования {}", ownerId, newStatus, bookingId);
+        return BookingMapper.toDto(savedBooking);
+    }
 
-        if (!booking.getItem().getOwner().getId().equals(ownerId)) {
-            throw new OwnerMismatchException("Пользователь ID " + ownerId + " не является владельцем вещи.");
+    /**
+     * Подтверждает или отклоняет несколько бронирований владельца за один вызов.
+     * <p>
+     * Бронирования загружаются и блокируются одним запросом, по нему же проверяются владелец и статус.
+     * Подтверждаемые бронирования проверяются на пересечение между собой и с уже подтверждёнными
+     * бронированиями тех же вещей (тоже одним запросом); при пересечении побеждает решение,
+     * стоящее в запросе раньше. Все допустимые переходы выполняются одним UPDATE.
+     * Ошибка по отдельному бронированию не прерывает обработку остальных и возвращается в его результате.
+     *
+     * @param ownerId   Идентификатор владельца вещей.
+     * @param decisions Решения по бронированиям.
+     * @return Результаты в порядке решений.
+     * @throws NotFoundException   если пользователь не найден.
+     * @throws ValidationException если решение не задано или бронирование указано дважды.
+     */
+    @Transactional
+    @Override
+    public List<BookingDecisionResultDto> approveOrRejectBatch(Long ownerId, List<BookingDecisionDto> decisions) {
+        checkUserExists(ownerId);
+        Map<Long, Boolean> approvedById = new LinkedHashMap<>();
+        for (BookingDecisionDto decision : decisions) {
+            if (decision.bookingId() == null || decision.approved() == null) {
+                throw new ValidationException("Для каждого бронирования нужны ID и решение.");
+            }
+            if (approvedById.putIfAbsent(decision.bookingId(), decision.approved()) != null) {
+                throw new ValidationException("Бронирование ID " + decision.bookingId() + " указано несколько раз.");
+            }
         }
 
-        if (!booking.getStatus().equals(BookingStatus.WAITING)) {
-            throw new ValidationException("Невозможно изменить статус уже обработанного бронирования.");
+        Map<Long, Booking> found = bookingRepository.findAllForDecisionByIdIn(List.copyOf(approvedById.keySet())).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        Map<Long, BookingDecisionResultDto> results = new LinkedHashMap<>();
+        List<Booking> candidates = new ArrayList<>();
+        List<Long> rejectedIds = new ArrayList<>();
+        approvedById.forEach((bookingId, approved) -> {
+            Booking booking = found.get(bookingId);
+            if (booking == null) {
+                results.put(bookingId, new BookingDecisionResultDto(bookingId, Outcome.NOT_FOUND, null));
+            } else if (!booking.getOwnerId().equals(ownerId)) {
+                results.put(bookingId, new BookingDecisionResultDto(bookingId, Outcome.NOT_OWNER, null));
+            } else if (booking.getStatus() != BookingStatus.WAITING) {
+                results.put(bookingId, new BookingDecisionResultDto(bookingId, Outcome.ALREADY_PROCESSED, booking.getStatus()));
+            } else if (approved) {
+                candidates.add(booking);
+                results.put(bookingId, null);
+            } else {
+                rejectedIds.add(bookingId);
+                results.put(bookingId, null);
+            }
+        });
+
+        List<Long> approvedIds = withoutOverlaps(candidates).stream().map(Booking::getId).toList();
+        Set<Long> accepted = Set.copyOf(approvedIds);
+        for (Booking booking : candidates) {
+            if (!accepted.contains(booking.getId())) {
+                results.put(booking.getId(),
+                        new BookingDecisionResultDto(booking.getId(), Outcome.OVERLAPS_APPROVED, BookingStatus.WAITING));
+            }
         }
 
-        BookingStatus newStatus = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
-        booking.setStatus(newStatus);
-        Booking savedBooking = bookingRepository.save(booking);
-        log.info("Владелец {} установил статус {} для бронирования {}", ownerId, newStatus, bookingId);
-        return BookingMapper.toDto(savedBooking);
+        List<Long> changedIds = new ArrayList<>(approvedIds);
+        changedIds.addAll(rejectedIds);
+        if (!changedIds.isEmpty()) {
+            applyDecisions(ownerId, changedIds, approvedIds, results);
+        }
+        log.info("Владелец {} обработал пакет решений: подтверждено {}, отклонено {}, всего {}",
+                ownerId, approvedIds.size(), rejectedIds.size(), results.size());
+        return List.copyOf(results.values());
     }
 
     @Override
@@ -114,7 +213,7 @@ public class BookingServiceImpl implements BookingService {
             throw new NotFoundException("Пользователь " + userId + " не арендатор и не владелец.");
         }
 
-        log.info("Получено бронирование ID {} пользователем {}", bookingId, userId);
+        log.debug("Получено бронирование ID {} пользователем {}", bookingId, userId);
         return BookingMapper.toDto(booking);
     }
 
@@ -126,14 +225,15 @@ public class BookingServiceImpl implements BookingService {
         LocalDateTime currentTime = LocalDateTime.now();
         List<Booking> bookings = switch (bookingState) {
             case ALL -> bookingRepository.findAllByBookerIdOrderByStartDesc(bookerId, page);
-            case CURRENT -> bookingRepository.findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(bookerId, currentTime, currentTime, page);
+            case CURRENT -> bookingRepository.findAllCurrentByBookerId(bookerId, currentTime, page);
             case PAST -> bookingRepository.findAllByBookerIdAndEndBeforeOrderByStartDesc(bookerId, currentTime, page);
-            case FUTURE -> bookingRepository.findAllByBookerIdAndStartAfterOrderByStartDesc(bookerId, currentTime, page);
+            case FUTURE -> bookingRepository.findAllFutureByBookerId(bookerId, currentTime, page);
             case WAITING -> bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.WAITING, page);
             case REJECTED -> bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.REJECTED, page);
+            case CANCELED -> bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.CANCELED, page);
         };
 
-        log.info("Получен список бронирований арендатора {} по состоянию {}. Количество: {}", bookerId, state, bookings.size());
+        log.debug("Получен список бронирований арендатора {} по состоянию {}. Количество: {}", bookerId, state, bookings.size());
         return BookingMapper.toDto(bookings);
     }
 
@@ -156,12 +256,108 @@ public class BookingServiceImpl implements BookingService {
             case FUTURE -> bookingRepository.findAllFutureByOwnerId(ownerId, currentTime, page);
             case WAITING -> bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.WAITING, page);
             case REJECTED -> bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, page);
+            case CANCELED -> bookingRepository.findAllByOwnerIdAndStatus(ownerId, BookingStatus.CANCELED, page);
         };
 
-        log.info("Получен список бронирований для вещей владельца {} по состоянию {}. Количество: {}", ownerId, state, bookings.size());
+        log.debug("Получен список бронирований для вещей владельца {} по состоянию {}. Количество: {}", ownerId, state, bookings.size());
         return BookingMapper.toDto(bookings);
     }
 
+    /**
+     * Возвращает счётчики бронирований арендатора по состояниям.
+     * Счётчики подсчитываются одним запросом и кэшируются на короткое время.
+     */
+    @Override
+    public BookingSummaryDto getSummaryByBooker(Long bookerId) {
+        checkUserExists(bookerId);
+        BookingSummaryDto summary = summaryCache.get(BookingSummaryCache.Role.BOOKER, bookerId,
+                () -> bookingRepository.countByBookerId(bookerId, LocalDateTime.now()));
+        log.debug("Получены счётчики бронирований арендатора {}: {}", bookerId, summary);
+        return summary;
+    }
+
+    /**
+     * Возвращает счётчики бронирований вещей владельца по состояниям.
+     * Счётчики подсчитываются одним запросом и кэшируются на короткое время.
+     */
+    @Override
+    public BookingSummaryDto getSummaryByOwner(Long ownerId) {
+        checkUserExists(ownerId);
+        BookingSummaryDto summary = summaryCache.get(BookingSummaryCache.Role.OWNER, ownerId,
+                () -> bookingRepository.countByOwnerId(ownerId, LocalDateTime.now()));
+        log.debug("Получены счётчики бронирований вещей владельца {}: {}", ownerId, summary);
+        return summary;
+    }
+
+    /**
+     * Отбирает подтверждаемые бронирования, не пересекающиеся с уже подтверждёнными и друг с другом
+     * (в порядке решений).
+     */
+    private List<Booking> withoutOverlaps(List<Booking> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime from = candidates.stream().map(Booking::getStart).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = candidates.stream().map(Booking::getEnd).max(Comparator.naturalOrder()).orElseThrow();
+        Set<Long> itemIds = candidates.stream().map(booking -> booking.getItem().getId()).collect(Collectors.toSet());
+        Map<Long, List<Booking>> approvedByItem = bookingRepository.findApprovedOverlapping(itemIds, from, to).stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(),
+                        Collectors.toCollection(ArrayList::new)));
+
+        List<Booking> accepted = new ArrayList<>();
+        for (Booking candidate : candidates) {
+            List<Booking> approved = approvedByItem.computeIfAbsent(candidate.getItem().getId(), id -> new ArrayList<>());
+            boolean overlaps = approved.stream().anyMatch(other ->
+                    other.getStart().isBefore(candidate.getEnd()) && candidate.getStart().isBefore(other.getEnd()));
+            if (!overlaps) {
+                approved.add(candidate);
+                accepted.add(candidate);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Применяет допустимые решения одним UPDATE и учитывает их в показателях, outbox и событиях.
+     */
+    private void applyDecisions(Long ownerId, List<Long> changedIds, List<Long> approvedIds,
+                                Map<Long, BookingDecisionResultDto> results) {
+        int updated = bookingRepository.applyDecisions(ownerId, changedIds, approvedIds);
+        if (updated != changedIds.size()) {
+            throw new IllegalStateException("Изменено " + updated + " бронирований из " + changedIds.size()
+                    + " заблокированных.");
+        }
+
+        List<Booking> changed = bookingRepository.findAllWithItemAndBookerByIdIn(changedIds);
+        changed.stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.APPROVED)
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId(), Collectors.counting()))
+                .forEach(itemStatsUpdater::onBookingsApproved);
+        for (Booking booking : changed) {
+            boolean approved = booking.getStatus() == BookingStatus.APPROVED;
+            outboxWriter.append(approved ? OutboxEventType.BOOKING_APPROVED : OutboxEventType.BOOKING_REJECTED,
+                    booking.getId(), BookingPayload.of(booking));
+            eventPublisher.publishEvent(BookingEvent.of(
+                    approved ? BookingEventType.APPROVED : BookingEventType.REJECTED, booking));
+            eventPublisher.publishEvent(EntityChangedEvent.booking(booking));
+            results.put(booking.getId(), new BookingDecisionResultDto(booking.getId(), Outcome.UPDATED, booking.getStatus()));
+        }
+    }
+
+    /**
+     * Определяет, почему условное изменение статуса не затронуло ни одной строки.
+     */
+    private RuntimeException resolveApprovalFailure(Long ownerId, Long bookingId) {
+        return bookingRepository.findApprovalStateById(bookingId)
+                .<RuntimeException>map(state -> {
+                    if (!state.getOwnerId().equals(ownerId)) {
+                        return new OwnerMismatchException("Пользователь ID " + ownerId + " не является владельцем вещи.");
+                    }
+                    return new ValidationException("Невозможно изменить статус уже обработанного бронирования.");
+                })
+                .orElseGet(() -> new NotFoundException("Бронирование ID " + bookingId + " не найдено."));
+    }
+
     private BookingState parseState(String state) {
         try {
             return BookingState.valueOf(state);
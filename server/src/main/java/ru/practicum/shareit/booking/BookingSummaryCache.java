@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.cache.CacheInvalidationListener;
+import ru.practicum.shareit.cache.EntityChangedEvent;
+import ru.practicum.shareit.cache.EntityType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш счётчиков бронирований пользователя (GET /bookings/summary и /bookings/owner/summary).
+ * <p>
+ * Изменение бронирования на любом узле сбрасывает счётчики арендатора и владельца вещи
+ * (см. {@link ru.practicum.shareit.cache.InvalidationBus}). Состояния CURRENT, PAST и FUTURE
+ * меняются и без записи, с течением времени, поэтому значения живут не дольше заданного TTL.
+ */
+@Component
+public class BookingSummaryCache implements CacheInvalidationListener {
+
+    /**
+     * Чьи бронирования посчитаны.
+     */
+    enum Role { BOOKER, OWNER }
+
+    private record Key(Role role, Long userId) {
+    }
+
+    private record Entry(BookingSummaryDto summary, long expiresAt) {
+    }
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public BookingSummaryCache(@Value("${shareit.booking.summary.cache-ttl-ms:5000}") long ttlMillis,
+                               @Value("${shareit.booking.summary.cache-max-size:10000}") int maxSize) {
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает непросроченные счётчики из кэша или подсчитывает и запоминает их.
+     * Счётчики, подсчитанные до сброса, в кэш не попадают.
+     */
+    BookingSummaryDto get(Role role, Long userId, Supplier<BookingSummaryDto> loader) {
+        Key key = new Key(role, userId);
+        long now = System.nanoTime();
+        Entry cached = entries.get(key);
+        if (cached != null && cached.expiresAt() - now > 0) {
+            return cached.summary();
+        }
+        long loadedAt = generation.get();
+        BookingSummaryDto summary = loader.get();
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+        Entry entry = new Entry(summary, now + ttlNanos);
+        entries.put(key, entry);
+        if (generation.get() != loadedAt) {
+            entries.remove(key, entry);
+        }
+        return summary;
+    }
+
+    @Override
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() != EntityType.BOOKING && event.type() != EntityType.USER) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (Long userId : event.userIds()) {
+            entries.remove(new Key(Role.BOOKER, userId));
+            entries.remove(new Key(Role.OWNER, userId));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+}
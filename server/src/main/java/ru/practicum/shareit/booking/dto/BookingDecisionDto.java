@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * DTO решения владельца по одному бронированию в пакетном подтверждении.
+ * @param bookingId ID бронирования.
+ * @param approved true — подтвердить, false — отклонить.
+ */
+public record BookingDecisionDto(
+        Long bookingId,
+        Boolean approved
+) {}
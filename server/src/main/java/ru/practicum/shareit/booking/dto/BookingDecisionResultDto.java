@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * DTO результата пакетного подтверждения для одного бронирования.
+ * @param bookingId ID бронирования.
+ * @param outcome Результат.
+ * @param status Статус бронирования после обработки (null, если бронирование недоступно пользователю).
+ */
+public record BookingDecisionResultDto(
+        Long bookingId,
+        Outcome outcome,
+        BookingStatus status
+) {
+
+    /**
+     * Результат обработки решения.
+     */
+    public enum Outcome {
+        /** Статус изменён. */
+        UPDATED,
+        /** Бронирование не найдено. */
+        NOT_FOUND,
+        /** Пользователь не является владельцем вещи. */
+        NOT_OWNER,
+        /** Бронирование уже подтверждено или отклонено. */
+        ALREADY_PROCESSED,
+        /** Период пересекается с другим подтверждённым бронированием той же вещи. */
+        OVERLAPS_APPROVED
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка выгрузки истории бронирований (GET /bookings/export).
+ */
+public record BookingExportRow(
+        Long id,
+        Long itemId,
+        String itemName,
+        Long bookerId,
+        Long ownerId,
+        LocalDateTime start,
+        LocalDateTime end,
+        BookingStatus status
+) {}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * DTO со счётчиками бронирований пользователя по состояниям (как в фильтре state списков бронирований).
+ * @param all Все бронирования.
+ * @param current Текущие.
+ * @param past Завершённые.
+ * @param future Будущие.
+ * @param waiting Ожидающие подтверждения.
+ * @param rejected Отклонённые.
+ * @param canceled Отменённые (не подтверждённые до начала).
+ */
+public record BookingSummaryDto(
+        Long all,
+        Long current,
+        Long past,
+        Long future,
+        Long waiting,
+        Long rejected,
+        Long canceled
+) {}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.booking.event;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие изменения бронирования внутри приложения. Публикуется сервисом бронирований
+ * и доставляется арендатору и владельцу вещи после фиксации транзакции.
+ */
+public record BookingEvent(
+        BookingEventType type,
+        Long bookingId,
+        Long itemId,
+        Long bookerId,
+        Long ownerId,
+        BookingStatus status,
+        LocalDateTime start,
+        LocalDateTime end
+) {
+
+    /** Формирует событие из сохранённого бронирования. */
+    public static BookingEvent of(BookingEventType type, Booking booking) {
+        return new BookingEvent(type, booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getOwnerId(), booking.getStatus(), booking.getStart(), booking.getEnd());
+    }
+}
@@ -0,0 +1,294 @@
+package ru.practicum.shareit.booking.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.cache.ClusterMessageListener;
+import ru.practicum.shareit.cache.InvalidationBus;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Раздаёт события бронирований подписчикам потока SSE (GET /bookings/stream).
+ * <p>
+ * У каждого подписчика своя ограниченная очередь и виртуальный поток, который отправляет из неё
+ * события клиенту, поэтому медленное соединение не задерживает ни транзакцию, в которой событие
+ * возникло, ни других подписчиков. Подписчик, чья очередь переполнилась, отключается — клиент
+ * переподключается и перечитывает актуальное состояние обычным запросом.
+ * <p>
+ * Подписчики арендатора и владельца могут быть подключены к разным узлам сервера, а событие
+ * возникает на узле, обработавшем запрос. Поэтому событие отправляется и другим узлам через
+ * {@link InvalidationBus} (при фиксации транзакции) и раздаётся там их подписчикам. После
+ * восстановления связи с шиной подписчики узла отключаются: пропущенные события не восстановить,
+ * и клиенты перечитывают состояние при переподключении.
+ */
+@Slf4j
+@Component
+public class BookingEventHub implements ClusterMessageListener {
+
+    static final String TOPIC = "booking";
+
+    private final UserRepository userRepository;
+    private final InvalidationBus bus;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long heartbeatMillis;
+    private final long timeoutMillis;
+    private final int maxSubscribersPerUser;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSubscribers = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Counter evictedCounter;
+
+    public BookingEventHub(UserRepository userRepository,
+                           InvalidationBus bus,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.booking.stream.buffer-size:64}") int bufferSize,
+                           @Value("${shareit.booking.stream.heartbeat-ms:15000}") long heartbeatMillis,
+                           @Value("${shareit.booking.stream.timeout-ms:540000}") long timeoutMillis,
+                           @Value("${shareit.booking.stream.max-subscribers-per-user:5}") int maxSubscribersPerUser) {
+        this.userRepository = userRepository;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.heartbeatMillis = heartbeatMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribersPerUser = maxSubscribersPerUser;
+
+        Gauge.builder("shareit.booking.stream.subscribers", activeSubscribers, AtomicInteger::get)
+                .description("Количество подписчиков потока событий бронирований")
+                .register(meterRegistry);
+        this.evictedCounter = Counter.builder("shareit.booking.stream.evicted")
+                .description("Количество подписчиков, отключённых из-за переполнения очереди")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписывает пользователя на события его бронирований и бронирований его вещей.
+     * Если подписок у пользователя уже слишком много, самая старая закрывается.
+     *
+     * @param userId ID пользователя.
+     * @return Поток SSE.
+     * @throws NotFoundException если пользователь не найден.
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь ID " + userId + " не найден.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(sequence.incrementAndGet(), userId, emitter,
+                new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        Subscriber[] oldest = new Subscriber[1];
+        subscribers.compute(userId, (id, userSubscribers) -> {
+            Set<Subscriber> set = userSubscribers != null ? userSubscribers : ConcurrentHashMap.newKeySet();
+            if (set.size() >= maxSubscribersPerUser) {
+                oldest[0] = set.stream().min(Comparator.comparingLong(Subscriber::id)).orElse(null);
+            }
+            set.add(subscriber);
+            return set;
+        });
+        activeSubscribers.incrementAndGet();
+        if (oldest[0] != null) {
+            log.debug("Закрыта самая старая подписка пользователя (ID {}) из-за превышения лимита.", userId);
+            oldest[0].close();
+        }
+
+        Thread.ofVirtual().name("booking-stream-" + userId + "-" + subscriber.id()).start(subscriber::run);
+        log.debug("Пользователь (ID {}) подписался на события бронирований.", userId);
+        return emitter;
+    }
+
+    /**
+     * Передаёт событие арендатору и владельцу вещи после фиксации транзакции, в которой оно возникло.
+     *
+     * @param event Событие бронирования.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingEvent(BookingEvent event) {
+        deliverToParticipants(event);
+    }
+
+    /**
+     * Отправляет событие другим узлам в транзакции, в которой оно возникло: оповещение
+     * доставляется при фиксации и не доставляется при откате.
+     *
+     * @param event Событие бронирования.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publishToCluster(BookingEvent event) {
+        try {
+            bus.publish(TOPIC, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие бронирования", e);
+        }
+    }
+
+    @Override
+    public String topic() {
+        return TOPIC;
+    }
+
+    /**
+     * Передаёт событие, возникшее на другом узле, подписчикам этого узла.
+     */
+    @Override
+    public void onClusterMessage(String payload) {
+        BookingEvent event;
+        try {
+            event = objectMapper.readValue(payload, BookingEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Некорректное событие бронирования: " + e.getOriginalMessage(), e);
+        }
+        deliverToParticipants(event);
+    }
+
+    @Override
+    public void onResync() {
+        closeAll();
+    }
+
+    /**
+     * Возвращает количество подписок пользователя.
+     */
+    int subscriberCount(Long userId) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        return userSubscribers == null ? 0 : userSubscribers.size();
+    }
+
+    @PreDestroy
+    void closeAll() {
+        subscribers.values().forEach(set -> set.forEach(Subscriber::close));
+    }
+
+    private void deliverToParticipants(BookingEvent event) {
+        deliver(event.bookerId(), event);
+        deliver(event.ownerId(), event);
+    }
+
+    private void deliver(Long userId, BookingEvent event) {
+        Set<Subscriber> userSubscribers = subscribers.get(userId);
+        if (userSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : userSubscribers) {
+            if (!subscriber.queue().offer(event)) {
+                evictedCounter.increment();
+                log.warn("event=sse_evicted userId={} buffer={}", userId, bufferSize);
+                subscriber.close();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.userId(), (id, set) -> {
+            if (set.remove(subscriber)) {
+                activeSubscribers.decrementAndGet();
+            }
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Подписка одного соединения: очередь событий и поток отправки.
+     */
+    private final class Subscriber {
+
+        private final long id;
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<BookingEvent> queue;
+        private volatile Thread sender;
+        private volatile boolean closed;
+
+        private Subscriber(long id, Long userId, SseEmitter emitter, BlockingQueue<BookingEvent> queue) {
+            this.id = id;
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        long id() {
+            return id;
+        }
+
+        Long userId() {
+            return userId;
+        }
+
+        BlockingQueue<BookingEvent> queue() {
+            return queue;
+        }
+
+        /**
+         * Отправляет события клиенту; при отсутствии событий периодически шлёт комментарий,
+         * чтобы обнаружить закрытое соединение и не дать прокси разорвать его по простою.
+         */
+        void run() {
+            sender = Thread.currentThread();
+            try {
+                emitter.send(SseEmitter.event().comment("subscribed"));
+                while (!closed) {
+                    BookingEvent event = queue.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .name(event.type().name())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Поток событий пользователя (ID {}) закрыт: {}", userId, e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            remove(this);
+            Thread thread = sender;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                log.debug("Поток событий пользователя (ID {}) уже завершён.", userId);
+            }
+        }
+    }
+}
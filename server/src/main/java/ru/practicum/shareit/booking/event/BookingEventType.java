@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking.event;
+
+/**
+ * Тип изменения бронирования, передаваемого подписчикам потока событий.
+ */
+public enum BookingEventType {
+    CREATED,
+    APPROVED,
+    REJECTED,
+    CANCELED
+}
@@ -37,7 +37,46 @@ public class Booking {
     @JoinColumn(name = "booker_id", nullable = false)
     private User booker;
 
+    /**
+     * Владелец вещи на момент создания бронирования (копия items.owner_id).
+     * Позволяет выбирать бронирования владельца по индексу без соединения с таблицей вещей.
+     * Владелец вещи не меняется, поэтому значение задаётся один раз при сохранении.
+     */
+    @Column(name = "owner_id", nullable = false, updatable = false)
+    private Long ownerId;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private BookingStatus status;
+
+    /**
+     * Признак того, что завершение аренды учтено в показателях вещи.
+     */
+    @Column(name = "rental_completed", nullable = false)
+    private boolean rentalCompleted;
+
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Защищает от одновременного подтверждения/отклонения одного и того же бронирования.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Создаёт новое (ещё не сохранённое) бронирование. Версию проставляет Hibernate при сохранении.
+     */
+    public Booking(Long id, LocalDateTime start, LocalDateTime end, Item item, User booker, BookingStatus status) {
+        this(id, start, end, item, booker, null, status, false, null);
+    }
+
+    /**
+     * Копирует владельца вещи в бронирование перед первым сохранением.
+     */
+    @PrePersist
+    void fillOwnerId() {
+        if (ownerId == null) {
+            ownerId = item.getOwner().getId();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * Проекция для разбора неудачного подтверждения бронирования:
+ * текущий статус бронирования и владелец бронируемой вещи.
+ */
+public interface BookingApprovalState {
+    BookingStatus getStatus();
+
+    Long getOwnerId();
+}
@@ -1,13 +1,22 @@
 package ru.practicum.shareit.booking.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +24,31 @@ import java.util.Optional;
  * Репозиторий для бронирований.
  */
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    /**
+     * Текущий момент в счётчиках. Явное приведение нужно H2: без него Hibernate, заменяя FILTER
+     * на CASE, приводит параметр к timestamp без точности и получает некорректный SQL.
+     */
+    String SUMMARY_NOW = "cast(:currentTime as LocalDateTime)";
+
+    /**
+     * Счётчики бронирований по состояниям; условия совпадают с условиями выборок списков.
+     */
+    String SUMMARY_SELECT = "SELECT new ru.practicum.shareit.booking.dto.BookingSummaryDto(" +
+            "count(b), " +
+            "count(b) FILTER (WHERE b.start < " + SUMMARY_NOW + " AND b.end > " + SUMMARY_NOW + "), " +
+            "count(b) FILTER (WHERE b.end < " + SUMMARY_NOW + "), " +
+            "count(b) FILTER (WHERE b.start > " + SUMMARY_NOW + " AND b.end > " + SUMMARY_NOW + "), " +
+            "count(b) FILTER (WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING), " +
+            "count(b) FILTER (WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.REJECTED), " +
+            "count(b) FILTER (WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.CANCELED)) " +
+            "FROM Booking b ";
+
+    /**
+     * Значение подсказки {@code jakarta.persistence.lock.timeout}, при котором Hibernate
+     * дополняет блокировку строк условием SKIP LOCKED.
+     */
+    String LOCK_TIMEOUT_SKIP_LOCKED = "-2";
+
     // Методы для арендатора
     List<Booking> findAllByBookerIdOrderByStartDesc(
             Long bookerId,
@@ -27,16 +61,31 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             Pageable pageable
     );
 
-    List<Booking> findAllByBookerIdAndStartBeforeAndEndAfterOrderByStartDesc(
-            Long bookerId,
-            LocalDateTime currentTime,
-            LocalDateTime currentTimeAgain,
+    @Query("SELECT b " +
+            "FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.start < :currentTime " +
+            "AND b.end > :currentTime " +
+            "ORDER BY b.start DESC")
+    List<Booking> findAllCurrentByBookerId(
+            @Param("bookerId") Long bookerId,
+            @Param("currentTime") LocalDateTime currentTime,
             Pageable pageable
     );
 
-    List<Booking> findAllByBookerIdAndStartAfterOrderByStartDesc(
-            Long bookerId,
-            LocalDateTime currentTime,
+    /**
+     * Будущие бронирования арендатора. Условие на дату окончания следует из даты начала,
+     * но задано явно, чтобы в PostgreSQL отсекались архивная и прошедшие секции таблицы.
+     */
+    @Query("SELECT b " +
+            "FROM Booking b " +
+            "WHERE b.booker.id = :bookerId " +
+            "AND b.start > :currentTime " +
+            "AND b.end > :currentTime " +
+            "ORDER BY b.start DESC")
+    List<Booking> findAllFutureByBookerId(
+            @Param("bookerId") Long bookerId,
+            @Param("currentTime") LocalDateTime currentTime,
             Pageable pageable
     );
 
@@ -46,12 +95,12 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             Pageable pageable
     );
 
-    // Методы для владельца
+    // Методы для владельца: выборка по копии owner_id в бронировании идёт по индексу
+    // (owner_id, start_date DESC, id DESC) в порядке сортировки, без соединения с вещами
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN b.item i " +
-            "WHERE i.owner.id = :ownerId " +
-            "ORDER BY b.start DESC")
+            "WHERE b.ownerId = :ownerId " +
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllByOwnerId(
             @Param("ownerId") Long ownerId,
             Pageable pageable
@@ -59,10 +108,9 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN b.item i " +
-            "WHERE i.owner.id = :ownerId " +
+            "WHERE b.ownerId = :ownerId " +
             "AND b.status = :status " +
-            "ORDER BY b.start DESC")
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllByOwnerIdAndStatus(
             @Param("ownerId") Long ownerId,
             @Param("status") BookingStatus status,
@@ -71,11 +119,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN b.item i " +
-            "WHERE i.owner.id = :ownerId " +
+            "WHERE b.ownerId = :ownerId " +
             "AND b.start < :currentTime " +
             "AND b.end > :currentTime " +
-            "ORDER BY b.start DESC")
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllCurrentByOwnerId(
             @Param("ownerId") Long ownerId,
             @Param("currentTime") LocalDateTime currentTime,
@@ -84,10 +131,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN b.item i " +
-            "WHERE i.owner.id = :ownerId " +
+            "WHERE b.ownerId = :ownerId " +
             "AND b.start > :currentTime " +
-            "ORDER BY b.start DESC")
+            "AND b.end > :currentTime " +
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllFutureByOwnerId(
             @Param("ownerId") Long ownerId,
             @Param("currentTime") LocalDateTime currentTime,
@@ -96,28 +143,258 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     @Query("SELECT b " +
             "FROM Booking b " +
-            "JOIN b.item i " +
-            "WHERE i.owner.id = :ownerId " +
+            "WHERE b.ownerId = :ownerId " +
             "AND b.end < :currentTime " +
-            "ORDER BY b.start DESC")
+            "ORDER BY b.start DESC, b.id DESC")
     List<Booking> findAllPastByOwnerId(
             @Param("ownerId") Long ownerId,
             @Param("currentTime") LocalDateTime currentTime,
             Pageable pageable
     );
 
+    /**
+     * Считает бронирования арендатора по всем состояниям одним проходом (агрегаты с FILTER).
+     *
+     * @param bookerId    ID арендатора.
+     * @param currentTime Текущий момент для состояний CURRENT, PAST и FUTURE.
+     * @return Счётчики по состояниям.
+     */
+    @Query(SUMMARY_SELECT + "WHERE b.booker.id = :userId")
+    BookingSummaryDto countByBookerId(@Param("userId") Long bookerId,
+                                      @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Считает бронирования вещей владельца по всем состояниям одним проходом по индексу owner_id.
+     *
+     * @param ownerId     ID владельца вещей.
+     * @param currentTime Текущий момент для состояний CURRENT, PAST и FUTURE.
+     * @return Счётчики по состояниям.
+     */
+    @Query(SUMMARY_SELECT + "WHERE b.ownerId = :userId")
+    BookingSummaryDto countByOwnerId(@Param("userId") Long ownerId,
+                                     @Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Атомарно меняет статус бронирования, если оно ещё ожидает решения и вещь принадлежит владельцу.
+     * Проверка статуса и владельца выполняется тем же UPDATE, поэтому параллельные решения
+     * по одному бронированию не могут пройти оба.
+     *
+     * @param bookingId      ID бронирования.
+     * @param ownerId        ID владельца вещи.
+     * @param expectedStatus Статус, из которого разрешён переход.
+     * @param newStatus      Новый статус.
+     * @return Количество изменённых строк (0 или 1).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.status = :newStatus, b.version = b.version + 1 " +
+            "WHERE b.id = :bookingId " +
+            "AND b.status = :expectedStatus " +
+            "AND b.ownerId = :ownerId")
+    int updateStatusIfOwnedAndInStatus(
+            @Param("bookingId") Long bookingId,
+            @Param("ownerId") Long ownerId,
+            @Param("expectedStatus") BookingStatus expectedStatus,
+            @Param("newStatus") BookingStatus newStatus
+    );
+
+    /**
+     * Загружает бронирования для пакетного подтверждения и блокирует их до конца транзакции,
+     * чтобы статус и владелец, проверенные по результату, не изменились до UPDATE.
+     *
+     * @param bookingIds ID бронирований.
+     * @return Найденные бронирования.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id IN :bookingIds")
+    List<Booking> findAllForDecisionByIdIn(@Param("bookingIds") List<Long> bookingIds);
+
+    /**
+     * Подтверждённые бронирования указанных вещей, пересекающиеся с периодом [from, to).
+     *
+     * @param itemIds ID вещей.
+     * @param from    Начало периода.
+     * @param to      Окончание периода.
+     * @return Список бронирований.
+     */
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED " +
+            "AND b.start < :to " +
+            "AND b.end > :from")
+    List<Booking> findApprovedOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                          @Param("from") LocalDateTime from,
+                                          @Param("to") LocalDateTime to);
+
+    /**
+     * Подтверждает и отклоняет бронирования владельца одним UPDATE.
+     * Изменяются только бронирования, ещё ожидающие решения.
+     *
+     * @param ownerId     ID владельца вещей.
+     * @param bookingIds  ID всех изменяемых бронирований.
+     * @param approvedIds ID подтверждаемых бронирований (остальные отклоняются).
+     * @return Количество изменённых строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.status = CASE WHEN b.id IN :approvedIds " +
+            "THEN ru.practicum.shareit.booking.model.BookingStatus.APPROVED " +
+            "ELSE ru.practicum.shareit.booking.model.BookingStatus.REJECTED END, " +
+            "b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.ownerId = :ownerId " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING")
+    int applyDecisions(@Param("ownerId") Long ownerId,
+                       @Param("bookingIds") List<Long> bookingIds,
+                       @Param("approvedIds") List<Long> approvedIds);
+
+    /**
+     * Загружает бронирования вместе с вещами и арендаторами одним запросом.
+     *
+     * @param bookingIds ID бронирований.
+     * @return Список бронирований.
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("SELECT b FROM Booking b WHERE b.id IN :bookingIds")
+    List<Booking> findAllWithItemAndBookerByIdIn(@Param("bookingIds") List<Long> bookingIds);
+
+    /**
+     * Возвращает статус бронирования и владельца вещи без загрузки связанных сущностей.
+     *
+     * @param bookingId ID бронирования.
+     * @return Проекция, если бронирование существует.
+     */
+    @Query("SELECT b.status AS status, b.ownerId AS ownerId " +
+            "FROM Booking b " +
+            "WHERE b.id = :bookingId")
+    Optional<BookingApprovalState> findApprovalStateById(@Param("bookingId") Long bookingId);
+
+    /**
+     * Загружает бронирование вместе с вещью и арендатором одним запросом.
+     *
+     * @param bookingId ID бронирования.
+     * @return Бронирование, если найдено.
+     */
+    @EntityGraph(attributePaths = {"item", "booker"})
+    @Query("SELECT b FROM Booking b WHERE b.id = :bookingId")
+    Optional<Booking> findWithItemAndBookerById(@Param("bookingId") Long bookingId);
+
+    /**
+     * Возвращает порцию одобренных бронирований, аренда по которым закончилась, но ещё не учтена
+     * в показателях вещей. Строки блокируются до конца транзакции, поэтому параллельные обработчики
+     * не учитывают одно бронирование дважды.
+     *
+     * @param currentTime Текущий момент.
+     * @param pageable    Размер порции.
+     * @return Список бронирований.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.APPROVED " +
+            "AND b.rentalCompleted = false " +
+            "AND b.end < :currentTime " +
+            "ORDER BY b.id")
+    List<Booking> findCompletedRentalsForUpdate(@Param("currentTime") LocalDateTime currentTime, Pageable pageable);
+
+    /**
+     * Порция бронирований, не подтверждённых до даты начала, с блокировкой строк.
+     * Строки, заблокированные другим узлом или владельцем, пропускаются (FOR UPDATE SKIP LOCKED),
+     * поэтому задача на нескольких узлах разбирает разные порции и не ждёт чужих транзакций.
+     *
+     * @param currentTime Текущий момент.
+     * @param pageable    Размер порции.
+     * @return Список бронирований.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = LOCK_TIMEOUT_SKIP_LOCKED))
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING " +
+            "AND b.start < :currentTime " +
+            "ORDER BY b.id")
+    List<Booking> findExpiredWaitingForUpdate(@Param("currentTime") LocalDateTime currentTime, Pageable pageable);
+
+    /**
+     * Отменяет бронирования, всё ещё ожидающие подтверждения.
+     *
+     * @param bookingIds ID бронирований.
+     * @return Количество изменённых строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.status = ru.practicum.shareit.booking.model.BookingStatus.CANCELED, b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds " +
+            "AND b.status = ru.practicum.shareit.booking.model.BookingStatus.WAITING")
+    int cancelWaiting(@Param("bookingIds") List<Long> bookingIds);
+
+    /**
+     * Отмечает завершение аренды как учтённое в показателях вещей.
+     *
+     * @param bookingIds ID бронирований.
+     * @return Количество изменённых строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b " +
+            "SET b.rentalCompleted = true, b.version = b.version + 1 " +
+            "WHERE b.id IN :bookingIds AND b.rentalCompleted = false")
+    int markRentalCompleted(@Param("bookingIds") List<Long> bookingIds);
+
     Optional<Booking> findFirstByItemIdAndStatusAndStartBeforeOrderByEndDesc(
             Long itemId,
             BookingStatus status,
             LocalDateTime currentTime
     );
 
-    Optional<Booking> findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(
-            Long itemId,
-            BookingStatus status,
-            LocalDateTime currentTime
+    /**
+     * Следующее бронирование вещи. Условие на дату окончания задано явно для отсечения секций.
+     */
+    @Query("SELECT b " +
+            "FROM Booking b " +
+            "WHERE b.item.id = :itemId " +
+            "AND b.status = :status " +
+            "AND b.start > :currentTime " +
+            "AND b.end > :currentTime " +
+            "ORDER BY b.start ASC " +
+            "LIMIT 1")
+    Optional<Booking> findNextByItemId(
+            @Param("itemId") Long itemId,
+            @Param("status") BookingStatus status,
+            @Param("currentTime") LocalDateTime currentTime
     );
 
+    /**
+     * Последние начавшиеся бронирования каждой из вещей одним запросом (список вещей владельца).
+     * Если у вещи несколько бронирований с одинаковой датой окончания, возвращаются все они.
+     *
+     * @param itemIds ID вещей.
+     * @param status  Статус бронирований.
+     * @param now     Текущий момент.
+     * @return Бронирования вещей.
+     */
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status = :status AND b.start < :now " +
+            "AND b.end = (SELECT max(l.end) FROM Booking l " +
+            "WHERE l.item.id = b.item.id AND l.status = :status AND l.start < :now)")
+    List<Booking> findLastByItemIdIn(@Param("itemIds") Collection<Long> itemIds,
+                                     @Param("status") BookingStatus status,
+                                     @Param("now") LocalDateTime now);
+
+    /**
+     * Ближайшие будущие бронирования каждой из вещей одним запросом (список вещей владельца).
+     * Условие на дату окончания задано явно для отсечения секций.
+     *
+     * @param itemIds ID вещей.
+     * @param status  Статус бронирований.
+     * @param now     Текущий момент.
+     * @return Бронирования вещей.
+     */
+    @Query("SELECT b FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status = :status AND b.start > :now AND b.end > :now " +
+            "AND b.start = (SELECT min(n.start) FROM Booking n " +
+            "WHERE n.item.id = b.item.id AND n.status = :status AND n.start > :now AND n.end > :now)")
+    List<Booking> findNextByItemIdIn(@Param("itemIds") Collection<Long> itemIds,
+                                     @Param("status") BookingStatus status,
+                                     @Param("now") LocalDateTime now);
+
     List<Booking> findAllByItemIdAndBookerIdAndStatusAndEndBefore(
             Long itemId,
             Long bookerId,
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.cache;
+
+/**
+ * Локальный кэш узла, получающий оповещения об изменениях от {@link InvalidationBus}.
+ * Оповещения приходят и об изменениях, сделанных на этом узле, и об изменениях на других узлах.
+ */
+public interface CacheInvalidationListener {
+
+    /**
+     * Забывает данные, зависящие от изменённой сущности.
+     *
+     * @param event Изменение.
+     */
+    void onEntityChanged(EntityChangedEvent event);
+
+    /**
+     * Забывает все данные. Вызывается после восстановления связи с базой данных,
+     * когда часть оповещений могла быть потеряна.
+     */
+    void invalidateAll();
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.cache;
+
+/**
+ * Получатель сообщений, которые другие узлы сервера рассылают через {@link InvalidationBus}:
+ * события для подписчиков потоков и лент, подключённых к этому узлу.
+ */
+public interface ClusterMessageListener {
+
+    /**
+     * Тема сообщений, которые принимает получатель.
+     */
+    String topic();
+
+    /**
+     * Обрабатывает сообщение другого узла. Вызывается в потоке шины.
+     *
+     * @param payload Содержимое сообщения.
+     */
+    void onClusterMessage(String payload);
+
+    /**
+     * Вызывается после (пере)подключения к шине, когда часть сообщений могла быть потеряна.
+     */
+    default void onResync() {
+    }
+}
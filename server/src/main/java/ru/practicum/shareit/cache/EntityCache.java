@@ -0,0 +1,72 @@
+package ru.practicum.shareit.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш представлений сущностей одного типа по идентификатору, сбрасываемый оповещениями
+ * {@link InvalidationBus}.
+ * <p>
+ * Значение, загруженное до сброса, в кэш не попадает: перед загрузкой запоминается номер поколения,
+ * который увеличивается при каждом сбросе, поэтому чтение, начатое до фиксации изменения,
+ * не может вернуть устаревшие данные в кэш. При достижении предельного размера кэш очищается целиком.
+ *
+ * @param <V> Тип кэшируемого значения.
+ */
+public class EntityCache<V> implements CacheInvalidationListener {
+
+    private final EntityType type;
+    private final int maxSize;
+    private final Map<Long, V> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public EntityCache(EntityType type, int maxSize) {
+        this.type = type;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает и запоминает его.
+     * Исключение загрузчика передаётся вызывающему, в кэш ничего не записывается.
+     *
+     * @param id     Идентификатор сущности.
+     * @param loader Загрузка значения из базы данных.
+     * @return Значение.
+     */
+    public V get(Long id, Supplier<V> loader) {
+        V cached = entries.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = generation.get();
+        V value = loader.get();
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+        entries.put(id, value);
+        if (generation.get() != loadedAt) {
+            entries.remove(id, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.type() == type) {
+            generation.incrementAndGet();
+            entries.remove(event.id());
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.cache;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.Set;
+
+/**
+ * Изменение сущности, после которого кэши всех узлов должны забыть зависящие от неё данные.
+ * Публикуется сервисами внутри транзакции и рассылается через {@link InvalidationBus}.
+ *
+ * @param type    Тип сущности.
+ * @param id      Идентификатор сущности.
+ * @param userIds Пользователи, чьи списки и счётчики зависят от сущности
+ *                (владелец вещи; арендатор и владелец вещи для бронирования).
+ */
+public record EntityChangedEvent(
+        EntityType type,
+        Long id,
+        Set<Long> userIds
+) {
+
+    /** Изменение пользователя. */
+    public static EntityChangedEvent user(Long userId) {
+        return new EntityChangedEvent(EntityType.USER, userId, Set.of(userId));
+    }
+
+    /** Изменение вещи или её комментариев. */
+    public static EntityChangedEvent item(Item item) {
+        return new EntityChangedEvent(EntityType.ITEM, item.getId(), Set.of(item.getOwner().getId()));
+    }
+
+    /** Изменение бронирования. */
+    public static EntityChangedEvent booking(Booking booking) {
+        return new EntityChangedEvent(EntityType.BOOKING, booking.getId(),
+                Set.of(booking.getBooker().getId(), booking.getOwnerId()));
+    }
+}
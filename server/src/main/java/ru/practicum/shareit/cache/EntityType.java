@@ -0,0 +1,10 @@
+package ru.practicum.shareit.cache;
+
+/**
+ * Тип сущности, об изменении которой оповещаются кэши всех узлов.
+ */
+public enum EntityType {
+    USER,
+    ITEM,
+    BOOKING
+}
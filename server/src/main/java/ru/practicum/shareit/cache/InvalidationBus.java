@@ -0,0 +1,358 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Шина инвалидации локальных кэшей всех узлов сервера через LISTEN/NOTIFY PostgreSQL.
+ * <p>
+ * Изменение сущности ({@link EntityChangedEvent}) отправляется в канал {@value #CHANNEL} в той же
+ * транзакции, что и само изменение, поэтому другие узлы получают оповещение только после её фиксации
+ * и никогда — об откаченном изменении. На своём узле кэши сбрасываются сразу после фиксации.
+ * <p>
+ * Оповещения принимает отдельное соединение вне пула. Пока соединение потеряно, оповещения
+ * других узлов не доходят, поэтому после каждого (пере)подключения все кэши узла очищаются целиком.
+ * На других СУБД (H2 в тестах) и при выключенной шине кэши сбрасываются только локально.
+ * <p>
+ * По тому же соединению в канал {@value #MESSAGE_CHANNEL} передаются сообщения
+ * {@link ClusterMessageListener}: события, которые должны дойти до подписчиков потоков на всех узлах
+ * (событие возникает на узле, обработавшем запрос, а подписчик может быть подключён к другому).
+ * <p>
+ * Ошибка одного получателя не мешает остальным и не останавливает приём оповещений: кэш, не сумевший
+ * обработать изменение, очищается целиком, а непредвиденная ошибка в потоке шины приводит
+ * к переподключению с полной очисткой кэшей.
+ */
+@Slf4j
+@Component
+public class InvalidationBus implements SmartInitializingSingleton {
+
+    static final String CHANNEL = "shareit_invalidation";
+    static final String MESSAGE_CHANNEL = "shareit_messages";
+    /** Наибольший размер оповещения PostgreSQL (8000 байт) за вычетом заголовка сообщения. */
+    private static final int MAX_MESSAGE_BYTES = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ObjectProvider<CacheInvalidationListener> listeners;
+    private final ObjectProvider<ClusterMessageListener> messageListeners;
+    private final boolean clustered;
+    private final long pollMillis;
+    private final long reconnectDelayMillis;
+    private final long maxReconnectDelayMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+    private final Counter resyncCounter;
+
+    private volatile boolean running;
+    private volatile Thread listenerThread;
+    private volatile Connection listenerConnection;
+
+    public InvalidationBus(DataSource dataSource,
+                           DataSourceProperties dataSourceProperties,
+                           ObjectProvider<CacheInvalidationListener> listeners,
+                           ObjectProvider<ClusterMessageListener> messageListeners,
+                           MeterRegistry meterRegistry,
+                           @Value("${shareit.cache.invalidation.enabled:true}") boolean enabled,
+                           @Value("${shareit.cache.invalidation.poll-ms:10000}") long pollMillis,
+                           @Value("${shareit.cache.invalidation.reconnect-delay-ms:1000}") long reconnectDelayMillis,
+                           @Value("${shareit.cache.invalidation.max-reconnect-delay-ms:30000}") long maxReconnectDelayMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.dataSourceProperties = dataSourceProperties;
+        this.listeners = listeners;
+        this.messageListeners = messageListeners;
+        this.clustered = enabled && dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+        this.pollMillis = pollMillis;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+        this.maxReconnectDelayMillis = maxReconnectDelayMillis;
+
+        this.sentCounter = Counter.builder("shareit.cache.invalidation.sent")
+                .description("Количество оповещений об изменениях, отправленных другим узлам")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("shareit.cache.invalidation.received")
+                .description("Количество оповещений об изменениях, полученных от других узлов")
+                .register(meterRegistry);
+        this.resyncCounter = Counter.builder("shareit.cache.invalidation.resync")
+                .description("Количество полных очисток кэшей после (пере)подключения к шине")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает приём оповещений после создания всех кэшей.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!clustered) {
+            log.info("Шина инвалидации кэшей выключена или не поддерживается СУБД: кэши сбрасываются только локально.");
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .daemon()
+                .name("cache-invalidation-listener")
+                .start(this::listen);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Connection connection = listenerConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.debug("Ошибка при закрытии соединения шины инвалидации: {}", e.getMessage());
+            }
+        }
+        Thread thread = listenerThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Отправляет оповещение другим узлам в транзакции изменения: NOTIFY доставляется при фиксации.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void notifyCluster(EntityChangedEvent event) {
+        if (!clustered) {
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, encode(nodeId, event));
+        sentCounter.increment();
+    }
+
+    /**
+     * Отправляет сообщение получателям темы на других узлах. Внутри транзакции сообщение
+     * доставляется при её фиксации, вне транзакции — сразу.
+     *
+     * @param topic   Тема ({@link ClusterMessageListener#topic()}).
+     * @param payload Содержимое сообщения.
+     */
+    public void publish(String topic, String payload) {
+        if (!clustered) {
+            return;
+        }
+        String message = nodeId + ":" + topic + ":" + payload;
+        if (message.getBytes(StandardCharsets.UTF_8).length > MAX_MESSAGE_BYTES) {
+            log.warn("Сообщение темы {} не отправлено другим узлам: превышен размер оповещения.", topic);
+            return;
+        }
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", MESSAGE_CHANNEL, message);
+    }
+
+    /**
+     * Сбрасывает кэши своего узла после фиксации изменения.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void applyLocally(EntityChangedEvent event) {
+        dispatch(event);
+    }
+
+    boolean isClustered() {
+        return clustered;
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    private void listen() {
+        long delay = reconnectDelayMillis;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + MESSAGE_CHANNEL);
+                }
+                resync();
+                delay = reconnectDelayMillis;
+                receive(connection);
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                if (e instanceof SQLException) {
+                    log.warn("Соединение шины инвалидации кэшей потеряно: {}. Повтор через {} мс.", e.getMessage(), delay);
+                } else {
+                    log.error("Ошибка в потоке шины инвалидации кэшей. Переподключение через {} мс.", delay, e);
+                }
+                invalidateAll();
+                if (!sleep(delay)) {
+                    return;
+                }
+                delay = Math.min(delay * 2, maxReconnectDelayMillis);
+            } finally {
+                listenerConnection = null;
+            }
+        }
+    }
+
+    /**
+     * Принимает оповещения, пока соединение живо. Если за период ожидания оповещений не было,
+     * соединение проверяется запросом: иначе обрыв без закрытия сокета оставался бы незамеченным.
+     */
+    private void receive(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) pollMillis);
+            if (notifications == null || notifications.length == 0) {
+                if (!connection.isValid((int) Math.max(1, pollMillis / 1000))) {
+                    throw new SQLException("соединение не отвечает");
+                }
+                continue;
+            }
+            for (PGNotification notification : notifications) {
+                if (MESSAGE_CHANNEL.equals(notification.getName())) {
+                    deliverMessage(notification.getParameter());
+                    continue;
+                }
+                decode(notification.getParameter())
+                        .filter(remote -> !remote.nodeId().equals(nodeId))
+                        .ifPresent(remote -> {
+                            receivedCounter.increment();
+                            dispatch(remote.event());
+                        });
+            }
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        Properties properties = new Properties();
+        Optional.ofNullable(dataSourceProperties.determineUsername()).ifPresent(user -> properties.setProperty("user", user));
+        Optional.ofNullable(dataSourceProperties.determinePassword()).ifPresent(password -> properties.setProperty("password", password));
+        properties.setProperty("ApplicationName", "shareit-invalidation-" + nodeId);
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void resync() {
+        resyncCounter.increment();
+        invalidateAll();
+        messageListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onResync();
+            } catch (RuntimeException e) {
+                log.warn("Получатель темы {} не обработал переподключение к шине: {}", listener.topic(), e.getMessage());
+            }
+        });
+        log.info("Шина инвалидации кэшей подключена (узел {}), кэши очищены.", nodeId);
+    }
+
+    /**
+     * Передаёт изменение всем кэшам узла. Кэш, не сумевший его обработать, очищается целиком,
+     * чтобы не отдавать устаревшие данные.
+     */
+    private void dispatch(EntityChangedEvent event) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onEntityChanged(event);
+            } catch (RuntimeException e) {
+                log.warn("Кэш {} не обработал изменение {} {}: {}. Кэш очищается целиком.",
+                        listener.getClass().getSimpleName(), event.type(), event.id(), e.getMessage());
+                invalidateAll(listener);
+            }
+        });
+    }
+
+    /**
+     * Передаёт сообщение другого узла получателям его темы. Формат: {@code узел:тема:содержимое}.
+     */
+    private void deliverMessage(String message) {
+        String[] parts = message.split(":", 3);
+        if (parts.length != 3) {
+            log.warn("Некорректное сообщение шины: {}", message);
+            return;
+        }
+        if (parts[0].equals(nodeId)) {
+            return;
+        }
+        messageListeners.orderedStream()
+                .filter(listener -> listener.topic().equals(parts[1]))
+                .forEach(listener -> {
+                    try {
+                        listener.onClusterMessage(parts[2]);
+                    } catch (RuntimeException e) {
+                        log.warn("Сообщение темы {} от другого узла не обработано: {}", parts[1], e.getMessage());
+                    }
+                });
+    }
+
+    private void invalidateAll() {
+        listeners.orderedStream().forEach(InvalidationBus::invalidateAll);
+    }
+
+    private static void invalidateAll(CacheInvalidationListener listener) {
+        try {
+            listener.invalidateAll();
+        } catch (RuntimeException e) {
+            log.warn("Кэш {} не очищен: {}", listener.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Формат оповещения: {@code узел:ТИП:id:пользователь,пользователь}.
+     */
+    static String encode(String nodeId, EntityChangedEvent event) {
+        return nodeId + ":" + event.type() + ":" + event.id() + ":"
+                + event.userIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    static Optional<RemoteChange> decode(String payload) {
+        String[] parts = payload.split(":", -1);
+        if (parts.length != 4) {
+            log.warn("Некорректное оповещение шины инвалидации: {}", payload);
+            return Optional.empty();
+        }
+        try {
+            Set<Long> userIds = parts[3].isEmpty()
+                    ? Set.of()
+                    : Arrays.stream(parts[3].split(",")).map(Long::valueOf).collect(Collectors.toUnmodifiableSet());
+            EntityChangedEvent event = new EntityChangedEvent(EntityType.valueOf(parts[1]), Long.valueOf(parts[2]), userIds);
+            return Optional.of(new RemoteChange(parts[0], event));
+        } catch (IllegalArgumentException e) {
+            log.warn("Некорректное оповещение шины инвалидации: {}", payload);
+            return Optional.empty();
+        }
+    }
+
+    record RemoteChange(String nodeId, EntityChangedEvent event) {
+    }
+}
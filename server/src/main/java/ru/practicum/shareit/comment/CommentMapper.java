@@ -4,6 +4,8 @@ import ru.practicum.shareit.comment.dto.CommentCreateDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -43,6 +45,38 @@ public class CommentMapper {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Преобразует строку результата {@code CommentRepository.findLatestByItemIds} в DTO {@link CommentDto}.
+     *
+     * @param row Строка: id, item_id, text, имя автора, created.
+     * @return DTO комментария.
+     */
+    public static CommentDto toDto(Object[] row) {
+        return new CommentDto(
+                ((Number) row[0]).longValue(),
+                (String) row[2],
+                (String) row[3],
+                toLocalDateTime(row[4])
+        );
+    }
+
+    /**
+     * Возвращает ID вещи из строки результата {@code CommentRepository.findLatestByItemIds}.
+     *
+     * @param row Строка результата.
+     * @return ID вещи.
+     */
+    public static Long itemIdOf(Object[] row) {
+        return ((Number) row[1]).longValue();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
     /**
      * Преобразует DTO создания {@link CommentCreateDto} в сущность {@link Comment}.
      * ID, Item, Author и Created устанавливаются в Service.
@@ -1,6 +1,10 @@
 package ru.practicum.shareit.comment.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 
 
@@ -12,16 +16,33 @@ import java.util.List;
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     /**
-     * Находит все комментарии для указанной вещи.
+     * Возвращает страницу комментариев вещи, начиная с самых новых.
+     * Имя автора выбирается соединением, без загрузки сущностей автора по одной.
      * @param itemId ID вещи.
-     * @return Список комментариев.
+     * @param pageable Параметры пагинации.
+     * @return Список DTO комментариев.
      */
-    List<Comment> findAllByItemId(Long itemId);
+    @Query("SELECT new ru.practicum.shareit.comment.dto.CommentDto(c.id, c.text, a.name, c.created) " +
+            "FROM Comment c " +
+            "JOIN c.author a " +
+            "WHERE c.item.id = :itemId " +
+            "ORDER BY c.created DESC, c.id DESC")
+    List<CommentDto> findDtosByItemId(@Param("itemId") Long itemId, Pageable pageable);
 
     /**
-     * Находит все комментарии для списка вещей.
+     * Возвращает не более {@code limit} последних комментариев для каждой из указанных вещей одним запросом.
+     * Строка результата: id, item_id, text, имя автора, created.
      * @param itemIds Список ID вещей.
-     * @return Список комментариев.
+     * @param limit Количество комментариев на вещь.
+     * @return Строки результата.
      */
-    List<Comment> findAllByItemIdIn(List<Long> itemIds);
-}
\ No newline at end of file
+    @Query(value = "SELECT ranked.id, ranked.item_id, ranked.text, ranked.author_name, ranked.created " +
+            "FROM (SELECT c.id, c.item_id, c.text, u.name AS author_name, c.created, " +
+            "ROW_NUMBER() OVER (PARTITION BY c.item_id ORDER BY c.created DESC, c.id DESC) AS rn " +
+            "FROM comments c " +
+            "JOIN users u ON u.id = c.author_id " +
+            "WHERE c.item_id IN (:itemIds)) ranked " +
+            "WHERE ranked.rn <= :limit " +
+            "ORDER BY ranked.item_id, ranked.created DESC, ranked.id DESC", nativeQuery = true)
+    List<Object[]> findLatestByItemIds(@Param("itemIds") List<Long> itemIds, @Param("limit") int limit);
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/**
+ * Включает обработку аннотаций {@code @Retryable}.
+ * Интерсептор повтора располагается снаружи транзакционного, поэтому каждая попытка
+ * выполняется в новой транзакции и перечитывает актуальную версию сущности.
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
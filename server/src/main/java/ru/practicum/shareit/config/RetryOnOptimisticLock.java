@@ -0,0 +1,28 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Повторяет метод при конфликте версий сущности ({@link OptimisticLockingFailureException}).
+ * Число попыток и задержки задаются свойствами {@code shareit.retry.optimistic-lock.*};
+ * задержка растёт вдвое с каждой попыткой и случайно разбрасывается, чтобы конкурирующие
+ * запросы не повторялись одновременно. Метод должен открывать свою транзакцию, см. {@link RetryConfig}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Retryable(retryFor = OptimisticLockingFailureException.class,
+        maxAttemptsExpression = "${shareit.retry.optimistic-lock.max-attempts:3}",
+        backoff = @Backoff(delayExpression = "${shareit.retry.optimistic-lock.delay:20}",
+                maxDelayExpression = "${shareit.retry.optimistic-lock.max-delay:200}",
+                multiplier = 2, random = true))
+public @interface RetryOnOptimisticLock {
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает выполнение фоновых задач по расписанию (ретрансляция outbox и др.).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Двоичный формат Smile (application/x-jackson-smile) для обмена со шлюзом.
+ * <p>
+ * Ответ кодируется в Smile, только если клиент запросил его в заголовке Accept; иначе остаётся JSON.
+ * Преобразователь Smile использует те же настройки Jackson, что и JSON, поэтому даты и прочие поля
+ * передаются одинаково в обоих форматах.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WireFormatConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilder.factory(new SmileFactory()).build()));
+    }
+}
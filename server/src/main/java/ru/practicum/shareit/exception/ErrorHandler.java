@@ -1,6 +1,8 @@
 package ru.practicum.shareit.exception;
 
+import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingRequestHeaderException;
@@ -14,6 +16,7 @@ import java.util.Objects;
  * Глобальный обработчик исключений для приложения ShareIt.
  * Перехватывает бизнес-исключения (404, 409, 403), ошибки валидации Spring (400) и непредвиденные ошибки (500).
  * Для каждого исключения возвращает структурированный JSON-ответ с описанием ошибки и сообщением.
+ * Клиентские ошибки (4xx) логируются одной строкой уровня WARN, стек вызовов пишется только для 500.
  */
 @RestControllerAdvice
 @Slf4j
@@ -43,7 +46,7 @@ public class ErrorHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(final MethodArgumentNotValidException e) {
-        log.error("Ошибка валидации DTO: {}", e.getMessage(), e);
+        log.warn("Ошибка валидации DTO: {}", e.getMessage());
         String defaultMessage = Objects.requireNonNull(e.getBindingResult().getFieldError()).getDefaultMessage();
         return new ErrorResponse("Ошибка валидации DTO", defaultMessage);
     }
@@ -59,7 +62,7 @@ public class ErrorHandler {
     @ExceptionHandler(MissingRequestHeaderException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMissingRequestHeaderException(final MissingRequestHeaderException e) {
-        log.error("Отсутствует заголовок: {}", e.getMessage(), e);
+        log.warn("Отсутствует заголовок: {}", e.getMessage());
         return new ErrorResponse("Отсутствует обязательный заголовок", "Заголовок " + e.getHeaderName() + " обязателен.");
     }
 
@@ -73,7 +76,7 @@ public class ErrorHandler {
     @ExceptionHandler(ItemNotAvailableException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleItemNotAvailableException(final ItemNotAvailableException e) {
-        log.error("Вещь недоступна: {}", e.getMessage(), e);
+        log.warn("Вещь недоступна: {}", e.getMessage());
         return new ErrorResponse("Вещь недоступна", e.getMessage());
     }
 
@@ -88,7 +91,7 @@ public class ErrorHandler {
     @ExceptionHandler(BookingNotFoundException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBookingNotFoundException(final BookingNotFoundException e) {
-        log.error("Ошибка бронирования: {}", e.getMessage(), e);
+        log.warn("Ошибка бронирования: {}", e.getMessage());
         return new ErrorResponse("Ошибка комментирования", e.getMessage());
     }
 
@@ -104,7 +107,7 @@ public class ErrorHandler {
     @ExceptionHandler(OwnerMismatchException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     public ErrorResponse handleOwnerMismatchException(final OwnerMismatchException e) {
-        log.error("Нарушение доступа: {}", e.getMessage(), e);
+        log.warn("Нарушение доступа: {}", e.getMessage());
         return new ErrorResponse("Нарушение доступа", e.getMessage());
     }
 
@@ -120,7 +123,7 @@ public class ErrorHandler {
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFoundException(final NotFoundException e) {
-        log.error("Объект не найден: {}", e.getMessage(), e);
+        log.warn("Объект не найден: {}", e.getMessage());
         return createErrorResponse("Объект не найден", e);
     }
 
@@ -136,7 +139,7 @@ public class ErrorHandler {
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleValidationException(final ValidationException e) {
-        log.error("Нарушение бизнес-правил: {}", e.getMessage(), e);
+        log.warn("Нарушение бизнес-правил: {}", e.getMessage());
         return createErrorResponse("Нарушение бизнес-правил", e);
     }
 
@@ -150,10 +153,25 @@ public class ErrorHandler {
     @ExceptionHandler(InvalidUserEmailException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleInvalidUserEmailException(final InvalidUserEmailException e) {
-        log.error("Конфликт уникальности email: {}", e.getMessage(), e);
+        log.warn("Конфликт уникальности email: {}", e.getMessage());
         return createErrorResponse("Конфликт уникальности", e);
     }
 
+    /**
+     * Обрабатывает конфликты оптимистической блокировки, не разрешившиеся после всех повторных попыток.
+     * Перехватывает {@link OptimisticLockingFailureException} и {@link OptimisticLockException}.
+     *
+     * @param e Перехваченное исключение.
+     * @return Объект {@link ErrorResponse} с кодом ошибки 409 и сообщением о параллельном изменении.
+     */
+    @ExceptionHandler({OptimisticLockingFailureException.class, OptimisticLockException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockException(final RuntimeException e) {
+        log.warn("Конфликт параллельного изменения: {}", e.getMessage());
+        return new ErrorResponse("Конфликт параллельного изменения",
+                "Объект был изменён другим запросом. Повторите операцию.");
+    }
+
     // --- Код ответа 500 Internal Server Error ---
 
     /**
@@ -0,0 +1,206 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import ru.practicum.shareit.exception.ErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Обрабатывает POST-запросы с заголовком {@value #IDEMPOTENCY_KEY_HEADER} не более одного раза.
+ * <p>
+ * Ключ действует в пределах пользователя из заголовка X-Sharer-User-Id. Повтор запроса с тем же ключом
+ * получает сохранённый ответ (с заголовком {@value #REPLAYED_HEADER}) без повторного выполнения;
+ * повтор во время выполнения исходного запроса дожидается его завершения, тот же ключ с другим
+ * запросом — 422. Ответ сохраняется целиком в той же транзакции, что и изменения, сделанные запросом
+ * (см. {@link IdempotencyService}), и отправляется клиенту после её фиксации. Ответы с ошибкой
+ * сервера (5xx) не сохраняются, и повтор выполняет запрос заново.
+ * Без {@link IdempotencyService} (срезы контекста в тестах контроллеров) заголовок не обрабатывается.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    static final long NO_USER = 0L;
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(ObjectProvider<IdempotencyService> idempotencyService, ObjectMapper objectMapper) {
+        this.idempotencyService = idempotencyService.getIfAvailable();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return idempotencyService == null
+                || !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Некорректный заголовок " + IDEMPOTENCY_KEY_HEADER + ".",
+                    "Ключ должен быть непустым и не длиннее " + MAX_KEY_LENGTH + " символов.");
+            return;
+        }
+        Long userId = parseUserId(request.getHeader(USER_ID_HEADER));
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        IdempotencyService.Claim claim = idempotencyService.execute(userId, key, hash(cachedRequest), () -> {
+            filterChain.doFilter(cachedRequest, responseWrapper);
+            return new IdempotencyService.StoredResponse(responseWrapper.getStatus(),
+                    responseWrapper.getContentType(), responseWrapper.getContentAsByteArray());
+        });
+        switch (claim.outcome()) {
+            case ACQUIRED -> responseWrapper.copyBodyToResponse();
+            case REPLAY -> replay(response, claim);
+            case IN_PROGRESS -> writeError(response, HttpStatus.CONFLICT,
+                    "Запрос с этим ключом идемпотентности ещё выполняется.", "Повторите запрос позже.");
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Ключ идемпотентности уже использован для другого запроса.", key);
+        }
+    }
+
+    private static void replay(HttpServletResponse response, IdempotencyService.Claim claim) throws IOException {
+        response.setStatus(claim.record().getResponseStatus());
+        if (claim.record().getResponseContentType() != null) {
+            response.setContentType(claim.record().getResponseContentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = claim.record().getResponseBody();
+        if (body != null) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String error, String description)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(error, description));
+    }
+
+    /**
+     * ID пользователя из заголовка; без заголовка — {@link #NO_USER}.
+     * Некорректный заголовок отклоняет контроллер, поэтому такой запрос пропускается без ключа.
+     */
+    private static Long parseUserId(String header) {
+        if (header == null) {
+            return NO_USER;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String hash(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Запрос с заранее прочитанным телом: тело нужно для хеша до передачи запроса контроллеру.
+     */
+    static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * Тело уже в памяти: слушатель сразу получает оставшиеся данные и конец потока.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package ru.practicum.shareit.idempotency;
+
+import jakarta.servlet.ServletException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecord;
+import ru.practicum.shareit.idempotency.repository.IdempotencyRecordRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Хранит ключи идемпотентности и ответы на запросы с ними в базе данных, общей для всех узлов.
+ * <p>
+ * Ключ занимается, запрос выполняется и ответ сохраняется в одной транзакции: запись ключа
+ * фиксируется только вместе с изменениями, сделанными запросом. Повтор, пришедший на другой узел
+ * во время выполнения, ждёт на уникальном индексе завершения исходной транзакции и получает
+ * сохранённый ответ; если исходный запрос откатился (ошибка сервера, остановка узла), ключ
+ * свободен и повтор выполняет запрос заново. Ключ не перезанимается по времени, поэтому долгий
+ * запрос не может выполниться дважды.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    /**
+     * Результат обработки запроса с ключом.
+     */
+    public enum Outcome {
+        /** Ключ занят этим запросом: запрос выполнен. */
+        ACQUIRED,
+        /** Запрос уже выполнен: нужно вернуть сохранённый ответ. */
+        REPLAY,
+        /** Ключ занят, но ответа нет (запись, занятая до перехода на общую транзакцию). */
+        IN_PROGRESS,
+        /** Ключ уже использован для другого запроса. */
+        MISMATCH
+    }
+
+    /**
+     * @param outcome Результат.
+     * @param record  Запись ключа.
+     */
+    public record Claim(Outcome outcome, IdempotencyRecord record) {
+    }
+
+    /**
+     * Ответ на выполненный запрос.
+     *
+     * @param status      HTTP-статус.
+     * @param contentType Тип содержимого (может быть null).
+     * @param body        Тело ответа.
+     */
+    public record StoredResponse(int status, String contentType, byte[] body) {
+    }
+
+    /**
+     * Выполнение запроса в транзакции ключа.
+     */
+    @FunctionalInterface
+    public interface Execution {
+        StoredResponse execute() throws IOException, ServletException;
+    }
+
+    private static final String INSERT_KEY = "INSERT INTO idempotency_keys " +
+            "(user_id, idempotency_key, request_hash, created) VALUES (?, ?, ?, ?)";
+    /** SQLSTATE нарушения уникальности (PostgreSQL и H2). */
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final IdempotencyRecordRepository repository;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Duration retention;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              PlatformTransactionManager transactionManager,
+                              DataSource dataSource,
+                              @Value("${shareit.idempotency.retention-hours:24}") long retentionHours) {
+        this.repository = repository;
+        this.transactionManager = transactionManager;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * Занимает ключ пользователя и выполняет запрос в одной транзакции с сохранением ответа.
+     * <p>
+     * Ответ с ошибкой сервера (5xx) откатывает транзакцию вместе с ключом. Ответ, после которого
+     * транзакция помечена для отката (например, 4xx из-за исключения в сервисе), сохраняется
+     * отдельной транзакцией после отката: повтор получит тот же ответ.
+     *
+     * @param userId         ID пользователя (0 — запрос без пользователя).
+     * @param idempotencyKey Ключ идемпотентности.
+     * @param requestHash    Хеш запроса.
+     * @param execution      Выполнение запроса; вызывается только для {@link Outcome#ACQUIRED}.
+     * @return Результат и запись ключа.
+     */
+    public Claim execute(Long userId, String idempotencyKey, String requestHash, Execution execution)
+            throws IOException, ServletException {
+        TransactionStatus transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            Claim claim = claim(userId, idempotencyKey, requestHash);
+            if (claim.outcome() != Outcome.ACQUIRED) {
+                transactionManager.commit(transaction);
+                return claim;
+            }
+            StoredResponse response = execution.execute();
+            if (response.status() >= 500) {
+                transactionManager.rollback(transaction);
+            } else if (transaction.isRollbackOnly()) {
+                transactionManager.rollback(transaction);
+                storeSeparately(userId, idempotencyKey, requestHash, response);
+            } else {
+                store(claim.record(), response);
+                transactionManager.commit(transaction);
+            }
+            return claim;
+        } catch (IOException | ServletException | RuntimeException | Error e) {
+            if (!transaction.isCompleted()) {
+                transactionManager.rollback(transaction);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Удаляет ключи старше срока хранения.
+     */
+    @Scheduled(cron = "${shareit.idempotency.cleanup.cron:0 45 * * * *}")
+    public void cleanup() {
+        Integer deleted = newTransaction.execute(status ->
+                repository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+        log.debug("Удалено {} устаревших ключей идемпотентности.", deleted);
+    }
+
+    private Claim claim(Long userId, String idempotencyKey, String requestHash) {
+        boolean inserted = tryInsert(userId, idempotencyKey, requestHash);
+        IdempotencyRecord record = repository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .orElseThrow(() -> new IllegalStateException("Ключ идемпотентности не найден после вставки."));
+        if (inserted) {
+            return new Claim(Outcome.ACQUIRED, record);
+        }
+        if (!record.getRequestHash().equals(requestHash)) {
+            return new Claim(Outcome.MISMATCH, record);
+        }
+        if (record.getResponseStatus() == null) {
+            return new Claim(Outcome.IN_PROGRESS, record);
+        }
+        return new Claim(Outcome.REPLAY, record);
+    }
+
+    /**
+     * Вставляет ключ в точке сохранения на соединении текущей транзакции: нарушение уникальности
+     * откатывает только вставку, а не всю транзакцию запроса. Точки сохранения берутся через JDBC,
+     * потому что JPA-диалект Hibernate их не поддерживает.
+     */
+    private boolean tryInsert(Long userId, String idempotencyKey, String requestHash) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_KEY)) {
+                insert.setLong(1, userId);
+                insert.setString(2, idempotencyKey);
+                insert.setString(3, requestHash);
+                insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                insert.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (SQLException e) {
+                if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    throw e;
+                }
+                connection.rollback(savepoint);
+                return false;
+            }
+        }));
+    }
+
+    private static void store(IdempotencyRecord record, StoredResponse response) {
+        record.setResponseStatus(response.status());
+        record.setResponseContentType(response.contentType());
+        record.setResponseBody(response.body());
+    }
+
+    private void storeSeparately(Long userId, String idempotencyKey, String requestHash, StoredResponse response) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                IdempotencyRecord record = new IdempotencyRecord(null, userId, idempotencyKey, requestHash,
+                        null, null, null, LocalDateTime.now());
+                store(record, response);
+                repository.saveAndFlush(record);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Ключ идемпотентности пользователя {} занят параллельным повтором.", userId);
+        }
+    }
+}
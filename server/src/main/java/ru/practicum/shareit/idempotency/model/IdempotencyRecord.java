@@ -0,0 +1,59 @@
+package ru.practicum.shareit.idempotency.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запрос с заголовком Idempotency-Key и сохранённый ответ на него.
+ * Запись фиксируется в одной транзакции с изменениями, сделанными запросом, вместе с ответом.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_keys", uniqueConstraints =
+        @UniqueConstraint(name = "UQ_IDEMPOTENCY_KEYS_USER_KEY", columnNames = {"user_id", "idempotency_key"}))
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    /** Уникальный идентификатор записи. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Пользователь из заголовка X-Sharer-User-Id; 0 — запрос без пользователя (регистрация). */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /** Ключ идемпотентности, переданный клиентом. */
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    /** Хеш метода, пути и тела запроса: повтор с тем же ключом должен совпадать с исходным запросом. */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /** HTTP-статус сохранённого ответа; null только у записей, занятых до перехода на общую транзакцию. */
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    /** Тип содержимого сохранённого ответа. */
+    @Column(name = "response_content_type")
+    private String responseContentType;
+
+    /** Тело сохранённого ответа как есть: JSON или двоичный Smile. */
+    @JdbcTypeCode(SqlTypes.LONG32VARBINARY)
+    @Column(name = "response_body")
+    private byte[] responseBody;
+
+    /** Момент начала выполнения запроса. */
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.idempotency.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Репозиторий ключей идемпотентности.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Удаляет записи старше заданной границы.
+     *
+     * @param threshold Граница хранения.
+     * @return Количество удалённых записей.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.created < :threshold")
+    int deleteCreatedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -2,6 +2,9 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.comment.dto.CommentCreateDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
@@ -22,18 +25,23 @@ public class ItemController {
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
     private final ItemService itemService;
 
+    /**
+     * Собирать ответ GET /items/{itemId} одним SQL-запросом (только PostgreSQL).
+     */
+    @Value("${shareit.item.detail.json-aggregation.enabled:false}")
+    private boolean jsonAggregationEnabled;
+
     /**
      * Создаёт новую вещь.
      */
     @PostMapping
     public ItemDto create(@RequestHeader(USER_ID_HEADER) Long ownerId,
                           @RequestBody ItemDto itemDto) {
-        log.info("Вызван метод создания вещи: " +
+        log.debug("Вызван метод создания вещи: " +
                         "владелец (ID) = {}, " +
-                        "название = '{}', " +
-                        "описание = '{}', " +
-                        "доступна для аренды = {}",
-                ownerId, itemDto.name(), itemDto.description(), itemDto.available());
+                        "доступна для аренды = {}, " +
+                        "ID запроса = {}",
+                ownerId, itemDto.available(), itemDto.requestId());
         return itemService.create(ownerId, itemDto);
     }
 
@@ -44,27 +52,31 @@ public class ItemController {
     public ItemDto update(@RequestHeader(USER_ID_HEADER) Long ownerId,
                           @PathVariable Long itemId,
                           @RequestBody ItemDto itemDto) {
-        log.info("Вызван метод обновления вещи: " +
+        log.debug("Вызван метод обновления вещи: " +
                         "владелец (ID) = {}, " +
                         "ID вещи = {}, " +
-                        "поля для обновления — название = '{}', " +
-                        "описание = '{}', " +
                         "доступность = {}",
-                ownerId, itemId, itemDto.name(), itemDto.description(), itemDto.available());
+                ownerId, itemId, itemDto.available());
         return itemService.update(ownerId, itemId, itemDto);
     }
 
     /**
      * Получает вещь по ID.
+     * При включённой JSON-агрегации документ, собранный базой данных, передаётся клиенту как есть.
      */
     @GetMapping("/{itemId}")
-    public ItemResponseDto getById(@RequestHeader(USER_ID_HEADER) Long userId,
-                                   @PathVariable Long itemId) {
-        log.info("Вызван метод получения вещи по ID: " +
+    public ResponseEntity<?> getById(@RequestHeader(USER_ID_HEADER) Long userId,
+                                     @PathVariable Long itemId) {
+        log.debug("Вызван метод получения вещи по ID: " +
                         "пользователь (ID) = {}, " +
                         "ID запрашиваемой вещи = {}",
                 userId, itemId);
-        return itemService.getById(userId, itemId);
+        if (jsonAggregationEnabled) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(itemService.getDetailJson(userId, itemId));
+        }
+        return ResponseEntity.ok(itemService.getById(userId, itemId));
     }
 
     /**
@@ -74,7 +86,7 @@ public class ItemController {
     public List<ItemResponseDto> getAllByOwner(@RequestHeader(USER_ID_HEADER) Long ownerId,
                                                @RequestParam(defaultValue = "0") int from,
                                                @RequestParam(defaultValue = "10") int size) {
-        log.info("Вызван метод получения всех вещей владельца: " +
+        log.debug("Вызван метод получения всех вещей владельца: " +
                         "владелец (ID) = {}, " +
                         "пагинация: смещение = {}, размер страницы = {}",
                 ownerId, from, size);
@@ -88,7 +100,7 @@ public class ItemController {
     public List<ItemDto> search(@RequestParam String text,
                                 @RequestParam(defaultValue = "0") int from,
                                 @RequestParam(defaultValue = "10") int size) {
-        log.info("Вызван метод поиска вещей по тексту: " +
+        log.debug("Вызван метод поиска вещей по тексту: " +
                         "поисковый запрос = '{}', " +
                         "пагинация: смещение = {}, размер страницы = {}",
                 text, from, size);
@@ -102,11 +114,24 @@ public class ItemController {
     public CommentDto addComment(@RequestHeader(USER_ID_HEADER) Long authorId,
                                  @PathVariable Long itemId,
                                  @RequestBody CommentCreateDto dto) {
-        log.info("Вызван метод добавления комментария: " +
+        log.debug("Вызван метод добавления комментария: " +
                         "автор (ID) = {}, " +
-                        "ID вещи = {}, " +
-                        "текст комментария = '{}'",
-                authorId, itemId, dto.text());
+                        "ID вещи = {}",
+                authorId, itemId);
         return itemService.addComment(authorId, itemId, dto);
     }
-}
\ No newline at end of file
+
+    /**
+     * Получает комментарии к вещи постранично, начиная с самых новых.
+     */
+    @GetMapping("/{itemId}/comments")
+    public List<CommentDto> getComments(@PathVariable Long itemId,
+                                        @RequestParam(defaultValue = "0") int from,
+                                        @RequestParam(defaultValue = "10") int size) {
+        log.debug("Вызван метод получения комментариев вещи: " +
+                        "ID вещи = {}, " +
+                        "пагинация: смещение = {}, размер страницы = {}",
+                itemId, from, size);
+        return itemService.getComments(itemId, from, size);
+    }
+}
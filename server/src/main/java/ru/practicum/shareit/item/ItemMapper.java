@@ -4,7 +4,9 @@ import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.item.dto.BookingInItemDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.dto.ItemStatsDto;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemStatsSnapshot;
 
 
 import java.util.Collections;
@@ -42,14 +44,17 @@ public class ItemMapper {
      * @param item Сущность вещи.
      * @param lastBooking DTO последнего бронирования.
      * @param nextBooking DTO следующего бронирования.
-     * @param comments Список DTO комментариев.
+     * @param comments Список DTO последних комментариев.
+     * @param withStats Добавлять ли агрегированные показатели (только для владельца).
      * @return Расширенный DTO вещи.
      */
     public static ItemResponseDto toDto(
             Item item,
             BookingInItemDto lastBooking,
             BookingInItemDto nextBooking,
-            List<CommentDto> comments) {
+            List<CommentDto> comments,
+            boolean withStats) {
+        ItemStatsDto stats = toStatsDto(item.getStats());
         return new ItemResponseDto(
                 item.getId(),
                 item.getName(),
@@ -58,10 +63,35 @@ public class ItemMapper {
                 item.getRequest() != null ? item.getRequest().getId() : null,
                 lastBooking,
                 nextBooking,
-                comments != null ? comments : Collections.emptyList()
+                comments != null ? comments : Collections.emptyList(),
+                stats.commentCount(),
+                withStats ? stats : null
         );
     }
 
+    /**
+     * Преобразует показатели, загруженные вместе с вещью, в DTO.
+     * Отсутствующие показатели (строка ещё не создана) считаются нулевыми.
+     *
+     * @param snapshot Показатели вещи или null.
+     * @return DTO показателей.
+     */
+    public static ItemStatsDto toStatsDto(ItemStatsSnapshot snapshot) {
+        if (snapshot == null) {
+            return new ItemStatsDto(0L, 0L, 0L, null);
+        }
+        return new ItemStatsDto(
+                zeroIfNull(snapshot.getBookingCount()),
+                zeroIfNull(snapshot.getCompletedRentalCount()),
+                zeroIfNull(snapshot.getCommentCount()),
+                snapshot.getLastRentedAt()
+        );
+    }
+
+    private static long zeroIfNull(Long value) {
+        return value != null ? value : 0L;
+    }
+
     /**
      * Преобразует коллекцию сущностей {@link Item} в коллекцию базовых DTO {@link ItemDto}.
      *
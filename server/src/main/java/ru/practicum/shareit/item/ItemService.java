@@ -17,10 +17,14 @@ public interface ItemService {
 
     ItemResponseDto getById(Long userId, Long itemId);
 
+    String getDetailJson(Long userId, Long itemId);
+
     List<ItemResponseDto> getAllByOwner(Long ownerId, int from, int size);
 
     List<ItemDto> search(String text, int from, int size);
 
     @Transactional
     CommentDto addComment(Long authorId, Long itemId, CommentCreateDto dto);
+
+    List<CommentDto> getComments(Long itemId, int from, int size);
 }
@@ -2,22 +2,30 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.EntityChangedEvent;
 import ru.practicum.shareit.comment.CommentMapper;
 import ru.practicum.shareit.comment.dto.CommentCreateDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
 import ru.practicum.shareit.comment.model.Comment;
 import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.config.RetryOnOptimisticLock;
 import ru.practicum.shareit.exception.BookingNotFoundException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.logging.LogFields;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.payload.CommentPayload;
+import ru.practicum.shareit.outbox.payload.ItemPayload;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -39,11 +47,17 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
 
+    /** Количество последних комментариев, встраиваемых в ответ о вещи. */
+    static final int LATEST_COMMENTS_LIMIT = 10;
+
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository requestRepository;
+    private final ItemStatsUpdater itemStatsUpdater;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создает новую вещь для указанного владельца.
@@ -51,8 +65,8 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     @Override
     public ItemDto create(Long ownerId, ItemDto itemDto) {
-        log.info("Создание вещи: владелец (ID) = {}, название = '{}', описание = '{}', доступна = {}, ID запроса = {}",
-                ownerId, itemDto.name(), itemDto.description(), itemDto.available(), itemDto.requestId());
+        log.debug("Создание вещи: владелец (ID) = {}, доступна = {}, ID запроса = {}",
+                ownerId, itemDto.available(), itemDto.requestId());
 
         User owner = findUserById(ownerId);
         Item item = ItemMapper.toEntity(itemDto);
@@ -62,22 +76,28 @@ public class ItemServiceImpl implements ItemService {
             ItemRequest request = requestRepository.findById(itemDto.requestId())
                     .orElseThrow(() -> new NotFoundException("Запрос с ID " + itemDto.requestId() + " не найден."));
             item.setRequest(request);
-            log.info("Привязка вещи к запросу: ID запроса = {}", itemDto.requestId());
+            log.debug("Привязка вещи к запросу: ID запроса = {}", itemDto.requestId());
         }
 
         Item savedItem = itemRepository.save(item);
-        log.info("Вещь успешно создана: ID = {}, название = '{}', владелец = {}", savedItem.getId(), savedItem.getName(), ownerId);
+        itemStatsUpdater.onItemCreated(savedItem.getId());
+        outboxWriter.append(OutboxEventType.ITEM_CREATED, savedItem.getId(), ItemPayload.of(savedItem));
+        eventPublisher.publishEvent(EntityChangedEvent.item(savedItem));
+        log.info("Вещь успешно создана: ID = {}, название = '{}', владелец = {}",
+                savedItem.getId(), LogFields.truncate(savedItem.getName()), ownerId);
         return ItemMapper.toDto(savedItem);
     }
 
     /**
      * Обновляет данные вещи для указанного владельца.
+     * При конфликте версий изменения применяются повторно к актуальному состоянию вещи.
      */
+    @RetryOnOptimisticLock
     @Transactional
     @Override
     public ItemDto update(Long ownerId, Long itemId, ItemDto itemDto) {
-        log.info("Обновление вещи: владелец (ID) = {}, ID вещи = {}, новые данные — название = '{}', описание = '{}', доступна = {}",
-                ownerId, itemId, itemDto.name(), itemDto.description(), itemDto.available());
+        log.debug("Обновление вещи: владелец (ID) = {}, ID вещи = {}, доступна = {}",
+                ownerId, itemId, itemDto.available());
 
         findUserById(ownerId);
         Item item = findItemById(itemId);
@@ -90,27 +110,46 @@ public class ItemServiceImpl implements ItemService {
 
         updateItemFields(item, itemDto);
         Item updatedItem = itemRepository.save(item);
-        log.info("Вещь успешно обновлена: ID = {}, название = '{}', владелец = {}", updatedItem.getId(), updatedItem.getName(), ownerId);
+        outboxWriter.append(OutboxEventType.ITEM_UPDATED, updatedItem.getId(), ItemPayload.of(updatedItem));
+        eventPublisher.publishEvent(EntityChangedEvent.item(updatedItem));
+        log.info("Вещь успешно обновлена: ID = {}, название = '{}', владелец = {}",
+                updatedItem.getId(), LogFields.truncate(updatedItem.getName()), ownerId);
         return ItemMapper.toDto(updatedItem);
     }
 
     /**
      * Получает информацию о вещи по её идентификатору.
+     * Показатели вещи загружаются тем же запросом, что и сама вещь.
      */
     @Override
     public ItemResponseDto getById(Long userId, Long itemId) {
-        log.info("Получение вещи по ID: пользователь (ID) = {}, ID вещи = {}", userId, itemId);
+        log.debug("Получение вещи по ID: пользователь (ID) = {}, ID вещи = {}", userId, itemId);
 
         Item item = findItemById(itemId);
-        List<CommentDto> comments = getCommentsByItemId(itemId);
+        List<CommentDto> comments = getLatestComments(itemId);
 
         if (item.getOwner().getId().equals(userId)) {
-            log.info("Пользователь — владелец вещи. Добавление данных о бронированиях.");
+            log.debug("Пользователь — владелец вещи. Добавление данных о бронированиях.");
             return getItemResponseDtoWithBookings(item, comments);
         }
 
-        log.info("Пользователь не владелец. Возвращение базовой информации о вещи.");
-        return ItemMapper.toDto(item, null, null, comments);
+        log.debug("Пользователь не владелец. Возвращение базовой информации о вещи.");
+        return ItemMapper.toDto(item, null, null, comments, false);
+    }
+
+    /**
+     * Получает информацию о вещи в виде готового JSON-документа, собранного одним SQL-запросом.
+     * Содержимое совпадает с {@link #getById(Long, Long)}; требуется PostgreSQL.
+     */
+    @Override
+    public String getDetailJson(Long userId, Long itemId) {
+        log.debug("Получение вещи по ID одним запросом: пользователь (ID) = {}, ID вещи = {}", userId, itemId);
+
+        return itemRepository.findDetailJson(itemId, userId, LocalDateTime.now(), LATEST_COMMENTS_LIMIT)
+                .orElseThrow(() -> {
+                    log.debug("Вещь с ID {} не найдена.", itemId);
+                    return new NotFoundException("Вещь ID " + itemId + " не найдена.");
+                });
     }
 
     /**
@@ -118,24 +157,30 @@ public class ItemServiceImpl implements ItemService {
      */
     @Override
     public List<ItemResponseDto> getAllByOwner(Long ownerId, int from, int size) {
-        log.info("Получение всех вещей владельца: владелец (ID) = {}, пагинация — смещение = {}, размер = {}", ownerId, from, size);
+        log.debug("Получение всех вещей владельца: владелец (ID) = {}, пагинация — смещение = {}, размер = {}", ownerId, from, size);
 
         findUserById(ownerId);
         PageRequest page = createPageRequest(from, size);
 
         List<Item> items = itemRepository.findAllByOwnerIdOrderById(ownerId, page);
         if (items.isEmpty()) {
-            log.info("У владельца (ID {}) нет вещей.", ownerId);
+            log.debug("У владельца (ID {}) нет вещей.", ownerId);
             return Collections.emptyList();
         }
 
-        Map<Long, List<CommentDto>> commentsMap = getCommentsByItemIds(items);
+        List<Long> itemIds = items.stream().map(Item::getId).toList();
+        Map<Long, List<CommentDto>> commentsMap = getLatestCommentsByItemIds(itemIds);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BookingInItemDto> lastBookings = byItemId(
+                bookingRepository.findLastByItemIdIn(itemIds, BookingStatus.APPROVED, now));
+        Map<Long, BookingInItemDto> nextBookings = byItemId(
+                bookingRepository.findNextByItemIdIn(itemIds, BookingStatus.APPROVED, now));
         List<ItemResponseDto> dtos = items.stream()
-                .map(item -> getItemResponseDtoWithBookings(
-                        item, commentsMap.getOrDefault(item.getId(), Collections.emptyList())))
+                .map(item -> ItemMapper.toDto(item, lastBookings.get(item.getId()), nextBookings.get(item.getId()),
+                        commentsMap.getOrDefault(item.getId(), Collections.emptyList()), true))
                 .toList();
 
-        log.info("Возвращено {} вещей для владельца (ID {}).", dtos.size(), ownerId);
+        log.debug("Возвращено {} вещей для владельца (ID {}).", dtos.size(), ownerId);
         return dtos;
     }
 
@@ -144,16 +189,16 @@ public class ItemServiceImpl implements ItemService {
      */
     @Override
     public List<ItemDto> search(String text, int from, int size) {
-        log.info("Поиск вещей: текст = '{}', пагинация — смещение = {}, размер = {}", text, from, size);
+        log.debug("Поиск вещей: текст = '{}', пагинация — смещение = {}, размер = {}", LogFields.truncate(text), from, size);
 
         if (text.isBlank()) {
-            log.info("Поисковый запрос пустой. Возвращён пустой список.");
+            log.debug("Поисковый запрос пустой. Возвращён пустой список.");
             return Collections.emptyList();
         }
 
         PageRequest page = createPageRequest(from, size);
         List<Item> items = itemRepository.search(text, page);
-        log.info("По запросу '{}' найдено {} вещей.", text, items.size());
+        log.debug("По запросу '{}' найдено {} вещей.", LogFields.truncate(text), items.size());
         return ItemMapper.toDto(items);
     }
 
@@ -163,7 +208,7 @@ public class ItemServiceImpl implements ItemService {
     @Transactional
     @Override
     public CommentDto addComment(Long authorId, Long itemId, CommentCreateDto commentDto) {
-        log.info("Добавление комментария: автор (ID) = {}, ID вещи = {}, текст = '{}'", authorId, itemId, commentDto.text());
+        log.debug("Добавление комментария: автор (ID) = {}, ID вещи = {}", authorId, itemId);
 
         User author = findUserById(authorId);
         Item item = findItemById(itemId);
@@ -175,10 +220,26 @@ public class ItemServiceImpl implements ItemService {
         comment.setCreated(LocalDateTime.now());
 
         Comment savedComment = commentRepository.save(comment);
+        itemStatsUpdater.onCommentAdded(itemId);
+        outboxWriter.append(OutboxEventType.COMMENT_CREATED, itemId, CommentPayload.of(savedComment));
+        eventPublisher.publishEvent(EntityChangedEvent.item(item));
         log.info("Комментарий успешно добавлен: ID = {}, автор = {}, вещь = {}", savedComment.getId(), authorId, itemId);
         return CommentMapper.toDto(savedComment);
     }
 
+    /**
+     * Возвращает страницу комментариев к вещи, начиная с самых новых.
+     */
+    @Override
+    public List<CommentDto> getComments(Long itemId, int from, int size) {
+        log.debug("Получение комментариев вещи: ID вещи = {}, пагинация — смещение = {}, размер = {}", itemId, from, size);
+
+        if (!itemRepository.existsById(itemId)) {
+            throw new NotFoundException("Вещь ID " + itemId + " не найдена.");
+        }
+        return commentRepository.findDtosByItemId(itemId, createPageRequest(from, size));
+    }
+
     /**
      * Создаёт объект PageRequest для пагинации.
      */
@@ -194,7 +255,7 @@ public class ItemServiceImpl implements ItemService {
     private User findUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> {
-                    log.warn("Пользователь с ID {} не найден.", userId);
+                    log.debug("Пользователь с ID {} не найден.", userId);
                     return new NotFoundException("Пользователь ID " + userId + " не найден.");
                 });
     }
@@ -205,37 +266,35 @@ public class ItemServiceImpl implements ItemService {
     private Item findItemById(Long itemId) {
         return itemRepository.findById(itemId)
                 .orElseThrow(() -> {
-                    log.warn("Вещь с ID {} не найдена.", itemId);
+                    log.debug("Вещь с ID {} не найдена.", itemId);
                     return new NotFoundException("Вещь ID " + itemId + " не найдена.");
                 });
     }
 
     /**
-     * Получает комментарии для одной вещи.
+     * Получает последние комментарии для одной вещи.
      */
-    private List<CommentDto> getCommentsByItemId(Long itemId) {
-        List<CommentDto> comments = CommentMapper.toDto(commentRepository.findAllByItemId(itemId));
-        log.debug("Загружено {} комментариев для вещи (ID {}).", comments.size(), itemId);
+    private List<CommentDto> getLatestComments(Long itemId) {
+        List<CommentDto> comments = commentRepository.findDtosByItemId(itemId, PageRequest.of(0, LATEST_COMMENTS_LIMIT));
+        log.debug("Загружено {} последних комментариев для вещи (ID {}).", comments.size(), itemId);
         return comments;
     }
 
     /**
-     * Получает комментарии для списка вещей.
+     * Получает последние комментарии для списка вещей одним запросом, сгруппированные по ID вещи.
      */
-    private Map<Long, List<CommentDto>> getCommentsByItemIds(List<Item> items) {
-        List<Long> itemIds = items.stream().map(Item::getId).toList();
-        log.debug("Загрузка комментариев для вещей: {}", itemIds);
-        List<Comment> comments = commentRepository.findAllByItemIdIn(itemIds);
-        return comments.stream()
-                .map(CommentMapper::toDto)
-                .collect(Collectors.groupingBy(CommentDto::id));
+    private Map<Long, List<CommentDto>> getLatestCommentsByItemIds(List<Long> itemIds) {
+        log.debug("Загрузка последних комментариев для вещей: {}", itemIds);
+        return commentRepository.findLatestByItemIds(itemIds, LATEST_COMMENTS_LIMIT).stream()
+                .collect(Collectors.groupingBy(CommentMapper::itemIdOf,
+                        Collectors.mapping(CommentMapper::toDto, Collectors.toList())));
     }
 
     /**
      * Проверяет, что пользователь бронировал вещь и бронирование завершено.
      */
     private void validateBookingForComment(Long authorId, Long itemId) {
-        log.info("Проверка возможности добавления комментария: пользователь (ID) = {}, вещь (ID) = {}", authorId, itemId);
+        log.debug("Проверка возможности добавления комментария: пользователь (ID) = {}, вещь (ID) = {}", authorId, itemId);
 
         List<Booking> pastBookings = bookingRepository.findAllByItemIdAndBookerIdAndStatusAndEndBefore(
                 itemId, authorId, BookingStatus.APPROVED, LocalDateTime.now());
@@ -246,7 +305,7 @@ public class ItemServiceImpl implements ItemService {
                     "Пользователь ID " + authorId + " не бронировал вещь ID " + itemId + " или бронирование не завершено.");
         }
 
-        log.info("Пользователь (ID {}) имеет {} завершённых бронирований вещи (ID {}). Разрешено добавление комментария.",
+        log.debug("Пользователь (ID {}) имеет {} завершённых бронирований вещи (ID {}). Разрешено добавление комментария.",
                 authorId, pastBookings.size(), itemId);
     }
 
@@ -280,7 +339,18 @@ public class ItemServiceImpl implements ItemService {
     }
 
     /**
-     * Формирует DTO вещи с данными о бронированиях (для владельца).
+     * Бронирования, сгруппированные по ID вещи; из нескольких бронирований вещи берётся бронирование
+     * с наибольшим ID.
+     */
+    private static Map<Long, BookingInItemDto> byItemId(List<Booking> bookings) {
+        return bookings.stream().collect(Collectors.toMap(
+                b -> b.getItem().getId(),
+                b -> new BookingInItemDto(b.getId(), b.getBooker().getId(), b.getStart(), b.getEnd()),
+                (first, second) -> first.id() > second.id() ? first : second));
+    }
+
+    /**
+     * Формирует DTO вещи с данными о бронированиях и показателями (для владельца).
      */
     private ItemResponseDto getItemResponseDtoWithBookings(Item item, List<CommentDto> comments) {
         LocalDateTime now = LocalDateTime.now();
@@ -290,7 +360,7 @@ public class ItemServiceImpl implements ItemService {
                 .orElse(null);
 
         BookingInItemDto nextBooking = bookingRepository
-                .findFirstByItemIdAndStatusAndStartAfterOrderByStartAsc(item.getId(), BookingStatus.APPROVED, now)
+                .findNextByItemId(item.getId(), BookingStatus.APPROVED, now)
                 .map(b -> new BookingInItemDto(b.getId(), b.getBooker().getId(), b.getStart(), b.getEnd()))
                 .orElse(null);
 
@@ -298,6 +368,6 @@ public class ItemServiceImpl implements ItemService {
                 item.getId(), lastBooking != null ? lastBooking.id() : "отсутствует",
                 nextBooking != null ? nextBooking.id() : "отсутствует", comments.size());
 
-        return ItemMapper.toDto(item, lastBooking, nextBooking, comments);
+        return ItemMapper.toDto(item, lastBooking, nextBooking, comments, true);
     }
 }
\ No newline at end of file
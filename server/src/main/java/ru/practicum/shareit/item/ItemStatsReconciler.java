@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+
+import java.util.List;
+
+/**
+ * Периодическая сверка показателей вещей с исходными таблицами.
+ * <p>
+ * Исправляет расхождения, которые инкрементальные обновления не покрывают (удаление пользователей
+ * и вещей каскадом, ручные правки в БД), и создаёт недостающие строки показателей.
+ * Вещи обходятся порциями по возрастанию ID, каждая порция — в отдельной короткой транзакции.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.item-stats.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemStatsReconciler {
+
+    private final ItemRepository itemRepository;
+    private final ItemStatsRepository itemStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ItemStatsReconciler(ItemRepository itemRepository,
+                               ItemStatsRepository itemStatsRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${shareit.item-stats.reconcile.batch-size:500}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.itemStatsRepository = itemStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Пересчитывает показатели всех вещей.
+     */
+    @Scheduled(cron = "${shareit.item-stats.reconcile.cron:0 30 3 * * *}")
+    public void reconcile() {
+        long lastId = 0;
+        int items = 0;
+        int created = 0;
+        List<Long> ids;
+        do {
+            ids = itemRepository.findIdsAfter(lastId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            created += reconcileBatch(ids);
+            items += ids.size();
+            lastId = ids.getLast();
+        } while (ids.size() == batchSize);
+
+        log.info("Сверка показателей вещей завершена: вещей {}, создано строк показателей {}.", items, created);
+    }
+
+    /**
+     * Пересчитывает показатели порции вещей.
+     *
+     * @param itemIds ID вещей.
+     * @return Количество созданных строк показателей.
+     */
+    int reconcileBatch(List<Long> itemIds) {
+        return transactionTemplate.execute(status -> {
+            itemStatsRepository.rebuildFromSource(itemIds);
+            return itemStatsRepository.createMissingFromSource(itemIds);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Поддерживает агрегированные показатели вещей ({@link ItemStats}) в той же транзакции,
+ * что и изменение, которое их затрагивает.
+ * <p>
+ * Счётчики изменяются атомарным UPDATE; если у вещи ещё нет строки показателей
+ * (например, вещь создана до их появления), строка создаётся по фактическим данным,
+ * в которые текущее изменение уже входит.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class ItemStatsUpdater {
+
+    private final ItemStatsRepository itemStatsRepository;
+
+    /**
+     * Создаёт нулевые показатели для новой вещи.
+     *
+     * @param itemId ID вещи.
+     */
+    public void onItemCreated(Long itemId) {
+        itemStatsRepository.createForItem(itemId);
+    }
+
+    /**
+     * Учитывает новый комментарий к вещи.
+     *
+     * @param itemId ID вещи.
+     */
+    public void onCommentAdded(Long itemId) {
+        if (itemStatsRepository.incrementCommentCount(itemId) == 0) {
+            createMissing(itemId);
+        }
+    }
+
+    /**
+     * Учитывает одобренное бронирование вещи.
+     *
+     * @param itemId ID вещи.
+     */
+    public void onBookingApproved(Long itemId) {
+        if (itemStatsRepository.incrementBookingCount(itemId) == 0) {
+            createMissing(itemId);
+        }
+    }
+
+    /**
+     * Учитывает несколько одобренных бронирований вещи (пакетное подтверждение).
+     *
+     * @param itemId ID вещи.
+     * @param count  Количество одобренных бронирований.
+     */
+    public void onBookingsApproved(Long itemId, long count) {
+        if (itemStatsRepository.addBookingCount(itemId, count) == 0) {
+            createMissing(itemId);
+        }
+    }
+
+    /**
+     * Учитывает завершённые аренды вещи. Вызывается после того, как бронирования отмечены завершёнными.
+     *
+     * @param itemId  ID вещи.
+     * @param count   Количество завершённых аренд.
+     * @param lastEnd Наибольшая дата окончания среди них.
+     */
+    public void onRentalsCompleted(Long itemId, long count, LocalDateTime lastEnd) {
+        if (itemStatsRepository.addCompletedRentals(itemId, count, lastEnd) == 0) {
+            createMissing(itemId);
+        }
+    }
+
+    private void createMissing(Long itemId) {
+        log.debug("Показатели вещи (ID {}) отсутствуют и будут вычислены по исходным данным.", itemId);
+        itemStatsRepository.createMissingFromSource(List.of(itemId));
+    }
+}
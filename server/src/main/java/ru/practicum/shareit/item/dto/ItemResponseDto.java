@@ -6,7 +6,9 @@ import java.util.List;
 
 /**
  * DTO для ответа о Вещи (используется для GET /items/{id} и GET /items),
- * включает данные о бронировании и комментарии.
+ * включает данные о бронировании, последние комментарии и их общее количество,
+ * а для владельца — агрегированные показатели вещи.
+ * Полный список комментариев доступен постранично через GET /items/{id}/comments.
  */
 public record ItemResponseDto(
         Long id,
@@ -16,5 +18,7 @@ public record ItemResponseDto(
         Long requestId,
         BookingInItemDto lastBooking,
         BookingInItemDto nextBooking,
-        List<CommentDto> comments
+        List<CommentDto> comments,
+        Long commentCount,
+        ItemStatsDto stats
 ) {}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO агрегированных показателей вещи, возвращаемых владельцу.
+ */
+public record ItemStatsDto(
+        Long bookingCount,
+        Long completedRentalCount,
+        Long commentCount,
+        LocalDateTime lastRentedAt
+) {}
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.SecondaryRow;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.request.model.ItemRequest;
 
@@ -15,6 +16,8 @@ import ru.practicum.shareit.request.model.ItemRequest;
 @Setter
 @Entity
 @Table(name = "items")
+@SecondaryTable(name = "item_stats", pkJoinColumns = @PrimaryKeyJoinColumn(name = "item_id"))
+@SecondaryRow(table = "item_stats", owned = false)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Item {
@@ -57,4 +60,24 @@ public class Item {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "request_id")
     private ItemRequest request;
+
+    /**
+     * Версия записи для оптимистической блокировки (изменение доступности, редактирование).
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    /**
+     * Агрегированные показатели вещи; null, если показатели ещё не созданы.
+     */
+    @Embedded
+    private ItemStatsSnapshot stats;
+
+    /**
+     * Создаёт новую (ещё не сохранённую) вещь. Версию проставляет Hibernate при сохранении.
+     */
+    public Item(Long id, String name, String description, Boolean available, User owner, ItemRequest request) {
+        this(id, name, description, available, owner, request, null, null);
+    }
 }
\ No newline at end of file
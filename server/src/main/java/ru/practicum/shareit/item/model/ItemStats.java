@@ -0,0 +1,53 @@
+package ru.practicum.shareit.item.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Агрегированные показатели вещи, поддерживаемые при записи,
+ * чтобы не подсчитывать связанные строки при каждом чтении.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "item_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemStats {
+
+    /**
+     * Идентификатор вещи.
+     */
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    /**
+     * Количество комментариев к вещи.
+     */
+    @Column(name = "comment_count", nullable = false)
+    private long commentCount;
+
+    /**
+     * Количество одобренных бронирований вещи.
+     */
+    @Column(name = "booking_count", nullable = false)
+    private long bookingCount;
+
+    /**
+     * Количество завершённых аренд вещи.
+     */
+    @Column(name = "completed_rental_count", nullable = false)
+    private long completedRentalCount;
+
+    /**
+     * Дата и время окончания последней завершённой аренды.
+     */
+    @Column(name = "last_rented_at")
+    private LocalDateTime lastRentedAt;
+}
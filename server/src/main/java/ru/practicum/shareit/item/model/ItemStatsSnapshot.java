@@ -0,0 +1,44 @@
+package ru.practicum.shareit.item.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Показатели вещи из таблицы item_stats, загружаемые вместе с вещью (внешним соединением).
+ * Только для чтения: значения изменяются через {@link ru.practicum.shareit.item.repository.ItemStatsRepository}.
+ */
+@Getter
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemStatsSnapshot {
+
+    /**
+     * Количество одобренных бронирований.
+     */
+    @Column(table = "item_stats", name = "booking_count", insertable = false, updatable = false)
+    private Long bookingCount;
+
+    /**
+     * Количество завершённых аренд.
+     */
+    @Column(table = "item_stats", name = "completed_rental_count", insertable = false, updatable = false)
+    private Long completedRentalCount;
+
+    /**
+     * Количество комментариев.
+     */
+    @Column(table = "item_stats", name = "comment_count", insertable = false, updatable = false)
+    private Long commentCount;
+
+    /**
+     * Дата и время окончания последней завершённой аренды.
+     */
+    @Column(table = "item_stats", name = "last_rented_at", insertable = false, updatable = false)
+    private LocalDateTime lastRentedAt;
+}
@@ -1,12 +1,16 @@
 package ru.practicum.shareit.item.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.item.model.Item;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Репозиторий для работы с сущностью {@link Item}.
@@ -22,6 +26,17 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
      */
     List<Item> findAllByOwnerIdOrderById(Long ownerId, Pageable pageable);
 
+    /**
+     * Находит вещь для бронирования с оптимистической блокировкой: при фиксации транзакции
+     * проверяется, что версия вещи не изменилась (например, владелец не снял её с аренды).
+     *
+     * @param itemId Идентификатор вещи.
+     * @return Вещь, если найдена.
+     */
+    @Lock(LockModeType.OPTIMISTIC)
+    @Query("SELECT i FROM Item i WHERE i.id = :itemId")
+    Optional<Item> findForBookingById(@Param("itemId") Long itemId);
+
     /**
      * Ищет вещи по названию или описанию, не зависимо от регистра, среди доступных вещей.
      *
@@ -50,4 +65,64 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
      * @return Список вещей.
      */
     List<Item> findAllByRequestIdIn(List<Long> requestIds);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает порцию идентификаторов вещей, следующих за указанным, в порядке возрастания
+     * (постраничный обход по ключу без OFFSET).
+     *
+     * @param afterId  Последний обработанный идентификатор.
+     * @param pageable Размер порции.
+     * @return Список идентификаторов.
+     */
+    @Query("SELECT i.id FROM Item i WHERE i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Собирает полное представление вещи (как {@link ru.practicum.shareit.item.dto.ItemResponseDto})
+     * одним запросом средствами JSON-функций PostgreSQL: вещь, последние комментарии с авторами,
+     * а для владельца — последнее и следующее бронирования и показатели вещи.
+     * Только для PostgreSQL; на других СУБД используется обычный путь через JPA.
+     *
+     * @param itemId        Идентификатор вещи.
+     * @param userId        Идентификатор запрашивающего пользователя.
+     * @param currentTime   Текущий момент для выбора последнего и следующего бронирований.
+     * @param commentsLimit Количество последних комментариев.
+     * @return JSON-документ, если вещь найдена.
+     */
+    @Query(value = "SELECT CAST(json_build_object(" +
+            "'id', i.id, " +
+            "'name', i.name, " +
+            "'description', i.description, " +
+            "'available', i.is_available, " +
+            "'requestId', i.request_id, " +
+            "'lastBooking', CASE WHEN i.owner_id = :userId THEN (" +
+            "SELECT json_build_object('id', b.id, 'bookerId', b.booker_id, 'start', b.start_date, 'end', b.end_date) " +
+            "FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date < :currentTime " +
+            "ORDER BY b.end_date DESC LIMIT 1) END, " +
+            "'nextBooking', CASE WHEN i.owner_id = :userId THEN (" +
+            "SELECT json_build_object('id', b.id, 'bookerId', b.booker_id, 'start', b.start_date, 'end', b.end_date) " +
+            "FROM bookings b " +
+            "WHERE b.item_id = i.id AND b.status = 'APPROVED' AND b.start_date > :currentTime AND b.end_date > :currentTime " +
+            "ORDER BY b.start_date LIMIT 1) END, " +
+            "'comments', COALESCE((" +
+            "SELECT json_agg(json_build_object('id', c.id, 'text', c.text, 'authorName', u.name, 'created', c.created) " +
+            "ORDER BY c.created DESC, c.id DESC) " +
+            "FROM (SELECT * FROM comments WHERE item_id = i.id " +
+            "ORDER BY created DESC, id DESC LIMIT :commentsLimit) c " +
+            "JOIN users u ON u.id = c.author_id), CAST('[]' AS json)), " +
+            "'commentCount', COALESCE(s.comment_count, 0), " +
+            "'stats', CASE WHEN i.owner_id = :userId THEN json_build_object(" +
+            "'bookingCount', COALESCE(s.booking_count, 0), " +
+            "'completedRentalCount', COALESCE(s.completed_rental_count, 0), " +
+            "'commentCount', COALESCE(s.comment_count, 0), " +
+            "'lastRentedAt', s.last_rented_at) END" +
+            ") AS text) " +
+            "FROM items i " +
+            "LEFT JOIN item_stats s ON s.item_id = i.id " +
+            "WHERE i.id = :itemId", nativeQuery = true)
+    Optional<String> findDetailJson(@Param("itemId") Long itemId,
+                                    @Param("userId") Long userId,
+                                    @Param("currentTime") LocalDateTime currentTime,
+                                    @Param("commentsLimit") int commentsLimit);
+}
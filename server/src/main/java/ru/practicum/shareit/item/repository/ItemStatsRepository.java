@@ -0,0 +1,118 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.model.ItemStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью {@link ItemStats}.
+ * Счётчики изменяются атомарными UPDATE; контекст персистентности после них очищается,
+ * чтобы вещи, загруженные позже в той же транзакции, содержали актуальные показатели.
+ */
+public interface ItemStatsRepository extends JpaRepository<ItemStats, Long> {
+
+    /**
+     * Общая часть запросов, вычисляющих показатели вещи {@code i} по исходным таблицам.
+     */
+    String STATS_FROM_SOURCE = "(SELECT COUNT(*) FROM comments c WHERE c.item_id = i.id), " +
+            "(SELECT COUNT(*) FROM bookings b WHERE b.item_id = i.id AND b.status = 'APPROVED'), " +
+            "(SELECT COUNT(*) FROM bookings b WHERE b.item_id = i.id AND b.rental_completed = TRUE), " +
+            "(SELECT MAX(b.end_date) FROM bookings b WHERE b.item_id = i.id AND b.rental_completed = TRUE) ";
+
+    /**
+     * Создаёт пустые показатели для новой вещи одним INSERT (без предварительного SELECT, как при save).
+     *
+     * @param itemId Идентификатор вещи.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO item_stats (item_id, comment_count, booking_count, completed_rental_count) " +
+            "VALUES (:itemId, 0, 0, 0)", nativeQuery = true)
+    void createForItem(@Param("itemId") Long itemId);
+
+    /**
+     * Атомарно увеличивает счётчик комментариев вещи.
+     *
+     * @param itemId Идентификатор вещи.
+     * @return Количество обновлённых строк (0, если показатели вещи ещё не созданы).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ItemStats s SET s.commentCount = s.commentCount + 1 WHERE s.itemId = :itemId")
+    int incrementCommentCount(@Param("itemId") Long itemId);
+
+    /**
+     * Атомарно увеличивает счётчик одобренных бронирований вещи.
+     *
+     * @param itemId Идентификатор вещи.
+     * @return Количество обновлённых строк (0, если показатели вещи ещё не созданы).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ItemStats s SET s.bookingCount = s.bookingCount + 1 WHERE s.itemId = :itemId")
+    int incrementBookingCount(@Param("itemId") Long itemId);
+
+    /**
+     * Увеличивает счётчик одобренных бронирований вещи на несколько сразу (пакетное подтверждение).
+     *
+     * @param itemId Идентификатор вещи.
+     * @param count  Количество одобренных бронирований.
+     * @return Количество обновлённых строк (0, если показатели вещи ещё не созданы).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ItemStats s SET s.bookingCount = s.bookingCount + :count WHERE s.itemId = :itemId")
+    int addBookingCount(@Param("itemId") Long itemId, @Param("count") long count);
+
+    /**
+     * Учитывает завершённые аренды вещи: увеличивает счётчик и сдвигает дату последней аренды вперёд.
+     *
+     * @param itemId  Идентификатор вещи.
+     * @param count   Количество завершённых аренд.
+     * @param lastEnd Наибольшая дата окончания среди завершённых аренд.
+     * @return Количество обновлённых строк (0, если показатели вещи ещё не созданы).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ItemStats s " +
+            "SET s.completedRentalCount = s.completedRentalCount + :count, " +
+            "s.lastRentedAt = CASE WHEN s.lastRentedAt IS NULL OR s.lastRentedAt < :lastEnd " +
+            "THEN :lastEnd ELSE s.lastRentedAt END " +
+            "WHERE s.itemId = :itemId")
+    int addCompletedRentals(@Param("itemId") Long itemId,
+                            @Param("count") long count,
+                            @Param("lastEnd") LocalDateTime lastEnd);
+
+    /**
+     * Создаёт показатели для вещей, у которых их ещё нет, вычисляя значения по исходным таблицам.
+     * Используется для вещей, сохранённых до появления таблицы показателей, и при сверке.
+     *
+     * @param itemIds Идентификаторы вещей.
+     * @return Количество созданных строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO item_stats (item_id, comment_count, booking_count, completed_rental_count, last_rented_at) " +
+            "SELECT i.id, " + STATS_FROM_SOURCE +
+            "FROM items i " +
+            "WHERE i.id IN (:itemIds) " +
+            "AND NOT EXISTS (SELECT 1 FROM item_stats s WHERE s.item_id = i.id)", nativeQuery = true)
+    int createMissingFromSource(@Param("itemIds") List<Long> itemIds);
+
+    /**
+     * Пересчитывает существующие показатели вещей по исходным таблицам.
+     *
+     * @param itemIds Идентификаторы вещей.
+     * @return Количество обновлённых строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE item_stats " +
+            "SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.item_id = item_stats.item_id), " +
+            "booking_count = (SELECT COUNT(*) FROM bookings b " +
+            "WHERE b.item_id = item_stats.item_id AND b.status = 'APPROVED'), " +
+            "completed_rental_count = (SELECT COUNT(*) FROM bookings b " +
+            "WHERE b.item_id = item_stats.item_id AND b.rental_completed = TRUE), " +
+            "last_rented_at = (SELECT MAX(b.end_date) FROM bookings b " +
+            "WHERE b.item_id = item_stats.item_id AND b.rental_completed = TRUE) " +
+            "WHERE item_id IN (:itemIds)", nativeQuery = true)
+    int rebuildFromSource(@Param("itemIds") List<Long> itemIds);
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.logging;
+
+/**
+ * Вспомогательные методы для безопасного вывода пользовательских данных в лог.
+ */
+public final class LogFields {
+
+    /** Максимальная длина пользовательской строки в логе. */
+    public static final int MAX_LENGTH = 64;
+
+    private LogFields() {
+    }
+
+    /**
+     * Обрезает строку до {@link #MAX_LENGTH} символов и убирает переводы строк,
+     * чтобы длинные описания и комментарии не раздували лог и не ломали формат key=value.
+     *
+     * @param value Исходная строка.
+     * @return Обрезанная строка; null, если исходная строка null.
+     */
+    public static String truncate(String value) {
+        if (value == null) {
+            return null;
+        }
+        String singleLine = value.replace('\n', ' ').replace('\r', ' ');
+        if (singleLine.length() <= MAX_LENGTH) {
+            return singleLine;
+        }
+        return singleLine.substring(0, MAX_LENGTH) + "…(" + value.length() + ")";
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Пишет одно структурированное событие на HTTP-запрос вместо отдельных записей в контроллере и сервисе.
+ * <p>
+ * Успешные быстрые запросы выборочно логируются с долей {@code shareit.logging.request.sample-rate};
+ * для отдельных эндпоинтов долю можно переопределить в {@code shareit.logging.request.sample-rates}
+ * (формат {@code /items/search:0.05,/bookings/owner:0.1}). Ошибки и медленные запросы логируются всегда.
+ * На время обработки запроса идентификатор пользователя кладётся в MDC под ключом {@code userId}.
+ */
+@Slf4j
+@Component
+public class RequestLogFilter extends OncePerRequestFilter {
+
+    static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    static final String USER_ID_MDC_KEY = "userId";
+    private static final String UNMAPPED_ENDPOINT = "unmapped";
+
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+    private final long slowThresholdMs;
+
+    public RequestLogFilter(@Value("${shareit.logging.request.sample-rate:1.0}") double defaultSampleRate,
+                            @Value("${shareit.logging.request.sample-rates:}") String sampleRates,
+                            @Value("${shareit.logging.request.slow-threshold-ms:1000}") long slowThresholdMs) {
+        this.defaultSampleRate = defaultSampleRate;
+        this.sampleRates = parseSampleRates(sampleRates);
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long startNanos = System.nanoTime();
+        String userId = request.getHeader(USER_ID_HEADER);
+        if (userId != null) {
+            MDC.put(USER_ID_MDC_KEY, LogFields.truncate(userId));
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+            logRequest(request, response.getStatus(), durationMs);
+            MDC.remove(USER_ID_MDC_KEY);
+        }
+    }
+
+    private void logRequest(HttpServletRequest request, int status, long durationMs) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? UNMAPPED_ENDPOINT : pattern.toString();
+        boolean alwaysLog = status >= 400 || durationMs >= slowThresholdMs;
+        if (!alwaysLog && !isSampled(endpoint)) {
+            return;
+        }
+        log.info("event=http_request method={} endpoint={} status={} durationMs={}",
+                request.getMethod(), endpoint, status, durationMs);
+    }
+
+    boolean isSampled(String endpoint) {
+        double rate = sampleRates.getOrDefault(endpoint, defaultSampleRate);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static Map<String, Double> parseSampleRates(String value) {
+        Map<String, Double> rates = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return rates;
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Некорректная доля логирования эндпоинта: " + entry);
+            }
+            rates.put(entry.substring(0, separator).trim(), Double.parseDouble(entry.substring(separator + 1).trim()));
+        }
+        return rates;
+    }
+}
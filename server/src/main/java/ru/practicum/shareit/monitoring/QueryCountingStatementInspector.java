@@ -0,0 +1,17 @@
+package ru.practicum.shareit.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Считает SQL-операторы, подготавливаемые Hibernate, в статистике текущего потока.
+ * Подключается свойством {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ * Запросы, выполняемые в обход Hibernate (JdbcTemplate), не учитываются.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats.recordStatement(sql);
+        return sql;
+    }
+}
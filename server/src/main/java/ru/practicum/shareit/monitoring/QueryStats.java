@@ -0,0 +1,89 @@
+package ru.practicum.shareit.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Счётчики SQL-запросов текущего потока: количество выполненных операторов, время в JDBC
+ * и число повторов каждого текста запроса (для обнаружения N+1).
+ * <p>
+ * Заполняется {@link QueryCountingStatementInspector} и {@link QueryTimingSessionListener};
+ * сбор включается вызовом {@link #start()} и выключается {@link #stop()}.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long jdbcTimeNanos;
+    private final Map<String, Integer> statementRepeats = new HashMap<>();
+
+    private QueryStats() {
+    }
+
+    /**
+     * Начинает сбор статистики в текущем потоке, сбрасывая предыдущие значения.
+     *
+     * @return Объект статистики текущего потока.
+     */
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Завершает сбор статистики в текущем потоке.
+     *
+     * @return Собранная статистика или null, если сбор не был начат.
+     */
+    public static QueryStats stop() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void recordStatement(String sql) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statementCount++;
+            stats.statementRepeats.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static void recordJdbcTime(long nanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.jdbcTimeNanos += nanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getJdbcTimeNanos() {
+        return jdbcTimeNanos;
+    }
+
+    /**
+     * Возвращает наибольшее число выполнений одного и того же текста запроса.
+     *
+     * @return Максимальное число повторов; 0, если запросов не было.
+     */
+    public int getMaxRepeats() {
+        return statementRepeats.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+
+    /**
+     * Возвращает текст запроса, выполнявшегося чаще всего.
+     *
+     * @return Текст запроса или null, если запросов не было.
+     */
+    public String getMostRepeatedStatement() {
+        return statementRepeats.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+}
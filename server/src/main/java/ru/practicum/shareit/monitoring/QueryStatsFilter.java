@@ -0,0 +1,132 @@
+package ru.practicum.shareit.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Собирает количество SQL-операторов и время в JDBC для каждого HTTP-запроса.
+ * <p>
+ * Значения публикуются как метрики {@code shareit.http.db.statements} и {@code shareit.http.db.time}
+ * с тегами метода и шаблона пути. Если в запросе один и тот же оператор выполнен не менее
+ * {@code shareit.sql.n-plus-one.threshold} раз, пишется предупреждение о вероятной проблеме N+1.
+ * При {@code shareit.sql.query-count-header.enabled=true} в ответ добавляются отладочные заголовки
+ * {@code X-Query-Count} и {@code X-Query-Time-Ms}; для этого тело ответа буферизуется,
+ * поэтому в производственной среде заголовки выключены. У асинхронных (потоковых) ответов
+ * буфер передаётся клиенту по завершении обработки, а заголовки не добавляются.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+    private static final String UNMAPPED_ENDPOINT = "unmapped";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    private final int nPlusOneThreshold;
+
+    public QueryStatsFilter(ObjectProvider<MeterRegistry> meterRegistry,
+                            @Value("${shareit.sql.query-count-header.enabled:false}") boolean headerEnabled,
+                            @Value("${shareit.sql.n-plus-one.threshold:5}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.headerEnabled = headerEnabled;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats.start();
+        ContentCachingResponseWrapper cachingResponse = headerEnabled
+                ? new ContentCachingResponseWrapper(response)
+                : null;
+        try {
+            filterChain.doFilter(request, cachingResponse != null ? cachingResponse : response);
+        } finally {
+            QueryStats stats = QueryStats.stop();
+            if (stats != null) {
+                record(request, stats);
+            }
+            if (cachingResponse != null) {
+                if (stats != null && !cachingResponse.isCommitted()) {
+                    cachingResponse.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+                    cachingResponse.setHeader(QUERY_TIME_HEADER,
+                            String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.getJdbcTimeNanos())));
+                }
+                if (request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new CopyBodyOnCompleteListener(cachingResponse));
+                } else {
+                    cachingResponse.copyBodyToResponse();
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? UNMAPPED_ENDPOINT : pattern.toString();
+        String method = request.getMethod();
+
+        DistributionSummary.builder("shareit.http.db.statements")
+                .description("Количество SQL-операторов на HTTP-запрос")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        Timer.builder("shareit.http.db.time")
+                .description("Время выполнения SQL-операторов на HTTP-запрос")
+                .tags("method", method, "uri", endpoint)
+                .register(meterRegistry)
+                .record(stats.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+
+        if (stats.getMaxRepeats() >= nPlusOneThreshold) {
+            log.warn("event=n_plus_one method={} endpoint={} statements={} repeats={} sql=\"{}\"",
+                    method, endpoint, stats.getStatementCount(), stats.getMaxRepeats(),
+                    stats.getMostRepeatedStatement());
+        }
+    }
+
+    /**
+     * Передаёт клиенту буферизованное тело асинхронного ответа после завершения обработки.
+     */
+    private record CopyBodyOnCompleteListener(ContentCachingResponseWrapper response) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            response.copyBodyToResponse();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
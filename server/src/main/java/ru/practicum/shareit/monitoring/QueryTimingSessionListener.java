@@ -0,0 +1,34 @@
+package ru.practicum.shareit.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Учитывает время выполнения JDBC-операторов в статистике текущего потока.
+ * Hibernate создаёт отдельный экземпляр для каждой сессии (свойство {@code hibernate.session.events.auto}),
+ * поэтому поля экземпляра используются без синхронизации.
+ */
+public class QueryTimingSessionListener implements SessionEventListener {
+
+    private long statementStartNanos;
+    private long batchStartNanos;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        QueryStats.recordJdbcTime(System.nanoTime() - statementStartNanos);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        QueryStats.recordJdbcTime(System.nanoTime() - batchStartNanos);
+    }
+}
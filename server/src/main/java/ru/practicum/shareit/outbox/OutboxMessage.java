@@ -0,0 +1,22 @@
+package ru.practicum.shareit.outbox;
+
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие outbox в том виде, в котором оно передаётся подписчикам.
+ *
+ * @param id          Идентификатор события (монотонно растёт, может использоваться для дедупликации).
+ * @param type        Тип события.
+ * @param aggregateId Идентификатор агрегата.
+ * @param payload     Данные события в формате JSON.
+ * @param created     Время записи события.
+ */
+public record OutboxMessage(
+        Long id,
+        OutboxEventType type,
+        Long aggregateId,
+        String payload,
+        LocalDateTime created
+) {}
@@ -0,0 +1,193 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновый ретранслятор outbox: порциями забирает недоставленные события и передаёт их подписчикам.
+ * <p>
+ * Доставка «как минимум один раз»: событие отмечается доставленным в той же транзакции, в которой
+ * оно было выбрано, поэтому при сбое до фиксации оно будет доставлено повторно.
+ * Порядок в пределах агрегата сохраняется: после ошибки все последующие события того же агрегата
+ * пропускаются, пока не будет доставлено событие с ошибкой.
+ * <p>
+ * Повторная попытка откладывается на {@code shareit.outbox.relay.backoff-ms}, и задержка удваивается
+ * с каждой ошибкой до {@code max-backoff-ms}. После {@code max-attempts} ошибок событие исключается
+ * из очереди, чтобы одно недоставляемое событие не занимало каждый цикл ретранслятора.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 512;
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectProvider<OutboxSubscriber> subscribers;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final Duration retention;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       ObjectProvider<OutboxSubscriber> subscribers,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${shareit.outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${shareit.outbox.relay.max-attempts:10}") int maxAttempts,
+                       @Value("${shareit.outbox.relay.backoff-ms:1000}") long backoffMillis,
+                       @Value("${shareit.outbox.relay.max-backoff-ms:60000}") long maxBackoffMillis,
+                       @Value("${shareit.outbox.retention-hours:24}") long retentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.subscribers = subscribers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retention = Duration.ofHours(retentionHours);
+
+        this.publishedCounter = Counter.builder("shareit.outbox.published")
+                .description("Количество доставленных событий outbox")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("shareit.outbox.failed")
+                .description("Количество неудачных попыток доставки событий outbox")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shareit.outbox.batch")
+                .description("Время обработки одной порции событий outbox")
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.pending", pending, AtomicLong::get)
+                .description("Количество недоставленных событий outbox")
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.lag", lagMillis, value -> value.get() / 1000.0)
+                .description("Возраст самого старого недоставленного события outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Доставляет накопившиеся события, пока порции заполняются целиком и доставляются без ошибок.
+     */
+    @Scheduled(fixedDelayString = "${shareit.outbox.relay.interval-ms:500}")
+    public void relay() {
+        int published;
+        do {
+            published = batchTimer.record(() -> transactionTemplate.execute(status -> relayBatch()));
+        } while (published == batchSize);
+        updateBacklogMetrics();
+    }
+
+    /**
+     * Удаляет давно доставленные события.
+     */
+    @Scheduled(cron = "${shareit.outbox.cleanup.cron:0 0 * * * *}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deletePublishedBefore(LocalDateTime.now().minus(retention)));
+        log.debug("Удалено {} доставленных событий outbox.", deleted);
+    }
+
+    /**
+     * Обрабатывает одну порцию событий.
+     *
+     * @return Количество доставленных событий.
+     */
+    int relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxRepository.findPendingForUpdate(now, PageRequest.of(0, batchSize));
+        List<OutboxSubscriber> currentSubscribers = subscribers.orderedStream().toList();
+        Set<String> blockedAggregates = new HashSet<>();
+        int published = 0;
+
+        for (OutboxEvent event : batch) {
+            String aggregateKey = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blockedAggregates.contains(aggregateKey)) {
+                continue;
+            }
+            try {
+                dispatch(currentSubscribers, toMessage(event));
+                event.setPublishedAt(now);
+                publishedCounter.increment();
+                published++;
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                event.setAttempts(event.getAttempts() + 1);
+                event.setLastError(truncate(e.toString()));
+                if (event.getAttempts() >= maxAttempts) {
+                    log.error("Событие outbox ID {} ({}) не доставлено после {} попыток и исключено из очереди.",
+                            event.getId(), event.getEventType(), event.getAttempts(), e);
+                    event.setPublishedAt(now);
+                } else {
+                    Duration backoff = backoff(event.getAttempts());
+                    event.setNextAttemptAt(now.plus(backoff));
+                    log.warn("Ошибка доставки события outbox ID {} ({}), попытка {}, следующая через {} мс: {}",
+                            event.getId(), event.getEventType(), event.getAttempts(), backoff.toMillis(),
+                            e.getMessage());
+                    blockedAggregates.add(aggregateKey);
+                }
+            }
+        }
+
+        log.debug("Обработана порция outbox: выбрано {}, доставлено {}.", batch.size(), published);
+        return published;
+    }
+
+    /**
+     * Задержка перед следующей попыткой: удваивается с каждой ошибкой, но не превышает максимума.
+     */
+    private Duration backoff(int attempts) {
+        long factor = 1L << Math.min(attempts - 1, 30);
+        return Duration.ofMillis(Math.min(backoffMillis * factor, maxBackoffMillis));
+    }
+
+    private void dispatch(List<OutboxSubscriber> currentSubscribers, OutboxMessage message) {
+        for (OutboxSubscriber subscriber : currentSubscribers) {
+            if (subscriber.supports(message.type())) {
+                subscriber.handle(message);
+            }
+        }
+    }
+
+    private void updateBacklogMetrics() {
+        LocalDateTime oldest = outboxRepository.findOldestPendingCreated();
+        lagMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        pending.set(outboxRepository.countByPublishedAtIsNull());
+    }
+
+    private static OutboxMessage toMessage(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getEventType(), event.getAggregateId(),
+                event.getPayload(), event.getCreated());
+    }
+
+    private static String truncate(String value) {
+        return value.length() <= MAX_ERROR_LENGTH ? value : value.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.outbox;
+
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+
+/**
+ * Подписчик на события outbox (уведомления, инвалидация кэшей, поисковый индекс).
+ * Доставка выполняется «как минимум один раз», поэтому обработка должна быть идемпотентной.
+ * События одного агрегата приходят в порядке записи.
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * Сообщает, интересен ли подписчику данный тип события.
+     *
+     * @param type Тип события.
+     * @return true, если событие нужно передать в {@link #handle(OutboxMessage)}.
+     */
+    default boolean supports(OutboxEventType type) {
+        return true;
+    }
+
+    /**
+     * Обрабатывает событие. Исключение приводит к повторной доставке события и всех
+     * последующих событий того же агрегата.
+     *
+     * @param message Событие.
+     */
+    void handle(OutboxMessage message);
+}
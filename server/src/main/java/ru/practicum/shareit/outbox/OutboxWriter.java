@@ -0,0 +1,47 @@
+package ru.practicum.shareit.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Записывает доменные события в таблицу outbox в рамках текущей транзакции.
+ * Событие становится видимым ретранслятору только после фиксации изменения, которое его породило.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Добавляет событие в outbox.
+     *
+     * @param type        Тип события.
+     * @param aggregateId Идентификатор агрегата.
+     * @param payload     Данные события (сериализуются в JSON).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(OutboxEventType type, Long aggregateId, Object payload) {
+        OutboxEvent event = new OutboxEvent(null, type.getAggregateType(), aggregateId, type,
+                toJson(payload), LocalDateTime.now(), null, 0, null, null);
+        outboxRepository.save(event);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие outbox", e);
+        }
+    }
+}
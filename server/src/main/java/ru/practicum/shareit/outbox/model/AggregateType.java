@@ -0,0 +1,10 @@
+package ru.practicum.shareit.outbox.model;
+
+/**
+ * Тип агрегата, к которому относится событие. Порядок доставки гарантируется в пределах одного агрегата.
+ */
+public enum AggregateType {
+    BOOKING,
+    ITEM,
+    ITEM_REQUEST
+}
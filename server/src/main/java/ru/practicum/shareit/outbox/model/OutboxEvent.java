@@ -0,0 +1,64 @@
+package ru.practicum.shareit.outbox.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись transactional outbox: доменное событие, сохранённое в той же транзакции, что и изменение данных.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox")
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    /** Уникальный идентификатор события; задаёт порядок доставки. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** Тип агрегата. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false, length = 50)
+    private AggregateType aggregateType;
+
+    /** Идентификатор агрегата. */
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    /** Тип события. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private OutboxEventType eventType;
+
+    /** Данные события в формате JSON. */
+    @Column(name = "payload", nullable = false, length = 4096)
+    private String payload;
+
+    /** Дата и время записи события. */
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+    /** Дата и время успешной доставки подписчикам; null — событие ещё не доставлено. */
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+
+    /** Количество неудачных попыток доставки. */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    /** Текст последней ошибки доставки. */
+    @Column(name = "last_error", length = 512)
+    private String lastError;
+
+    /** Дата и время, раньше которых событие после ошибки не доставляется повторно; null — без задержки. */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+}
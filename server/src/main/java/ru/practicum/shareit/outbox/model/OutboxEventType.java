@@ -0,0 +1,25 @@
+package ru.practicum.shareit.outbox.model;
+
+/**
+ * Типы доменных событий, записываемых в outbox.
+ */
+public enum OutboxEventType {
+    BOOKING_CREATED(AggregateType.BOOKING),
+    BOOKING_APPROVED(AggregateType.BOOKING),
+    BOOKING_REJECTED(AggregateType.BOOKING),
+    BOOKING_CANCELED(AggregateType.BOOKING),
+    ITEM_CREATED(AggregateType.ITEM),
+    ITEM_UPDATED(AggregateType.ITEM),
+    COMMENT_CREATED(AggregateType.ITEM),
+    ITEM_REQUEST_CREATED(AggregateType.ITEM_REQUEST);
+
+    private final AggregateType aggregateType;
+
+    OutboxEventType(AggregateType aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+
+    public AggregateType getAggregateType() {
+        return aggregateType;
+    }
+}
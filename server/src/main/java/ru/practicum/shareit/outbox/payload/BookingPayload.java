@@ -0,0 +1,26 @@
+package ru.practicum.shareit.outbox.payload;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Данные событий бронирования.
+ */
+public record BookingPayload(
+        Long bookingId,
+        Long itemId,
+        Long bookerId,
+        Long ownerId,
+        BookingStatus status,
+        LocalDateTime start,
+        LocalDateTime end
+) {
+
+    /** Формирует данные события из сохранённого бронирования. */
+    public static BookingPayload of(Booking booking) {
+        return new BookingPayload(booking.getId(), booking.getItem().getId(), booking.getBooker().getId(),
+                booking.getOwnerId(), booking.getStatus(), booking.getStart(), booking.getEnd());
+    }
+}
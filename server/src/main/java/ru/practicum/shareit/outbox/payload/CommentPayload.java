@@ -0,0 +1,22 @@
+package ru.practicum.shareit.outbox.payload;
+
+import ru.practicum.shareit.comment.model.Comment;
+
+import java.time.LocalDateTime;
+
+/**
+ * Данные события добавления комментария.
+ */
+public record CommentPayload(
+        Long commentId,
+        Long itemId,
+        Long authorId,
+        LocalDateTime created
+) {
+
+    /** Формирует данные события из сохранённого комментария. */
+    public static CommentPayload of(Comment comment) {
+        return new CommentPayload(comment.getId(), comment.getItem().getId(), comment.getAuthor().getId(),
+                comment.getCreated());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.outbox.payload;
+
+import ru.practicum.shareit.item.model.Item;
+
+/**
+ * Данные событий создания и изменения вещи.
+ */
+public record ItemPayload(
+        Long itemId,
+        Long ownerId,
+        Boolean available,
+        Long requestId
+) {
+
+    /** Формирует данные события из сохранённой вещи. */
+    public static ItemPayload of(Item item) {
+        return new ItemPayload(item.getId(), item.getOwner().getId(), item.getAvailable(),
+                item.getRequest() == null ? null : item.getRequest().getId());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.outbox.payload;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+
+import java.time.LocalDateTime;
+
+/**
+ * Данные события создания запроса на вещь.
+ */
+public record ItemRequestPayload(
+        Long requestId,
+        Long requestorId,
+        String description,
+        LocalDateTime created
+) {
+
+    /** Формирует данные события из сохранённого запроса на вещь. */
+    public static ItemRequestPayload of(ItemRequest request) {
+        return new ItemRequestPayload(request.getId(), request.getRequestor().getId(), request.getDescription(),
+                request.getCreated());
+    }
+}
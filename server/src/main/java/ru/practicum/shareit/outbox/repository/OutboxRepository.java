@@ -0,0 +1,68 @@
+package ru.practicum.shareit.outbox.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий для работы с сущностью {@link OutboxEvent}.
+ */
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Возвращает очередную порцию недоставленных событий в порядке записи.
+     * Строки блокируются до конца транзакции, поэтому ретрансляторы на разных узлах
+     * не доставляют одну и ту же порцию одновременно и не нарушают порядок.
+     * Событие, повторная доставка которого отложена, пропускается вместе со всеми последующими
+     * событиями того же агрегата.
+     *
+     * @param now Текущее время.
+     * @param pageable Размер порции.
+     * @return Список событий.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e " +
+            "FROM OutboxEvent e " +
+            "WHERE e.publishedAt IS NULL " +
+            "AND NOT EXISTS (SELECT d.id FROM OutboxEvent d " +
+            "                WHERE d.publishedAt IS NULL " +
+            "                AND d.nextAttemptAt > :now " +
+            "                AND d.aggregateType = e.aggregateType " +
+            "                AND d.aggregateId = e.aggregateId " +
+            "                AND d.id <= e.id) " +
+            "ORDER BY e.id")
+    List<OutboxEvent> findPendingForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Возвращает время записи самого старого недоставленного события.
+     *
+     * @return Время записи или null, если очередь пуста.
+     */
+    @Query("SELECT MIN(e.created) FROM OutboxEvent e WHERE e.publishedAt IS NULL")
+    LocalDateTime findOldestPendingCreated();
+
+    /**
+     * Возвращает количество недоставленных событий.
+     *
+     * @return Количество событий.
+     */
+    long countByPublishedAtIsNull();
+
+    /**
+     * Удаляет доставленные события, опубликованные раньше указанного момента.
+     *
+     * @param threshold Граница хранения.
+     * @return Количество удалённых событий.
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :threshold")
+    int deletePublishedBefore(@Param("threshold") LocalDateTime threshold);
+}
@@ -3,8 +3,11 @@ package ru.practicum.shareit.request;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 
 import java.util.List;
 
@@ -19,6 +22,7 @@ public class ItemRequestController {
 
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
     private final ItemRequestService requestService;
+    private final ItemRequestFeed requestFeed;
 
     /**
      * Создаёт новый запрос на вещь от имени пользователя.
@@ -26,10 +30,7 @@ public class ItemRequestController {
     @PostMapping
     public ItemRequestResponseDto create(@RequestHeader(USER_ID_HEADER) Long requestorId,
                                          @RequestBody ItemRequestCreateDto dto) {
-        log.info("Вызван метод создания запроса на вещь: " +
-                        "инициатор (ID) = {}, " +
-                        "описание запроса = '{}'",
-                requestorId, dto.description());
+        log.debug("Вызван метод создания запроса на вещь: инициатор (ID) = {}", requestorId);
         return requestService.create(requestorId, dto);
     }
 
@@ -38,7 +39,7 @@ public class ItemRequestController {
      */
     @GetMapping
     public List<ItemRequestResponseDto> getAllByRequestor(@RequestHeader(USER_ID_HEADER) Long requestorId) {
-        log.info("Вызван метод получения всех запросов пользователя: инициатор (ID) = {}", requestorId);
+        log.debug("Вызван метод получения всех запросов пользователя: инициатор (ID) = {}", requestorId);
         return requestService.getAllByRequestor(requestorId);
     }
 
@@ -49,20 +50,37 @@ public class ItemRequestController {
     public List<ItemRequestResponseDto> getAll(@RequestHeader(USER_ID_HEADER) Long userId,
                                                @RequestParam(defaultValue = "0") int from,
                                                @RequestParam(defaultValue = "10") int size) {
-        log.info("Вызван метод получения всех запросов, кроме своих: " +
+        log.debug("Вызван метод получения всех запросов, кроме своих: " +
                         "пользователь (ID) = {}, " +
                         "пагинация: смещение = {}, размер страницы = {}",
                 userId, from, size);
         return requestService.getAll(userId, from, size);
     }
 
+    /**
+     * Длинный опрос ленты новых запросов других пользователей: ответ приходит, как только после
+     * курсора появятся запросы, либо по истечении времени ожидания с пустым списком.
+     */
+    @GetMapping("/feed")
+    public DeferredResult<ItemRequestFeedDto> feed(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(defaultValue = "25000") long waitMs,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Вызван метод опроса ленты новых запросов: " +
+                        "пользователь (ID) = {}, " +
+                        "курсор = {}, " +
+                        "ожидание = {} мс",
+                userId, after, waitMs);
+        return requestFeed.poll(userId, after, waitMs, limit);
+    }
+
     /**
      * Получает запрос по его ID.
      */
     @GetMapping("/{requestId}")
     public ItemRequestResponseDto getById(@RequestHeader(USER_ID_HEADER) Long userId,
                                           @PathVariable Long requestId) {
-        log.info("Вызван метод получения запроса по ID: " +
+        log.debug("Вызван метод получения запроса по ID: " +
                         "пользователь (ID) = {}, " +
                         "ID запрашиваемого запроса = {}",
                 userId, requestId);
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -9,8 +10,12 @@ import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.payload.ItemRequestPayload;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.feed.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -35,14 +40,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRequestRepository requestRepository;
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
+    private final OutboxWriter outboxWriter;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Создаёт новый запрос на вещь от имени пользователя.
+     * После фиксации транзакции запрос попадает в ленту новых запросов.
      */
     @Transactional
     @Override
     public ItemRequestResponseDto create(Long requestorId, ItemRequestCreateDto requestDto) {
-        log.info("Создание запроса на вещь: инициатор (ID) = {}, описание = '{}'", requestorId, requestDto.description());
+        log.debug("Создание запроса на вещь: инициатор (ID) = {}", requestorId);
 
         User requestor = findUserById(requestorId);
         ItemRequest request = ItemRequestMapper.toEntity(requestDto);
@@ -50,8 +58,12 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         request.setCreated(LocalDateTime.now());
 
         ItemRequest savedRequest = requestRepository.save(request);
+        outboxWriter.append(OutboxEventType.ITEM_REQUEST_CREATED, savedRequest.getId(),
+                ItemRequestPayload.of(savedRequest));
+        ItemRequestResponseDto result = ItemRequestMapper.toDto(savedRequest, Collections.emptyMap());
+        eventPublisher.publishEvent(new ItemRequestCreatedEvent(requestorId, result));
         log.info("Запрос успешно создан: ID = {}, инициатор = {}", savedRequest.getId(), requestorId);
-        return ItemRequestMapper.toDto(savedRequest, Collections.emptyMap());
+        return result;
     }
 
     /**
@@ -59,17 +71,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
      */
     @Override
     public List<ItemRequestResponseDto> getAllByRequestor(Long requestorId) {
-        log.info("Получение всех запросов пользователя: инициатор (ID) = {}", requestorId);
+        log.debug("Получение всех запросов пользователя: инициатор (ID) = {}", requestorId);
 
         findUserById(requestorId);
         List<ItemRequest> requests = requestRepository.findAllByRequestorIdOrderByCreatedDesc(requestorId);
 
         if (requests.isEmpty()) {
-            log.info("У пользователя (ID {}) нет активных запросов.", requestorId);
+            log.debug("У пользователя (ID {}) нет активных запросов.", requestorId);
             return Collections.emptyList();
         }
 
-        log.info("Найдено {} запросов для пользователя (ID {}).", requests.size(), requestorId);
+        log.debug("Найдено {} запросов для пользователя (ID {}).", requests.size(), requestorId);
         return mapToDtoWithItems(requests);
     }
 
@@ -78,7 +90,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
      */
     @Override
     public List<ItemRequestResponseDto> getAll(Long userId, int from, int size) {
-        log.info("Получение всех запросов других пользователей: " +
+        log.debug("Получение всех запросов других пользователей: " +
                         "пользователь (ID) = {}, " +
                         "пагинация: смещение = {}, размер страницы = {}",
                 userId, from, size);
@@ -88,11 +100,11 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         List<ItemRequest> requests = requestRepository.findAllByRequestorIdNotOrderByCreatedDesc(userId, page);
 
         if (requests.isEmpty()) {
-            log.info("Нет доступных запросов для пользователя (ID {}).", userId);
+            log.debug("Нет доступных запросов для пользователя (ID {}).", userId);
             return Collections.emptyList();
         }
 
-        log.info("Найдено {} запросов, доступных пользователю (ID {}).", requests.size(), userId);
+        log.debug("Найдено {} запросов, доступных пользователю (ID {}).", requests.size(), userId);
         return mapToDtoWithItems(requests);
     }
 
@@ -101,13 +113,12 @@ public class ItemRequestServiceImpl implements ItemRequestService {
      */
     @Override
     public ItemRequestResponseDto getById(Long userId, Long requestId) {
-        log.info("Получение запроса по ID: пользователь (ID) = {}, ID запроса = {}", userId, requestId);
+        log.debug("Получение запроса по ID: пользователь (ID) = {}, ID запроса = {}", userId, requestId);
 
         findUserById(userId);
         ItemRequest request = findRequestById(requestId);
 
-        log.info("Запрос найден: ID = {}, описание = '{}', инициатор = {}",
-                request.getId(), request.getDescription(), request.getRequestor().getId());
+        log.debug("Запрос найден: ID = {}, инициатор = {}", request.getId(), request.getRequestor().getId());
         return mapToDtoWithItems(List.of(request)).getFirst();
     }
 
@@ -126,7 +137,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private User findUserById(Long userId) {
         return userRepository.findById(userId)
                 .orElseThrow(() -> {
-                    log.warn("Пользователь с ID {} не найден.", userId);
+                    log.debug("Пользователь с ID {} не найден.", userId);
                     return new NotFoundException("Пользователь ID " + userId + " не найден.");
                 });
     }
@@ -137,7 +148,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private ItemRequest findRequestById(Long requestId) {
         return requestRepository.findById(requestId)
                 .orElseThrow(() -> {
-                    log.warn("Запрос с ID {} не найден.", requestId);
+                    log.debug("Запрос с ID {} не найден.", requestId);
                     return new NotFoundException("Запрос ID " + requestId + " не найден.");
                 });
     }
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.request.dto;
+
+import java.util.List;
+
+/**
+ * DTO порции ленты новых запросов на вещи.
+ *
+ * @param cursor   Курсор, который нужно передать в следующем опросе ленты.
+ * @param resync   Признак того, что часть запросов после переданного курсора уже недоступна в ленте
+ *                 и список нужно перечитать через GET /requests/all.
+ * @param requests Новые запросы других пользователей в порядке создания.
+ */
+public record ItemRequestFeedDto(
+        Long cursor,
+        boolean resync,
+        List<ItemRequestResponseDto> requests
+) {}
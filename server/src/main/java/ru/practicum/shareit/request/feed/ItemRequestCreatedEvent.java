@@ -0,0 +1,15 @@
+package ru.practicum.shareit.request.feed;
+
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+
+/**
+ * Событие создания запроса на вещь внутри приложения. Добавляется в ленту новых запросов
+ * после фиксации транзакции.
+ *
+ * @param requestorId ID автора запроса.
+ * @param request     Созданный запрос.
+ */
+public record ItemRequestCreatedEvent(
+        Long requestorId,
+        ItemRequestResponseDto request
+) {}
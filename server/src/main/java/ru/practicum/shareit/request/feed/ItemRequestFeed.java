@@ -0,0 +1,250 @@
+package ru.practicum.shareit.request.feed;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.cache.ClusterMessageListener;
+import ru.practicum.shareit.cache.InvalidationBus;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Лента новых запросов на вещи для длинного опроса (GET /requests/feed).
+ * <p>
+ * Последние созданные запросы хранятся в кольцевом буфере в памяти, поэтому опрос ленты
+ * не обращается к базе данных. Курсор — порядковый номер записи в ленте: номера выдаются
+ * в порядке фиксации транзакций и начинаются с наибольшего ID запроса на момент первого обращения к ленте,
+ * так что курсор, полученный до перезапуска, не опережает новую ленту. Если запросы после
+ * курсора уже вытеснены из буфера, клиент получает признак {@code resync}.
+ * <p>
+ * Запрос создаётся на любом узле сервера, поэтому событие создания отправляется и другим узлам
+ * через {@link InvalidationBus} и попадает в ленту каждого узла. Курсоры при этом нумеруются
+ * каждым узлом по-своему, поэтому шлюз направляет все опросы ленты на один экземпляр
+ * (см. {@code BalancingClientHttpRequestFactory} шлюза); при его отказе опросы переходят на другой,
+ * и курсор ведёт себя так же, как после перезапуска. После восстановления связи с шиной все
+ * курсоры узла получают признак {@code resync}: события других узлов могли быть потеряны.
+ */
+@Slf4j
+@Component
+public class ItemRequestFeed implements ClusterMessageListener {
+
+    static final String TOPIC = "item-request";
+
+    private final ItemRequestRepository requestRepository;
+    private final InvalidationBus bus;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final long maxWaitMillis;
+    private final int maxWaiters;
+
+    private final Object lock = new Object();
+    private final Entry[] ring;
+    private final List<Waiter> waiters = new ArrayList<>();
+    /** Номер последней добавленной записи. */
+    private long headSeq;
+    /** Номер, с которого лента начата. */
+    private long startSeq;
+    private boolean started;
+
+    public ItemRequestFeed(ItemRequestRepository requestRepository,
+                           InvalidationBus bus,
+                           ObjectMapper objectMapper,
+                           @Value("${shareit.request.feed.capacity:1024}") int capacity,
+                           @Value("${shareit.request.feed.max-wait-ms:30000}") long maxWaitMillis,
+                           @Value("${shareit.request.feed.max-waiters:10000}") int maxWaiters) {
+        this.requestRepository = requestRepository;
+        this.bus = bus;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxWaiters = maxWaiters;
+        this.ring = new Entry[capacity];
+    }
+
+    /**
+     * Начинает ленту при первом обращении, а не при запуске приложения, чтобы старт
+     * не требовал запроса к базе данных. Вызывается под блокировкой ленты.
+     */
+    private void ensureStarted() {
+        if (started) {
+            return;
+        }
+        startSeq = requestRepository.findMaxId();
+        headSeq = startSeq;
+        started = true;
+        log.debug("Лента запросов начата с курсора {}.", startSeq);
+    }
+
+    /**
+     * Добавляет созданный запрос в ленту и отвечает ожидающим опросам.
+     *
+     * @param event Событие создания запроса.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemRequestCreated(ItemRequestCreatedEvent event) {
+        synchronized (lock) {
+            ensureStarted();
+            long seq = ++headSeq;
+            ring[index(seq)] = new Entry(seq, event.requestorId(), event.request());
+            answerWaiters();
+        }
+    }
+
+    /**
+     * Отправляет событие создания запроса другим узлам в транзакции, в которой запрос создан.
+     *
+     * @param event Событие создания запроса.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publishToCluster(ItemRequestCreatedEvent event) {
+        try {
+            bus.publish(TOPIC, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие создания запроса", e);
+        }
+    }
+
+    @Override
+    public String topic() {
+        return TOPIC;
+    }
+
+    /**
+     * Добавляет в ленту запрос, созданный на другом узле.
+     */
+    @Override
+    public void onClusterMessage(String payload) {
+        try {
+            onItemRequestCreated(objectMapper.readValue(payload, ItemRequestCreatedEvent.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Некорректное событие создания запроса: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Начинает ленту заново с текущего курсора: всем клиентам с более ранним курсором
+     * (в том числе ожидающим) отвечается признаком {@code resync}.
+     */
+    @Override
+    public void onResync() {
+        synchronized (lock) {
+            if (!started) {
+                return;
+            }
+            startSeq = ++headSeq;
+            answerWaiters();
+        }
+    }
+
+    /**
+     * Возвращает новые запросы других пользователей после курсора. Если новых запросов нет,
+     * ответ откладывается до появления запроса или истечения времени ожидания.
+     * Без курсора сразу возвращается текущий курсор ленты.
+     *
+     * @param userId ID пользователя; его собственные запросы в ленту не попадают.
+     * @param after  Курсор из предыдущего ответа (может быть null).
+     * @param waitMs Время ожидания новых запросов, мс (ограничено настройкой).
+     * @param limit  Наибольшее количество запросов в ответе.
+     * @return Отложенный ответ.
+     */
+    public DeferredResult<ItemRequestFeedDto> poll(Long userId, Long after, long waitMs, int limit) {
+        long timeout = Math.min(waitMs, maxWaitMillis);
+        DeferredResult<ItemRequestFeedDto> result = new DeferredResult<>(timeout);
+
+        synchronized (lock) {
+            ensureStarted();
+            if (after == null) {
+                result.setResult(new ItemRequestFeedDto(headSeq, false, List.of()));
+                return result;
+            }
+
+            ItemRequestFeedDto batch = read(userId, after, limit);
+            if (!batch.requests().isEmpty() || batch.resync() || timeout <= 0 || waiters.size() >= maxWaiters) {
+                result.setResult(batch);
+                return result;
+            }
+
+            Waiter waiter = new Waiter(userId, batch.cursor(), limit, result);
+            waiters.add(waiter);
+            result.onTimeout(() -> {
+                remove(waiter);
+                result.setResult(new ItemRequestFeedDto(waiter.after(), false, List.of()));
+            });
+            result.onCompletion(() -> remove(waiter));
+            result.onError(e -> remove(waiter));
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает количество ожидающих опросов.
+     */
+    int waiterCount() {
+        synchronized (lock) {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * Читает записи после курсора. Вызывается под блокировкой ленты.
+     * Курсор ответа продвигается и через собственные запросы пользователя, чтобы они не
+     * возвращались при следующем опросе.
+     */
+    private ItemRequestFeedDto read(Long userId, long after, int limit) {
+        if (after > headSeq) {
+            return new ItemRequestFeedDto(headSeq, true, List.of());
+        }
+
+        long oldestSeq = Math.max(headSeq - capacity, startSeq) + 1;
+        boolean resync = after < oldestSeq - 1;
+        long cursor = Math.max(after, oldestSeq - 1);
+
+        List<ItemRequestResponseDto> requests = new ArrayList<>();
+        while (cursor < headSeq && requests.size() < limit) {
+            Entry entry = ring[index(++cursor)];
+            if (!entry.requestorId().equals(userId)) {
+                requests.add(entry.request());
+            }
+        }
+        return new ItemRequestFeedDto(cursor, resync, requests);
+    }
+
+    /**
+     * Отвечает ожидающим опросам, для которых появились записи. Вызывается под блокировкой ленты.
+     */
+    private void answerWaiters() {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            ItemRequestFeedDto batch = read(waiter.userId(), waiter.after(), waiter.limit());
+            if (!batch.requests().isEmpty() || batch.resync()) {
+                iterator.remove();
+                waiter.result().setResult(batch);
+            }
+        }
+    }
+
+    private void remove(Waiter waiter) {
+        synchronized (lock) {
+            waiters.remove(waiter);
+        }
+    }
+
+    private int index(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private record Entry(long seq, Long requestorId, ItemRequestResponseDto request) {}
+
+    private record Waiter(Long userId, long after, int limit, DeferredResult<ItemRequestFeedDto> result) {}
+}
@@ -2,6 +2,7 @@ package ru.practicum.shareit.request.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.List;
@@ -27,4 +28,12 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
      * @return Список запросов.
      */
     List<ItemRequest> findAllByRequestorIdNotOrderByCreatedDesc(Long requestorId, Pageable pageable);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает наибольший идентификатор запроса.
+     *
+     * @return Наибольший ID или 0, если запросов нет.
+     */
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM ItemRequest r")
+    long findMaxId();
+}
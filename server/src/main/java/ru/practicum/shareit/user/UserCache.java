@@ -0,0 +1,18 @@
+package ru.practicum.shareit.user;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.cache.EntityCache;
+import ru.practicum.shareit.cache.EntityType;
+import ru.practicum.shareit.user.dto.UserDto;
+
+/**
+ * Кэш пользователей по ID (GET /users/{userId}); сбрасывается при изменении пользователя на любом узле.
+ */
+@Component
+public class UserCache extends EntityCache<UserDto> {
+
+    public UserCache(@Value("${shareit.cache.users.max-size:10000}") int maxSize) {
+        super(EntityType.USER, maxSize);
+    }
+}
@@ -1,10 +1,15 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -16,14 +21,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Создаёт нового пользователя.
      */
     @PostMapping
     public UserDto create(@RequestBody UserDto userDto) {
-        log.info("Вызван метод создания пользователя: " +
+        log.debug("Вызван метод создания пользователя: " +
                         "имя = '{}', " +
                         "email = '{}'",
                 userDto.name(), userDto.email());
@@ -36,7 +44,7 @@ public class UserController {
     @PatchMapping("/{userId}")
     public UserDto update(@PathVariable Long userId,
                           @RequestBody UserDto userDto) {
-        log.info("Вызван метод обновления пользователя: " +
+        log.debug("Вызван метод обновления пользователя: " +
                         "ID пользователя = {}, " +
                         "новые данные — имя = '{}', " +
                         "email = '{}'",
@@ -49,17 +57,44 @@ public class UserController {
      */
     @GetMapping("/{userId}")
     public UserDto getById(@PathVariable Long userId) {
-        log.info("Вызван метод получения пользователя по ID: ID = {}", userId);
+        log.debug("Вызван метод получения пользователя по ID: ID = {}", userId);
         return userService.getById(userId);
     }
 
     /**
-     * Получает список всех пользователей.
+     * Получает порцию пользователей в порядке возрастания ID.
+     * Для следующей порции в afterId передаётся ID последнего полученного пользователя.
      */
     @GetMapping
-    public List<UserDto> getAll() {
-        log.info("Вызван метод получения всех пользователей");
-        return userService.getAll();
+    public List<UserDto> getAll(@RequestParam(defaultValue = "0") Long afterId,
+                                @RequestParam(defaultValue = "100") int size) {
+        log.debug("Вызван метод получения пользователей: " +
+                        "после ID = {}, " +
+                        "размер порции = {}",
+                afterId, size);
+        return userService.getAll(afterId, size);
+    }
+
+    /**
+     * Передаёт всех пользователей потоком в формате NDJSON (один JSON-объект на строку).
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public StreamingResponseBody streamAll() {
+        log.debug("Вызван метод потоковой выгрузки всех пользователей");
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                userService.streamAll(user -> {
+                    try {
+                        generator.writeObject(user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
     }
 
     /**
@@ -67,7 +102,7 @@ public class UserController {
      */
     @DeleteMapping("/{userId}")
     public void delete(@PathVariable Long userId) {
-        log.info("Вызван метод удаления пользователя: ID = {}", userId);
+        log.debug("Вызван метод удаления пользователя: ID = {}", userId);
         userService.delete(userId);
     }
 }
\ No newline at end of file
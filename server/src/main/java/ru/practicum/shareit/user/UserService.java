@@ -4,6 +4,7 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
     @Transactional
@@ -11,7 +12,9 @@ public interface UserService {
 
     UserDto getById(Long userId);
 
-    List<UserDto> getAll();
+    List<UserDto> getAll(Long afterId, int size);
+
+    long streamAll(Consumer<UserDto> consumer);
 
     @Transactional
     UserDto update(Long userId, UserDto userDto);
@@ -2,18 +2,25 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityChangedEvent;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Имплементация сервиса для работы с сущностью {@link User}.
+ * Пользователи по ID отдаются из {@link UserCache}; изменения рассылаются кэшам всех узлов.
  */
 @Slf4j
 @Service
@@ -22,6 +29,8 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -29,7 +38,7 @@ public class UserServiceImpl implements UserService {
         User user = UserMapper.toEntity(userDto);
         try {
             User savedUser = userRepository.save(user);
-            log.info("Создан пользователь: {}", savedUser.getEmail());
+            log.info("Создан пользователь с ID {}", savedUser.getId());
             return UserMapper.toDto(savedUser);
         } catch (DataIntegrityViolationException e) {
             log.error("Ошибка при создании пользователя с email {}: {}", userDto.email(), e.getMessage());
@@ -40,18 +49,39 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDto getById(Long userId) {
-        User user = findUserById(userId);
-        log.info("Получен пользователь с ID: {}", userId);
-        return UserMapper.toDto(user);
+        UserDto user = userCache.get(userId, () -> UserMapper.toDto(findUserById(userId)));
+        log.debug("Получен пользователь с ID: {}", userId);
+        return user;
     }
 
+    /**
+     * Возвращает порцию пользователей, следующих за указанным ID.
+     * Следующая порция запрашивается с ID последнего полученного пользователя.
+     */
     @Override
-    public List<UserDto> getAll() {
-        List<User> users = userRepository.findAll();
-        log.info("Получен список всех пользователей. Количество: {}", users.size());
+    public List<UserDto> getAll(Long afterId, int size) {
+        List<User> users = userRepository.findAllByIdGreaterThanOrderById(afterId, PageRequest.of(0, size));
+        log.debug("Получена порция пользователей после ID {}. Количество: {}", afterId, users.size());
         return UserMapper.toDto(users);
     }
 
+    /**
+     * Передаёт всех пользователей получателю по мере чтения из курсора, не накапливая их в памяти.
+     */
+    @Override
+    public long streamAll(Consumer<UserDto> consumer) {
+        long count = 0;
+        try (Stream<UserDto> users = userRepository.streamAllAsDto()) {
+            Iterator<UserDto> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        log.debug("Передан поток всех пользователей. Количество: {}", count);
+        return count;
+    }
+
     @Transactional
     @Override
     public UserDto update(Long userId, UserDto userDto) {
@@ -66,7 +96,8 @@ public class UserServiceImpl implements UserService {
 
         try {
             User updatedUser = userRepository.save(existingUser);
-            log.info("Обновлен пользователь с ID {}: {}", userId, updatedUser.getEmail());
+            eventPublisher.publishEvent(EntityChangedEvent.user(userId));
+            log.info("Обновлен пользователь с ID {}", userId);
             return UserMapper.toDto(updatedUser);
         } catch (DataIntegrityViolationException e) {
             log.error("Ошибка при обновлении пользователя с ID {}: Email уже существует", userId);
@@ -78,6 +109,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void delete(Long userId) {
         userRepository.deleteById(userId);
+        eventPublisher.publishEvent(EntityChangedEvent.user(userId));
         log.info("Удален пользователь с ID: {}", userId);
     }
 
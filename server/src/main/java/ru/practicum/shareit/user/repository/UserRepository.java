@@ -1,10 +1,39 @@
 package ru.practicum.shareit.user.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью {@link User}.
  */
 public interface UserRepository extends JpaRepository<User, Long> {
-}
\ No newline at end of file
+
+    /**
+     * Возвращает порцию пользователей с идентификатором больше указанного, в порядке возрастания ID
+     * (постраничный обход по ключу без OFFSET).
+     *
+     * @param afterId  Последний полученный идентификатор.
+     * @param pageable Размер порции.
+     * @return Список пользователей.
+     */
+    List<User> findAllByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    /**
+     * Читает всех пользователей курсором в порядке возрастания ID. Результат — DTO, а не сущности,
+     * поэтому контекст персистентности не растёт. Поток нужно закрыть и читать внутри транзакции.
+     *
+     * @return Поток пользователей.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) FROM User u ORDER BY u.id")
+    Stream<UserDto> streamAllAsDto();
+}
@@ -0,0 +1,91 @@
+/**
+ * Исходная схема базы данных ShareIt (PostgreSQL).
+ * Дальнейшие изменения — только новыми версиями миграций; применённые файлы не редактируются.
+ * Индексы на заполненных таблицах создаются отдельными миграциями с CREATE INDEX CONCURRENTLY
+ * (см. V2__concurrent_indexes.sql).
+ */
+
+-- Таблица пользователей (users)
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    email VARCHAR(512) NOT NULL,
+    CONSTRAINT UQ_USER_EMAIL UNIQUE (email)
+);
+
+-- Таблица запросов на вещи (requests)
+CREATE TABLE requests (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description VARCHAR(512) NOT NULL,
+    requestor_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- Таблица вещей (items)
+CREATE TABLE items (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    description VARCHAR(512) NOT NULL,
+    is_available BOOLEAN NOT NULL,
+    owner_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    request_id BIGINT REFERENCES requests (id) ON DELETE SET NULL,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Таблица бронирований (bookings), секционирована по end_date.
+-- Секционированная таблица не может иметь identity-столбец (PostgreSQL 16), поэтому ID выдаёт
+-- последовательность, а первичный ключ включает ключ секционирования.
+-- Архивную и месячные секции создаёт BookingPartitionManager, до этого строки попадают в секцию по умолчанию.
+CREATE SEQUENCE booking_id_seq;
+
+CREATE TABLE bookings (
+    id BIGINT NOT NULL DEFAULT nextval('booking_id_seq'),
+    start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    item_id BIGINT NOT NULL REFERENCES items (id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    status VARCHAR(50) NOT NULL, -- WAITING, APPROVED, REJECTED, CANCELED
+    rental_completed BOOLEAN NOT NULL DEFAULT FALSE,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, end_date)
+) PARTITION BY RANGE (end_date);
+
+ALTER SEQUENCE booking_id_seq OWNED BY bookings.id;
+
+CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+-- Индексы секционированной таблицы создаются на каждой секции; CONCURRENTLY для неё недоступен
+CREATE INDEX IX_BOOKINGS_PENDING_COMPLETION ON bookings (status, rental_completed, end_date);
+CREATE INDEX IX_BOOKINGS_BOOKER_START ON bookings (booker_id, start_date DESC);
+CREATE INDEX IX_BOOKINGS_ITEM_START ON bookings (item_id, start_date);
+
+-- Таблица комментариев (comments)
+CREATE TABLE comments (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text VARCHAR(512) NOT NULL,
+    item_id BIGINT NOT NULL REFERENCES items (id) ON DELETE CASCADE,
+    author_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- Агрегированные показатели вещей (item_stats), поддерживаются при записи
+CREATE TABLE item_stats (
+    item_id BIGINT PRIMARY KEY REFERENCES items (id) ON DELETE CASCADE,
+    comment_count BIGINT NOT NULL DEFAULT 0,
+    booking_count BIGINT NOT NULL DEFAULT 0,
+    completed_rental_count BIGINT NOT NULL DEFAULT 0,
+    last_rented_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- Таблица исходящих доменных событий (outbox)
+CREATE TABLE outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload VARCHAR(4096) NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITHOUT TIME ZONE,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(512)
+);
@@ -0,0 +1,18 @@
+/**
+ * Индексы, создаваемые без блокировки записи в таблицу (CREATE INDEX CONCURRENTLY).
+ * CONCURRENTLY не выполняется внутри транзакции, поэтому миграция помечена
+ * executeInTransaction=false (см. V2__concurrent_indexes.sql.conf).
+ * Если построение прервалось, в базе остаётся индекс в состоянии INVALID:
+ * перед повтором миграции его нужно удалить (DROP INDEX CONCURRENTLY).
+ */
+
+-- Последние комментарии вещи выбираются по (item_id, created)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IX_COMMENTS_ITEM_CREATED ON comments (item_id, created DESC, id DESC);
+
+-- Неотправленные события outbox выбираются по (published_at, id)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IX_OUTBOX_PENDING ON outbox (published_at, id);
+
+-- Вещи владельца и запросы пользователя
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IX_ITEMS_OWNER ON items (owner_id, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IX_ITEMS_REQUEST ON items (request_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS IX_REQUESTS_REQUESTOR_CREATED ON requests (requestor_id, created DESC);
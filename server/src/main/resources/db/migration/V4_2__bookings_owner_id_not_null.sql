@@ -0,0 +1,15 @@
+/**
+ * Ограничение NOT NULL для owner_id без долгой блокировки записи в bookings.
+ * CHECK NOT VALID добавляется мгновенно, VALIDATE проверяет строки под блокировкой, не мешающей
+ * записи, а SET NOT NULL при проверенном CHECK не читает таблицу повторно. Миграция выполняется
+ * вне транзакции (см. V4_2__bookings_owner_id_not_null.sql.conf), чтобы блокировка ALTER TABLE
+ * не удерживалась на время проверки.
+ */
+
+ALTER TABLE bookings ADD CONSTRAINT bookings_owner_id_not_null CHECK (owner_id IS NOT NULL) NOT VALID;
+
+ALTER TABLE bookings VALIDATE CONSTRAINT bookings_owner_id_not_null;
+
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+
+ALTER TABLE bookings DROP CONSTRAINT bookings_owner_id_not_null;
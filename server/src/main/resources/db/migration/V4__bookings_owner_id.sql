@@ -0,0 +1,13 @@
+/**
+ * Копия владельца вещи в бронированиях: выборки бронирований владельца идут по индексу
+ * (owner_id, start_date DESC, id DESC) в порядке сортировки, без соединения с items.
+ * Владелец вещи не меняется, поэтому значение заполняется один раз при создании бронирования.
+ *
+ * Изменение разбито на шаги, чтобы не блокировать запись в bookings на время заполнения:
+ * столбец без ограничения NOT NULL (здесь), заполнение порциями (V4_1), ограничение NOT NULL
+ * через CHECK NOT VALID и VALIDATE (V4_2) и индекс по секциям с CONCURRENTLY (V4_3).
+ * Внешний ключ создаётся вместе с пустым столбцом: NOT VALID для внешних ключей секционированных
+ * таблиц PostgreSQL не поддерживает, а проверка пустого столбца не находит строк для сверки с users.
+ */
+
+ALTER TABLE bookings ADD COLUMN owner_id BIGINT REFERENCES users (id) ON DELETE CASCADE;
@@ -0,0 +1,18 @@
+/**
+ * Ключи идемпотентности POST-запросов и сохранённые ответы на них (см. IdempotencyFilter).
+ * Ключ уникален в пределах пользователя; user_id = 0 — запросы без пользователя (регистрация).
+ */
+
+CREATE TABLE idempotency_keys (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response_status INTEGER, -- NULL, пока запрос выполняется
+    response_content_type VARCHAR(255),
+    response_body VARCHAR(8192),
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT UQ_IDEMPOTENCY_KEYS_USER_KEY UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX IX_IDEMPOTENCY_KEYS_CREATED ON idempotency_keys (created);
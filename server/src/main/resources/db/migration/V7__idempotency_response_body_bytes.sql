@@ -0,0 +1,10 @@
+/**
+ * Тело сохранённого ответа хранится как есть (bytea) и без ограничения длины: ответы в Smile
+ * двоичные и при сохранении в VARCHAR искажались. Такие ответы восстановить нельзя, поэтому их
+ * ключи удаляются. Таблица небольшая (ключи хранятся сутки), и смена типа её переписывает.
+ */
+
+DELETE FROM idempotency_keys WHERE response_content_type LIKE 'application/x-jackson-smile%';
+
+ALTER TABLE idempotency_keys
+    ALTER COLUMN response_body TYPE BYTEA USING convert_to(response_body, 'UTF8');
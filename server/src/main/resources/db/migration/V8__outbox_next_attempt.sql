@@ -0,0 +1,6 @@
+/**
+ * Время, раньше которого событие outbox после ошибки не доставляется повторно. Столбец без
+ * значения по умолчанию добавляется без перезаписи таблицы.
+ */
+
+ALTER TABLE outbox ADD COLUMN next_attempt_at TIMESTAMP WITHOUT TIME ZONE;
@@ -1,6 +1,7 @@
 /**
- * Файл для создания структуры базы данных ShareIt.
- * Выполняется автоматически при старте Spring Boot приложения.
+ * Файл для создания структуры базы данных ShareIt в тестах (H2, профиль test).
+ * Схема PostgreSQL задаётся версионированными миграциями Flyway (db/migration);
+ * изменения схемы вносятся в обе.
  */
 
 -- Таблица пользователей (users)
@@ -26,17 +27,22 @@ CREATE TABLE IF NOT EXISTS items (
     description VARCHAR(512) NOT NULL,
     is_available BOOLEAN NOT NULL,
     owner_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
-    request_id BIGINT REFERENCES requests (id) ON DELETE SET NULL -- Может быть NULL
+    request_id BIGINT REFERENCES requests (id) ON DELETE SET NULL, -- Может быть NULL
+    version BIGINT NOT NULL DEFAULT 0 -- Версия для оптимистической блокировки
 );
 
 -- Таблица бронирований (bookings)
+-- В PostgreSQL секционирована по end_date (см. V1__init_schema.sql и BookingPartitionManager)
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     start_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     end_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
     item_id BIGINT NOT NULL REFERENCES items (id) ON DELETE CASCADE,
     booker_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
-    status VARCHAR(50) NOT NULL -- WAITING, APPROVED, REJECTED, CANCELED
+    owner_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE, -- Копия items.owner_id
+    status VARCHAR(50) NOT NULL, -- WAITING, APPROVED, REJECTED, CANCELED
+    rental_completed BOOLEAN NOT NULL DEFAULT FALSE, -- Аренда завершена и учтена в item_stats
+    version BIGINT NOT NULL DEFAULT 0 -- Версия для оптимистической блокировки
 );
 
 -- Таблица комментариев (comments)
@@ -46,4 +52,55 @@ CREATE TABLE IF NOT EXISTS comments (
     item_id BIGINT NOT NULL REFERENCES items (id) ON DELETE CASCADE,
     author_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL
-);
\ No newline at end of file
+);
+
+-- Последние комментарии вещи выбираются по (item_id, created)
+CREATE INDEX IF NOT EXISTS IX_COMMENTS_ITEM_CREATED ON comments (item_id, created DESC, id DESC);
+
+-- Агрегированные показатели вещей (item_stats), поддерживаются при записи
+CREATE TABLE IF NOT EXISTS item_stats (
+    item_id BIGINT PRIMARY KEY REFERENCES items (id) ON DELETE CASCADE,
+    comment_count BIGINT NOT NULL DEFAULT 0,
+    booking_count BIGINT NOT NULL DEFAULT 0, -- Одобренные бронирования
+    completed_rental_count BIGINT NOT NULL DEFAULT 0, -- Завершённые аренды
+    last_rented_at TIMESTAMP WITHOUT TIME ZONE -- Окончание последней завершённой аренды
+);
+
+-- Бронирования владельца выбираются по индексу в порядке сортировки
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_OWNER_START ON bookings (owner_id, start_date DESC, id DESC);
+
+-- Одобренные бронирования, ожидающие завершения, выбираются по дате окончания
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_PENDING_COMPLETION ON bookings (status, rental_completed, end_date);
+
+-- Неподтверждённые бронирования с наступившей датой начала выбираются для отмены
+CREATE INDEX IF NOT EXISTS IX_BOOKINGS_STATUS_START ON bookings (status, start_date);
+
+-- Таблица исходящих доменных событий (outbox)
+CREATE TABLE IF NOT EXISTS outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload VARCHAR(4096) NOT NULL,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    published_at TIMESTAMP WITHOUT TIME ZONE, -- NULL, пока событие не доставлено
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(512)
+);
+
+CREATE INDEX IF NOT EXISTS IX_OUTBOX_PENDING ON outbox (published_at, id);
+
+-- Ключи идемпотентности POST-запросов и сохранённые ответы на них
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response_status INTEGER,
+    response_content_type VARCHAR(255),
+    response_body BYTEA,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT UQ_IDEMPOTENCY_KEYS_USER_KEY UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS IX_IDEMPOTENCY_KEYS_CREATED ON idempotency_keys (created);
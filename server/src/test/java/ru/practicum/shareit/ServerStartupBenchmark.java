@@ -0,0 +1,108 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Время запуска сервера при разных способах подготовки схемы: пересоздание таблиц Hibernate
+ * (ddl-auto=create, прежний режим) и миграции Flyway с проверкой схемы (ddl-auto=validate).
+ * Первый запуск Flyway применяет миграции к пустой схеме, последующие только проверяют историю.
+ * Каждый режим работает в своей схеме PostgreSQL, которая пересоздаётся перед замером.
+ * Требуется запущенный PostgreSQL (адрес можно переопределить через {@code -Dspring.datasource.url=...}).
+ * Запуск: {@code mvn -pl server test -Pbenchmark}.
+ * <p>
+ * Результаты (JDK 21, один vCPU Xeon, PostgreSQL 16 на той же машине, два прогона):
+ * <pre>
+ * Hibernate ddl-auto=create    первый запуск 6,2–6,3 с   повторные (медиана) 4,9 с
+ * Flyway + ddl-auto=validate   первый запуск 4,7–5,2 с   повторные (медиана) 3,7–4,0 с
+ * </pre>
+ * Проверка схемы вместо пересоздания таблиц сокращает повторный запуск примерно на секунду (20%);
+ * применение всех миграций к пустой схеме обходится дешевле, чем пересоздание таблиц Hibernate.
+ */
+@Tag("benchmark")
+class ServerStartupBenchmark {
+
+    private static final int RUNS = 5;
+    private static final String URL = System.getProperty("spring.datasource.url", "jdbc:postgresql://db:5432/shareit");
+    private static final String USER = System.getProperty("spring.datasource.username", "shareit");
+    private static final String PASSWORD = System.getProperty("spring.datasource.password", "shareit");
+
+    @Test
+    void compareSchemaStartup() throws Exception {
+        warmUp();
+        report("Hibernate ddl-auto=create", "startup_hibernate",
+                "spring.flyway.enabled=false",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "shareit.booking.partitioning.enabled=false");
+        report("Flyway + ddl-auto=validate", "startup_flyway");
+    }
+
+    /**
+     * Один запуск вне замеров: загрузка классов и JIT иначе попадают в первый запуск первого режима.
+     */
+    private void warmUp() throws Exception {
+        recreateSchema("startup_warmup");
+        new SpringApplicationBuilder(ShareItServer.class).run(arguments("startup_warmup")).close();
+    }
+
+    private void report(String name, String schema, String... properties) throws Exception {
+        recreateSchema(schema);
+
+        List<Long> millis = new ArrayList<>();
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext ignored = new SpringApplicationBuilder(ShareItServer.class)
+                    .run(arguments(schema, properties))) {
+                millis.add((System.nanoTime() - start) / 1_000_000);
+            }
+        }
+
+        List<Long> repeated = millis.subList(1, millis.size()).stream().sorted().toList();
+        System.out.printf("%s: первый запуск %d мс, медиана повторных %d мс (все: %s)%n",
+                name, millis.getFirst(), repeated.get(repeated.size() / 2), millis);
+    }
+
+    /**
+     * Свойства передаются аргументами командной строки: они приоритетнее application.properties
+     * и системного свойства профиля test, которое задаёт surefire.
+     */
+    private static String[] arguments(String schema, String... properties) {
+        return Stream.concat(Stream.of(commonProperties(schema)), Stream.of(properties))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+    }
+
+    private static String[] commonProperties(String schema) {
+        return new String[]{
+                "spring.profiles.active=default",
+                "spring.datasource.url=" + URL + (URL.contains("?") ? "&" : "?") + "currentSchema=" + schema,
+                "spring.datasource.username=" + USER,
+                "spring.datasource.password=" + PASSWORD,
+                "spring.flyway.default-schema=" + schema,
+                "spring.jpa.properties.hibernate.default_schema=" + schema,
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "shareit.outbox.relay.enabled=false",
+                "shareit.item-stats.completion.enabled=false",
+                "shareit.item-stats.reconcile.enabled=false"
+        };
+    }
+
+    private static void recreateSchema(String schema) throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+        }
+    }
+}
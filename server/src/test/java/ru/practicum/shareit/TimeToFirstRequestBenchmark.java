@@ -0,0 +1,162 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Время до первого ответа сервера и шлюза: обычный исполняемый jar против распакованного приложения
+ * профиля fast-startup (Spring AOT и архив AppCDS). Каждый модуль запускается отдельным процессом,
+ * замеряется время от запуска процесса до первого ответа {@code /actuator/health}.
+ * Нужны собранные модули ({@code mvn -Pfast-startup package}) и запущенный PostgreSQL (для сервера);
+ * отсутствующий вариант сборки пропускается. Запуск: {@code mvn -pl server test -Pbenchmark}.
+ * Сервер работает в отдельной схеме, адрес базы задаётся через {@code -Dspring.datasource.url=...}.
+ * <p>
+ * Результаты (JDK 21, один vCPU Xeon, PostgreSQL 16 локально, два прогона по три запуска после холостого):
+ * <pre>
+ * сервер, jar               31–37 с
+ * сервер, AOT + AppCDS      20–22 с   (в 1,5–1,7 раза быстрее)
+ * шлюз, jar                 13–14 с
+ * шлюз, AOT + AppCDS        6,7–6,8 с (примерно в 2 раза быстрее)
+ * </pre>
+ */
+@Tag("benchmark")
+class TimeToFirstRequestBenchmark {
+
+    private static final Path ROOT = Path.of("..").toAbsolutePath().normalize();
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final int RUNS = 3;
+    private static final String URL = System.getProperty("spring.datasource.url", "jdbc:postgresql://db:5432/shareit");
+    private static final String USER = System.getProperty("spring.datasource.username", "shareit");
+    private static final String PASSWORD = System.getProperty("spring.datasource.password", "shareit");
+    private static final String SCHEMA = "startup_ttfr";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    void compareStartupModes() throws Exception {
+        recreateSchema();
+        report("server", 19090, List.of(
+                "--spring.profiles.active=default",
+                "--spring.datasource.url=" + URL + (URL.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA,
+                "--spring.datasource.username=" + USER,
+                "--spring.datasource.password=" + PASSWORD,
+                "--spring.flyway.default-schema=" + SCHEMA,
+                "--spring.jpa.properties.hibernate.default_schema=" + SCHEMA));
+        report("gateway", 18080, List.of("--shareit-server.url=http://localhost:19090"));
+    }
+
+    private void report(String module, int port, List<String> args) throws Exception {
+        Path target = ROOT.resolve(module).resolve("target");
+        Path fastStartup = target.resolve("fast-startup");
+
+        Path jar = findJar(target);
+        if (jar != null) {
+            measure(module + ", jar", target, List.of("-jar", jar.toString()), port, args);
+        }
+        Path extracted = findJar(fastStartup);
+        if (extracted != null && Files.exists(fastStartup.resolve("application.jsa"))) {
+            measure(module + ", AOT + AppCDS", fastStartup, List.of(
+                    "-XX:SharedArchiveFile=application.jsa",
+                    "-Dspring.aot.enabled=true",
+                    "-jar", extracted.getFileName().toString()), port, args);
+        } else {
+            System.out.printf("%s: нет сборки fast-startup, вариант пропущен%n", module);
+        }
+    }
+
+    /**
+     * Первый запуск не учитывается: в нём применяются миграции и файлы приложения читаются с диска.
+     */
+    private void measure(String name, Path workingDir, List<String> jvmArgs, int port, List<String> args)
+            throws Exception {
+        start(workingDir, jvmArgs, port, args);
+        long total = 0;
+        for (int i = 0; i < RUNS; i++) {
+            total += start(workingDir, jvmArgs, port, args);
+        }
+        System.out.printf("%s: %.0f мс до первого ответа (среднее из %d запусков)%n",
+                name, total / 1e6 / RUNS, RUNS);
+    }
+
+    /**
+     * Запускает процесс, ждёт первого ответа и останавливает процесс.
+     *
+     * @return время от запуска до первого ответа, нс
+     */
+    private long start(Path workingDir, List<String> jvmArgs, int port, List<String> args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("--server.port=" + port);
+        command.addAll(args);
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workingDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            awaitFirstResponse(port, process);
+            return System.nanoTime() - start;
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private void awaitFirstResponse(int port, Process process) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Процесс завершился до первого ответа: код " + process.exitValue());
+            }
+            try {
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("Нет ответа за " + STARTUP_TIMEOUT);
+    }
+
+    private static Path findJar(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (var files = Files.list(dir)) {
+            return files.filter(f -> f.toString().endsWith(".jar"))
+                    .filter(f -> !f.toString().endsWith("-plain.jar") && !f.toString().endsWith(".original"))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private static void recreateSchema() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.ItemStatsUpdater;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class BookingCompletionJobTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemStatsRepository itemStatsRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BookingCompletionJob job;
+
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        job = new BookingCompletionJob(bookingRepository, new ItemStatsUpdater(itemStatsRepository),
+                transactionManager, 2);
+        User owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
+        item = itemRepository.save(new Item(null, "Drill", "Power drill", true, owner, null));
+        itemStatsRepository.createForItem(item.getId());
+    }
+
+    @Test
+    void completeRentals_countsOnlyFinishedApprovedBookingsOnce() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        saveBooking(now.minusDays(5), now.minusDays(4), BookingStatus.APPROVED);
+        saveBooking(now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        saveBooking(now.minusDays(3), now.minusDays(1), BookingStatus.APPROVED);
+        saveBooking(now.minusDays(3), now.minusDays(1), BookingStatus.REJECTED);
+        saveBooking(now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED);
+
+        job.completeRentals();
+        job.completeRentals();
+
+        ItemStats stats = itemStatsRepository.findById(item.getId()).orElseThrow();
+        assertEquals(3L, stats.getCompletedRentalCount());
+        assertEquals(now.minusDays(1), stats.getLastRentedAt());
+        assertEquals(0, job.completeBatch(LocalDateTime.now()));
+    }
+
+    private void saveBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        bookingRepository.save(new Booking(null, start, end, item, booker, status));
+    }
+}
@@ -1,26 +1,42 @@
 package ru.practicum.shareit.booking;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.event.BookingEventHub;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.OwnerMismatchException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -43,6 +59,12 @@ public class BookingControllerTest {
     @MockBean
     private BookingService bookingService;
 
+    @MockBean
+    private BookingExporter bookingExporter;
+
+    @MockBean
+    private BookingEventHub bookingEventHub;
+
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
 
     /**
@@ -151,6 +173,27 @@ public class BookingControllerTest {
         verify(bookingService, times(1)).approveOrReject(1L, 1L, true);
     }
 
+    /**
+     * Тестирует подтверждение бронирования, одновременно изменённого другим запросом (PATCH /bookings/{bookingId}).
+     * Ожидается статус 409 после исчерпания повторных попыток.
+     */
+    @Test
+    void approveOrRejectBooking_ConcurrentModification_ReturnsConflict() throws Exception {
+        // Arrange
+        when(bookingService.approveOrReject(1L, 1L, true))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Booking", 1L));
+
+        // Act & Assert
+        mockMvc.perform(patch("/bookings/1")
+                        .header(USER_ID_HEADER, 1L)
+                        .param("approved", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.error", is("Конфликт параллельного изменения")));
+
+        verify(bookingService, times(1)).approveOrReject(1L, 1L, true);
+    }
+
     /**
      * Тестирует получение бронирования по ID (GET /bookings/{bookingId}).
      * Ожидается статус 200 и корректный JSON-ответ.
@@ -204,6 +247,35 @@ public class BookingControllerTest {
         verify(bookingService, times(1)).getAllByBooker(1L, "ALL", 0, 10);
     }
 
+    /**
+     * Тестирует ответ в формате Smile, запрошенный шлюзом в заголовке Accept (GET /bookings).
+     * Ожидается тело в Smile, декодируемое в те же поля, что и JSON.
+     */
+    @Test
+    void getAllBookingsByBooker_AcceptSmile_ReturnsSmile() throws Exception {
+        // Arrange
+        MediaType smile = new MediaType("application", "x-jackson-smile");
+        List<BookingResponseDto> bookings = List.of(
+                new BookingResponseDto(1L, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                        BookingStatus.WAITING, new UserDto(1L, "User", "user@example.com"),
+                        new ItemDto(1L, "Drill", "Electric drill", true, null))
+        );
+        when(bookingService.getAllByBooker(1L, "ALL", 0, 10)).thenReturn(bookings);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/bookings")
+                        .header(USER_ID_HEADER, 1L)
+                        .accept(smile, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(smile))
+                .andReturn();
+
+        // Assert
+        List<?> body = new ObjectMapper(new SmileFactory()).readValue(result.getResponse().getContentAsByteArray(), List.class);
+        assertEquals(1, ((Map<?, ?>) body.get(0)).get("id"));
+        assertEquals("WAITING", ((Map<?, ?>) body.get(0)).get("status"));
+    }
+
     /**
      * Тестирует получение бронирований арендатора с некорректным state (GET /bookings).
      * Ожидается статус 409 и сообщение об ошибке.
@@ -255,4 +327,153 @@ public class BookingControllerTest {
 
         verify(bookingService, times(1)).getAllByOwner(1L, "ALL", 0, 10);
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестирует пакетное подтверждение бронирований (PATCH /bookings/batch).
+     * Ожидается статус 200 и результат по каждому бронированию.
+     */
+    @Test
+    void approveOrRejectBatch_ValidRequest_ReturnsResults() throws Exception {
+        // Arrange
+        List<BookingDecisionDto> decisions = List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(2L, false));
+        when(bookingService.approveOrRejectBatch(1L, decisions)).thenReturn(List.of(
+                new BookingDecisionResultDto(1L, BookingDecisionResultDto.Outcome.UPDATED, BookingStatus.APPROVED),
+                new BookingDecisionResultDto(2L, BookingDecisionResultDto.Outcome.NOT_FOUND, null)));
+
+        // Act & Assert
+        mockMvc.perform(patch("/bookings/batch")
+                        .header(USER_ID_HEADER, 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(decisions)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome", is("UPDATED")))
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].outcome", is("NOT_FOUND")));
+
+        verify(bookingService, times(1)).approveOrRejectBatch(1L, decisions);
+    }
+
+    /**
+     * Тестирует получение счётчиков бронирований владельца (GET /bookings/owner/summary).
+     * Ожидается статус 200 и счётчики по каждому состоянию.
+     */
+    @Test
+    void getSummaryByOwner_ValidRequest_ReturnsCounts() throws Exception {
+        // Arrange
+        when(bookingService.getSummaryByOwner(1L)).thenReturn(new BookingSummaryDto(6L, 1L, 2L, 3L, 1L, 0L, 0L));
+
+        // Act & Assert
+        mockMvc.perform(get("/bookings/owner/summary")
+                        .header(USER_ID_HEADER, 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(6)))
+                .andExpect(jsonPath("$.future", is(3)))
+                .andExpect(jsonPath("$.rejected", is(0)));
+
+        verify(bookingService, times(1)).getSummaryByOwner(1L);
+    }
+
+    /**
+     * Тестирует получение счётчиков бронирований арендатора (GET /bookings/summary).
+     * Ожидается статус 404, если пользователь не найден.
+     */
+    @Test
+    void getSummaryByBooker_UserNotFound_ReturnsNotFound() throws Exception {
+        // Arrange
+        when(bookingService.getSummaryByBooker(999L)).thenThrow(new NotFoundException("Пользователь ID 999 не найден."));
+
+        // Act & Assert
+        mockMvc.perform(get("/bookings/summary")
+                        .header(USER_ID_HEADER, 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * Тестирует выгрузку истории бронирований (GET /bookings/export).
+     * Ожидается асинхронная потоковая передача с заголовками формата и имени файла.
+     */
+    @Test
+    void export_ValidParams_StreamsBody() throws Exception {
+        // Arrange
+        when(bookingExporter.parseRole("owner")).thenReturn(BookingExporter.Role.OWNER);
+        when(bookingExporter.parseFormat("csv")).thenReturn(BookingExporter.Format.CSV);
+        when(bookingExporter.export(eq(1L), eq(BookingExporter.Role.OWNER), eq(BookingExporter.Format.CSV), any()))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(3);
+                    out.write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+
+        // Act & Assert
+        MvcResult result = mockMvc.perform(get("/bookings/export")
+                        .header(USER_ID_HEADER, 1L)
+                        .param("role", "owner")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("bookings-owner.csv")))
+                .andExpect(content().string("id\n1\n"));
+
+        verify(bookingExporter, times(1)).checkUserExists(1L);
+    }
+
+    /**
+     * Тестирует выгрузку для несуществующего пользователя.
+     * Ожидается статус 404 до начала передачи.
+     */
+    @Test
+    void export_UnknownUser_ReturnsNotFound() throws Exception {
+        // Arrange
+        when(bookingExporter.parseRole("booker")).thenReturn(BookingExporter.Role.BOOKER);
+        when(bookingExporter.parseFormat("ndjson")).thenReturn(BookingExporter.Format.NDJSON);
+        doThrow(new NotFoundException("Пользователь ID 99 не найден.")).when(bookingExporter).checkUserExists(99L);
+
+        // Act & Assert
+        mockMvc.perform(get("/bookings/export")
+                        .header(USER_ID_HEADER, 99L))
+                .andExpect(status().isNotFound());
+
+        verify(bookingExporter, never()).export(anyLong(), any(), any(), any());
+    }
+
+    /**
+     * Тестирует подписку на поток событий бронирований (GET /bookings/stream).
+     * Ожидается асинхронный ответ в формате text/event-stream.
+     */
+    @Test
+    void stream_ExistingUser_StartsEventStream() throws Exception {
+        // Arrange
+        SseEmitter emitter = new SseEmitter();
+        when(bookingEventHub.subscribe(1L)).thenReturn(emitter);
+
+        // Act
+        MvcResult result = mockMvc.perform(get("/bookings/stream")
+                        .header(USER_ID_HEADER, 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // Заголовки ответа записываются с первым сообщением; хаб сразу шлёт комментарий «subscribed»
+        emitter.send(SseEmitter.event().comment("subscribed"));
+
+        // Assert
+        assertThat(result.getResponse().getContentType(), containsString(MediaType.TEXT_EVENT_STREAM_VALUE));
+    }
+
+    /**
+     * Тестирует подписку несуществующего пользователя.
+     * Ожидается статус 404.
+     */
+    @Test
+    void stream_UnknownUser_ReturnsNotFound() throws Exception {
+        // Arrange
+        when(bookingEventHub.subscribe(99L)).thenThrow(new NotFoundException("Пользователь ID 99 не найден."));
+
+        // Act & Assert
+        mockMvc.perform(get("/bookings/stream")
+                        .header(USER_ID_HEADER, 99L))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class BookingExpiryJobTest {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BookingExpiryJob job;
+    private final List<Object> publishedEvents = new ArrayList<>();
+
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        job = new BookingExpiryJob(bookingRepository,
+                new OutboxWriter(outboxRepository, new ObjectMapper().findAndRegisterModules()),
+                publishedEvents::add, transactionManager, 2);
+        User owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
+        item = itemRepository.save(new Item(null, "Drill", "Power drill", true, owner, null));
+    }
+
+    @Test
+    void cancelExpired_cancelsOnlyWaitingBookingsThatHaveStarted() {
+        LocalDateTime now = LocalDateTime.now();
+        Booking expired = saveBooking(now.minusDays(3), now.minusDays(2), BookingStatus.WAITING);
+        Booking started = saveBooking(now.minusHours(1), now.plusDays(1), BookingStatus.WAITING);
+        Booking startedToo = saveBooking(now.minusHours(2), now.plusDays(2), BookingStatus.WAITING);
+        Booking future = saveBooking(now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        Booking approved = saveBooking(now.minusDays(1), now.plusDays(1), BookingStatus.APPROVED);
+
+        job.cancelExpired();
+
+        assertEquals(BookingStatus.CANCELED, statusOf(expired));
+        assertEquals(BookingStatus.CANCELED, statusOf(started));
+        assertEquals(BookingStatus.CANCELED, statusOf(startedToo));
+        assertEquals(BookingStatus.WAITING, statusOf(future));
+        assertEquals(BookingStatus.APPROVED, statusOf(approved));
+        assertEquals(0, job.cancelBatch(LocalDateTime.now()));
+    }
+
+    @Test
+    void cancelExpired_recordsOutboxAndPublishesEvents() {
+        Booking expired = saveBooking(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                BookingStatus.WAITING);
+
+        job.cancelExpired();
+
+        List<OutboxEvent> outbox = outboxRepository.findAll();
+        assertEquals(1, outbox.size());
+        assertEquals(OutboxEventType.BOOKING_CANCELED, outbox.get(0).getEventType());
+        assertEquals(expired.getId(), outbox.get(0).getAggregateId());
+        BookingEvent event = publishedEvents.stream()
+                .filter(BookingEvent.class::isInstance)
+                .map(BookingEvent.class::cast)
+                .findFirst()
+                .orElseThrow();
+        assertEquals(BookingEventType.CANCELED, event.type());
+        assertEquals(BookingStatus.CANCELED, event.status());
+    }
+
+    private Booking saveBooking(LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        return bookingRepository.save(new Booking(null, start, end, item, booker, status));
+    }
+
+    private BookingStatus statusOf(Booking booking) {
+        return bookingRepository.findById(booking.getId()).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Выгрузка читает данные отдельной stateless-сессией, поэтому тестовые данные фиксируются
+ * (без общей транзакции теста) и удаляются после каждого теста.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+class BookingExporterTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final List<Booking> bookings = new ArrayList<>();
+
+    private BookingExporter exporter;
+    private User owner;
+    private User booker;
+    private User otherBooker;
+    private Item item;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new BookingExporter(entityManagerFactory, userRepository, objectMapper, 2);
+        owner = userRepository.save(new User(null, "Owner", "export-owner@example.com"));
+        booker = userRepository.save(new User(null, "Booker", "export-booker@example.com"));
+        otherBooker = userRepository.save(new User(null, "Other", "export-other@example.com"));
+        item = itemRepository.save(new Item(null, "Дрель, \"Bosch\"", "Ударная дрель", true, owner, null));
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        for (int i = 1; i <= 5; i++) {
+            bookings.add(bookingRepository.save(new Booking(null, now.minusDays(i * 2L), now.minusDays(i * 2L - 1),
+                    item, booker, BookingStatus.APPROVED)));
+        }
+        bookings.add(bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                item, otherBooker, BookingStatus.WAITING)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll(bookings);
+        itemRepository.delete(item);
+        userRepository.deleteAll(List.of(owner, booker, otherBooker));
+    }
+
+    @Test
+    void export_ndjsonForOwner_streamsAllRowsNewestFirst() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exporter.export(owner.getId(), BookingExporter.Role.OWNER, BookingExporter.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(6, count);
+        assertEquals(6, lines.length);
+        assertTrue(Arrays.stream(lines).allMatch(line -> line.startsWith("{")));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(otherBooker.getId(), first.get("bookerId").asLong());
+        assertEquals(now.plusDays(1).toString(), first.get("start").asText());
+        assertEquals(booker.getId(), objectMapper.readTree(lines[5]).get("bookerId").asLong());
+    }
+
+    @Test
+    void export_csvForBooker_containsOnlyOwnBookingsWithEscapedFields() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exporter.export(booker.getId(), BookingExporter.Role.BOOKER, BookingExporter.Format.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, count);
+        assertEquals("id,itemId,itemName,bookerId,ownerId,start,end,status", lines[0]);
+        assertEquals(6, lines.length);
+        assertTrue(lines[1].contains(",\"Дрель, \"\"Bosch\"\"\","), lines[1]);
+        assertTrue(lines[1].endsWith(",APPROVED"));
+    }
+
+    @Test
+    void parseRoleAndFormat_unknownValues_throwException() {
+        assertEquals(BookingExporter.Role.OWNER, exporter.parseRole("owner"));
+        assertEquals(BookingExporter.Format.CSV, exporter.parseFormat("CSV"));
+        assertThrows(ValidationException.class, () -> exporter.parseRole("admin"));
+        assertThrows(ValidationException.class, () -> exporter.parseFormat("xml"));
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Размер и стоимость кодирования страницы из 100 бронирований (GET /bookings/owner?size=100):
+ * JSON против Smile на участке сервер — шлюз и JSON с gzip на участке шлюз — клиент.
+ * Время — процессорное время потока на кодирование ответа сервером и декодирование шлюзом
+ * (в Object, как в BaseClient). Запуск: {@code mvn -pl server test -Pbenchmark}.
+ * <p>
+ * Результаты (JDK 21, один vCPU Xeon, два прогона):
+ * <pre>
+ * JSON         36 009 байт   486–494 мкс ЦП
+ * Smile        23 740 байт   413–417 мкс ЦП (66% размера JSON)
+ * JSON + gzip   1 876 байт   330–335 мкс ЦП на сжатие (5% размера JSON)
+ * </pre>
+ * Smile экономит около трети трафика и 15% процессорного времени между сервером и шлюзом;
+ * для клиентов сжатие JSON уменьшает ответ намного сильнее.
+ */
+@Tag("benchmark")
+class BookingPageWireFormatBenchmark {
+
+    private static final int ROWS = 100;
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory())
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareWireFormats() throws IOException {
+        List<BookingResponseDto> page = page();
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] smile = smileMapper.writeValueAsBytes(page);
+        byte[] gzippedJson = gzip(json);
+
+        System.out.printf("JSON: %d байт%n", json.length);
+        System.out.printf("Smile: %d байт (%.0f%% от JSON)%n", smile.length, 100.0 * smile.length / json.length);
+        System.out.printf("JSON + gzip: %d байт (%.0f%% от JSON)%n",
+                gzippedJson.length, 100.0 * gzippedJson.length / json.length);
+
+        System.out.printf("JSON: %.1f мкс ЦП на страницу%n", cpuMicrosPerPage(jsonMapper, page));
+        System.out.printf("Smile: %.1f мкс ЦП на страницу%n", cpuMicrosPerPage(smileMapper, page));
+        System.out.printf("gzip JSON: %.1f мкс ЦП на страницу%n", gzipCpuMicrosPerPage(json));
+    }
+
+    private double cpuMicrosPerPage(ObjectMapper mapper, List<BookingResponseDto> page) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(page), Object.class);
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(page), Object.class);
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / 1e3 / ITERATIONS;
+    }
+
+    private double gzipCpuMicrosPerPage(byte[] body) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            gzip(body);
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            gzip(body);
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / 1e3 / ITERATIONS;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<BookingResponseDto> page() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        List<BookingResponseDto> page = new ArrayList<>(ROWS);
+        for (long i = 0; i < ROWS; i++) {
+            UserDto booker = new UserDto(100 + i % 10, "Арендатор " + i % 10, "booker" + i % 10 + "@example.com");
+            ItemDto item = new ItemDto(200 + i % 20, "Дрель " + i % 20,
+                    "Аккумуляторная дрель с двумя батареями и набором свёрл", true, null);
+            page.add(new BookingResponseDto(i + 1, start.plusDays(i), start.plusDays(i + 2),
+                    BookingStatus.values()[(int) (i % 3)], booker, item));
+        }
+        return page;
+    }
+}
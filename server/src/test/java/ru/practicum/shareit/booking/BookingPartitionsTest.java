@@ -0,0 +1,55 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingPartitionsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 2, 15, 12, 0);
+
+    @Test
+    void monthlyName_roundTrips() {
+        String name = BookingPartitions.monthlyName(YearMonth.of(2024, 3));
+
+        assertEquals("bookings_p202403", name);
+        assertEquals(Optional.of(YearMonth.of(2024, 3)), BookingPartitions.parseMonthly(name));
+    }
+
+    @Test
+    void parseMonthly_ignoresOtherPartitions() {
+        assertTrue(BookingPartitions.parseMonthly(BookingPartitions.ARCHIVE).isEmpty());
+        assertTrue(BookingPartitions.parseMonthly(BookingPartitions.DEFAULT).isEmpty());
+        assertTrue(BookingPartitions.parseMonthly("bookings_pXXXX").isEmpty());
+    }
+
+    @Test
+    void archivedName_isNotParsedAsMonthly() {
+        String name = BookingPartitions.archivedName(YearMonth.of(2024, 3));
+
+        assertEquals("bookings_archive_p202403", name);
+        assertTrue(BookingPartitions.parseMonthly(name).isEmpty(), "архивная секция не архивируется повторно");
+    }
+
+    @Test
+    void requiredMonths_coverArchiveBoundaryToMonthsAhead() {
+        List<YearMonth> months = BookingPartitions.requiredMonths(NOW, 2, 1);
+
+        assertEquals(List.of(YearMonth.of(2024, 12), YearMonth.of(2025, 1), YearMonth.of(2025, 2), YearMonth.of(2025, 3)),
+                months);
+        assertEquals(YearMonth.of(2024, 12), BookingPartitions.archiveBoundary(NOW, 2));
+    }
+
+    @Test
+    void bounds_areHalfOpenMonthRange() {
+        YearMonth december = YearMonth.of(2024, 12);
+
+        assertEquals("'2024-12-01 00:00:00'", BookingPartitions.lowerBound(december));
+        assertEquals("'2025-01-01 00:00:00'", BookingPartitions.upperBound(december));
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,21 +9,39 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto.Outcome;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingSummaryDto;
+import ru.practicum.shareit.booking.event.BookingEvent;
+import ru.practicum.shareit.booking.event.BookingEventType;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.cache.EntityChangedEvent;
+import ru.practicum.shareit.cache.EntityType;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.OwnerMismatchException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemStatsUpdater;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.monitoring.QueryBudget;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -30,14 +50,28 @@ import static org.junit.jupiter.api.Assertions.*;
 @ActiveProfiles("test")
 class BookingServiceImplTest {
 
+    /**
+     * Пользователь, наличие вещей (для владельца), страница бронирований и пакетная загрузка вещей
+     * и арендаторов — не больше пяти операторов при любом размере страницы.
+     */
+    private static final int LIST_QUERY_BUDGET = 5;
+
     @Autowired
     private BookingRepository bookingRepository;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private ItemStatsRepository itemStatsRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     private BookingServiceImpl bookingService;
+    private final List<Object> publishedEvents = new ArrayList<>();
+    private final BookingSummaryCache summaryCache = new BookingSummaryCache(60_000, 100);
 
     private User owner;
     private User booker;
@@ -45,7 +79,16 @@ class BookingServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository);
+        bookingService = new BookingServiceImpl(bookingRepository, userRepository, itemRepository,
+                new ItemStatsUpdater(itemStatsRepository),
+                new OutboxWriter(outboxRepository, new ObjectMapper().findAndRegisterModules()),
+                event -> {
+                    publishedEvents.add(event);
+                    if (event instanceof EntityChangedEvent change) {
+                        summaryCache.onEntityChanged(change);
+                    }
+                },
+                summaryCache);
         owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
         booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
         item = itemRepository.save(new Item(null, "Drill", "Power drill", true, owner, null));
@@ -67,6 +110,40 @@ class BookingServiceImplTest {
         assertEquals(item.getId(), result.item().id());
     }
 
+    @Test
+    void createBooking_appendsOutboxEvent() {
+        BookingCreateDto bookingDto = new BookingCreateDto(item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        BookingResponseDto result = bookingService.create(booker.getId(), bookingDto);
+
+        List<OutboxEvent> events = outboxRepository.findAll();
+        assertEquals(1, events.size());
+        assertEquals(OutboxEventType.BOOKING_CREATED, events.get(0).getEventType());
+        assertEquals(result.id(), events.get(0).getAggregateId());
+        assertNull(events.get(0).getPublishedAt());
+    }
+
+    @Test
+    void createBooking_copiesItemOwner() {
+        BookingCreateDto bookingDto = new BookingCreateDto(item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        BookingResponseDto result = bookingService.create(booker.getId(), bookingDto);
+
+        assertEquals(owner.getId(), bookingRepository.findById(result.id()).orElseThrow().getOwnerId());
+    }
+
+    @Test
+    void getAllByOwner_ordersByStartThenIdDescending() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Booking first = bookingRepository.save(new Booking(null, start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, start, start.plusDays(2), item, booker, BookingStatus.WAITING));
+        Booking later = bookingRepository.save(new Booking(null, start.plusDays(5), start.plusDays(6), item, booker, BookingStatus.WAITING));
+
+        List<BookingResponseDto> result = bookingService.getAllByOwner(owner.getId(), "ALL", 0, 10);
+
+        assertEquals(List.of(later.getId(), second.getId(), first.getId()), result.stream().map(BookingResponseDto::id).toList());
+    }
+
     @Test
     void createBooking_itemNotAvailable_throwsException() {
         item.setAvailable(false);
@@ -91,6 +168,59 @@ class BookingServiceImplTest {
         assertEquals(BookingStatus.APPROVED, result.status());
     }
 
+    @Test
+    void approveBooking_updatesItemStats() {
+        Booking first = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(3),
+                LocalDateTime.now().plusDays(4), item, booker, BookingStatus.WAITING));
+        Booking rejected = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(5),
+                LocalDateTime.now().plusDays(6), item, booker, BookingStatus.WAITING));
+
+        bookingService.approveOrReject(owner.getId(), first.getId(), true);
+        bookingService.approveOrReject(owner.getId(), second.getId(), true);
+        bookingService.approveOrReject(owner.getId(), rejected.getId(), false);
+
+        assertEquals(2L, itemStatsRepository.findById(item.getId()).orElseThrow().getBookingCount());
+    }
+
+    @Test
+    void createAndApprove_publishBookingEvents() {
+        BookingResponseDto created = bookingService.create(booker.getId(),
+                new BookingCreateDto(item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        bookingService.approveOrReject(owner.getId(), created.id(), true);
+
+        List<BookingEvent> events = publishedEvents.stream()
+                .filter(BookingEvent.class::isInstance)
+                .map(BookingEvent.class::cast)
+                .toList();
+        assertEquals(List.of(BookingEventType.CREATED, BookingEventType.APPROVED),
+                events.stream().map(BookingEvent::type).toList());
+        assertEquals(BookingStatus.APPROVED, events.get(1).status());
+        assertEquals(booker.getId(), events.get(1).bookerId());
+        assertEquals(owner.getId(), events.get(1).ownerId());
+
+        List<EntityChangedEvent> changes = publishedEvents.stream()
+                .filter(EntityChangedEvent.class::isInstance)
+                .map(EntityChangedEvent.class::cast)
+                .toList();
+        assertEquals(2, changes.size());
+        assertEquals(new EntityChangedEvent(EntityType.BOOKING, created.id(), Set.of(booker.getId(), owner.getId())),
+                changes.get(1));
+    }
+
+    @Test
+    void approveBooking_incrementsVersion() {
+        Booking booking = bookingRepository.saveAndFlush(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+        Long initialVersion = booking.getVersion();
+
+        bookingService.approveOrReject(owner.getId(), booking.getId(), true);
+        bookingRepository.flush();
+
+        assertEquals(initialVersion + 1, bookingRepository.findById(booking.getId()).orElseThrow().getVersion());
+    }
+
     @Test
     void approveBooking_notOwner_throwsException() {
         Booking booking = new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING);
@@ -99,6 +229,22 @@ class BookingServiceImplTest {
         assertThrows(OwnerMismatchException.class, () -> bookingService.approveOrReject(booker.getId(), savedBooking.getId(), true));
     }
 
+    @Test
+    void approveBooking_notFound_throwsException() {
+        assertThrows(NotFoundException.class, () -> bookingService.approveOrReject(owner.getId(), 999L, true));
+    }
+
+    @Test
+    void approveBooking_secondDecision_throwsException() {
+        Booking booking = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+
+        bookingService.approveOrReject(owner.getId(), booking.getId(), true);
+
+        assertThrows(ValidationException.class, () -> bookingService.approveOrReject(owner.getId(), booking.getId(), false));
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(booking.getId()).orElseThrow().getStatus());
+    }
+
     @Test
     void approveBooking_alreadyApproved_throwsException() {
         Booking booking = new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), item, booker, BookingStatus.APPROVED);
@@ -160,7 +306,8 @@ class BookingServiceImplTest {
         Booking b2 = bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2),
                 LocalDateTime.now().minusDays(1), item, booker, BookingStatus.REJECTED));
 
-        List<BookingResponseDto> result = bookingService.getAllByBooker(booker.getId(), "ALL", 0, 10);
+        List<BookingResponseDto> result = withinListBudget(() ->
+                bookingService.getAllByBooker(booker.getId(), "ALL", 0, 10));
 
         assertEquals(2, result.size());
         assertEquals(b1.getId(), result.get(0).id());
@@ -232,8 +379,8 @@ class BookingServiceImplTest {
                     LocalDateTime.now().plusDays(i + 2), item, booker, BookingStatus.APPROVED));
         }
 
-        List<BookingResponseDto> page1 = bookingService.getAllByBooker(booker.getId(), "ALL", 0, 2);
-        List<BookingResponseDto> page2 = bookingService.getAllByBooker(booker.getId(), "ALL", 2, 2);
+        List<BookingResponseDto> page1 = withinListBudget(() -> bookingService.getAllByBooker(booker.getId(), "ALL", 0, 2));
+        List<BookingResponseDto> page2 = withinListBudget(() -> bookingService.getAllByBooker(booker.getId(), "ALL", 2, 2));
 
         assertEquals(2, page1.size());
         assertEquals(2, page2.size());
@@ -248,7 +395,8 @@ class BookingServiceImplTest {
         bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(1),
                 LocalDateTime.now().minusHours(1), item2, booker, BookingStatus.APPROVED));
 
-        List<BookingResponseDto> result = bookingService.getAllByOwner(owner.getId(), "ALL", 0, 10);
+        List<BookingResponseDto> result = withinListBudget(() ->
+                bookingService.getAllByOwner(owner.getId(), "ALL", 0, 10));
 
         assertEquals(2, result.size());
         assertTrue(result.stream().anyMatch(b -> b.id().equals(b1.getId())));
@@ -262,7 +410,8 @@ class BookingServiceImplTest {
         Booking current = bookingRepository.save(new Booking(null, LocalDateTime.now().minusHours(1),
                 LocalDateTime.now().plusHours(1), item2, booker, BookingStatus.APPROVED));
 
-        List<BookingResponseDto> result = bookingService.getAllByOwner(owner.getId(), "CURRENT", 0, 10);
+        List<BookingResponseDto> result = withinListBudget(() ->
+                bookingService.getAllByOwner(owner.getId(), "CURRENT", 0, 10));
 
         assertEquals(1, result.size());
         assertEquals(current.getId(), result.get(0).id());
@@ -374,4 +523,127 @@ class BookingServiceImplTest {
 
         assertThrows(NotFoundException.class, () -> bookingService.create(999L, dto));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getSummary_countsEveryStateInOneQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.save(new Booking(null, now.minusDays(2), now.minusDays(1), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.minusDays(1), now.plusDays(1), item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), item, booker, BookingStatus.WAITING));
+        bookingRepository.save(new Booking(null, now.plusDays(3), now.plusDays(4), item, booker, BookingStatus.REJECTED));
+
+        BookingSummaryDto expected = new BookingSummaryDto(4L, 1L, 1L, 2L, 1L, 1L, 0L);
+        assertEquals(expected, bookingService.getSummaryByBooker(booker.getId()));
+        assertEquals(expected, bookingService.getSummaryByOwner(owner.getId()));
+        assertEquals(new BookingSummaryDto(0L, 0L, 0L, 0L, 0L, 0L, 0L), bookingService.getSummaryByOwner(booker.getId()));
+    }
+
+    @Test
+    void getSummary_cachedUntilBookingChanges() {
+        BookingResponseDto created = bookingService.create(booker.getId(),
+                new BookingCreateDto(item.getId(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+        assertEquals(1L, bookingService.getSummaryByOwner(owner.getId()).waiting());
+
+        bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4),
+                item, booker, BookingStatus.WAITING));
+        assertEquals(1L, bookingService.getSummaryByOwner(owner.getId()).waiting());
+
+        bookingService.approveOrReject(owner.getId(), created.id(), true);
+        BookingSummaryDto summary = bookingService.getSummaryByOwner(owner.getId());
+        assertEquals(2L, summary.all());
+        assertEquals(1L, summary.waiting());
+    }
+
+    @Test
+    void getSummary_unknownUser_throwsNotFound() {
+        assertThrows(NotFoundException.class, () -> bookingService.getSummaryByOwner(999L));
+    }
+
+    @Test
+    void approveOrRejectBatch_returnsOutcomePerBooking() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        User other = userRepository.save(new User(null, "Other", "other@example.com"));
+        Item otherItem = itemRepository.save(new Item(null, "Saw", "Hand saw", true, other, null));
+        Booking approve = bookingRepository.save(new Booking(null, start, start.plusDays(1), item, booker, BookingStatus.WAITING));
+        Booking reject = bookingRepository.save(new Booking(null, start.plusDays(2), start.plusDays(3), item, booker, BookingStatus.WAITING));
+        Booking processed = bookingRepository.save(new Booking(null, start.plusDays(4), start.plusDays(5), item, booker, BookingStatus.REJECTED));
+        Booking foreign = bookingRepository.save(new Booking(null, start, start.plusDays(1), otherItem, booker, BookingStatus.WAITING));
+
+        List<BookingDecisionResultDto> results = bookingService.approveOrRejectBatch(owner.getId(), List.of(
+                new BookingDecisionDto(approve.getId(), true),
+                new BookingDecisionDto(reject.getId(), false),
+                new BookingDecisionDto(processed.getId(), true),
+                new BookingDecisionDto(foreign.getId(), true),
+                new BookingDecisionDto(999L, true)));
+
+        assertEquals(List.of(
+                new BookingDecisionResultDto(approve.getId(), Outcome.UPDATED, BookingStatus.APPROVED),
+                new BookingDecisionResultDto(reject.getId(), Outcome.UPDATED, BookingStatus.REJECTED),
+                new BookingDecisionResultDto(processed.getId(), Outcome.ALREADY_PROCESSED, BookingStatus.REJECTED),
+                new BookingDecisionResultDto(foreign.getId(), Outcome.NOT_OWNER, null),
+                new BookingDecisionResultDto(999L, Outcome.NOT_FOUND, null)), results);
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(approve.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(foreign.getId()).orElseThrow().getStatus());
+        assertEquals(1L, itemStatsRepository.findById(item.getId()).orElseThrow().getBookingCount());
+        assertEquals(2, outboxRepository.findAll().size());
+    }
+
+    @Test
+    void approveOrRejectBatch_overlappingApprovals_firstDecisionWins() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingRepository.save(new Booking(null, start, start.plusDays(2), item, booker, BookingStatus.APPROVED));
+        Booking clashesWithApproved = bookingRepository.save(new Booking(null, start.plusDays(1), start.plusDays(3),
+                item, booker, BookingStatus.WAITING));
+        Booking first = bookingRepository.save(new Booking(null, start.plusDays(5), start.plusDays(7),
+                item, booker, BookingStatus.WAITING));
+        Booking second = bookingRepository.save(new Booking(null, start.plusDays(6), start.plusDays(8),
+                item, booker, BookingStatus.WAITING));
+        Booking adjacent = bookingRepository.save(new Booking(null, start.plusDays(8), start.plusDays(9),
+                item, booker, BookingStatus.WAITING));
+
+        List<BookingDecisionResultDto> results = bookingService.approveOrRejectBatch(owner.getId(), List.of(
+                new BookingDecisionDto(clashesWithApproved.getId(), true),
+                new BookingDecisionDto(first.getId(), true),
+                new BookingDecisionDto(second.getId(), true),
+                new BookingDecisionDto(adjacent.getId(), true)));
+
+        assertEquals(List.of(Outcome.OVERLAPS_APPROVED, Outcome.UPDATED, Outcome.OVERLAPS_APPROVED, Outcome.UPDATED),
+                results.stream().map(BookingDecisionResultDto::outcome).toList());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(second.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void approveOrRejectBatch_duplicateBooking_throwsValidationException() {
+        Booking booking = bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+
+        assertThrows(ValidationException.class, () -> bookingService.approveOrRejectBatch(owner.getId(), List.of(
+                new BookingDecisionDto(booking.getId(), true),
+                new BookingDecisionDto(booking.getId(), false))));
+    }
+
+    @Test
+    void getAllByBookerAndOwner_canceledState_returnsOnlyCanceled() {
+        Booking canceled = bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(1), item, booker, BookingStatus.CANCELED));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item, booker, BookingStatus.WAITING));
+
+        List<BookingResponseDto> byBooker = bookingService.getAllByBooker(booker.getId(), "CANCELED", 0, 10);
+        List<BookingResponseDto> byOwner = bookingService.getAllByOwner(owner.getId(), "CANCELED", 0, 10);
+
+        assertEquals(List.of(canceled.getId()), byBooker.stream().map(BookingResponseDto::id).toList());
+        assertEquals(List.of(canceled.getId()), byOwner.stream().map(BookingResponseDto::id).toList());
+        assertEquals(1L, bookingService.getSummaryByOwner(owner.getId()).canceled());
+    }
+
+    /**
+     * Выполняет запрос списка с очищенным контекстом персистентности и проверяет, что число
+     * SQL-операторов не зависит от числа бронирований на странице.
+     */
+    private <T> T withinListBudget(Supplier<T> action) {
+        entityManager.flush();
+        entityManager.clear();
+        return QueryBudget.assertWithin(LIST_QUERY_BUDGET, action);
+    }
+}
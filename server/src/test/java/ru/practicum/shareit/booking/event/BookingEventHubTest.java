@@ -0,0 +1,116 @@
+package ru.practicum.shareit.booking.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.cache.InvalidationBus;
+import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class BookingEventHubTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final InvalidationBus bus = mock(InvalidationBus.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BookingEventHub hub;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        hub = new BookingEventHub(userRepository, bus, objectMapper, new SimpleMeterRegistry(), 4, 60_000, 60_000, 2);
+        owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.closeAll();
+    }
+
+    @Test
+    void subscribe_unknownUser_throwsNotFound() {
+        assertThrows(NotFoundException.class, () -> hub.subscribe(999L));
+        assertEquals(0, hub.subscriberCount(999L));
+    }
+
+    @Test
+    void subscribe_overLimit_closesOldestSubscription() {
+        hub.subscribe(booker.getId());
+        hub.subscribe(booker.getId());
+        hub.subscribe(booker.getId());
+
+        assertEquals(2, hub.subscriberCount(booker.getId()));
+    }
+
+    @Test
+    void onBookingEvent_withoutSubscribers_isIgnored() {
+        hub.subscribe(owner.getId());
+
+        assertDoesNotThrow(() -> hub.onBookingEvent(new BookingEvent(BookingEventType.CREATED, 1L, 1L,
+                booker.getId(), owner.getId(), BookingStatus.WAITING, LocalDateTime.now(), LocalDateTime.now().plusDays(1))));
+        assertEquals(1, hub.subscriberCount(owner.getId()));
+        assertEquals(0, hub.subscriberCount(booker.getId()));
+    }
+
+    @Test
+    void publishToCluster_sendsEventThatOtherNodeCanRead() throws Exception {
+        BookingEvent event = new BookingEvent(BookingEventType.APPROVED, 7L, 3L, booker.getId(), owner.getId(),
+                BookingStatus.APPROVED, LocalDateTime.of(2030, 1, 1, 10, 0), LocalDateTime.of(2030, 1, 2, 10, 0));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+
+        hub.publishToCluster(event);
+
+        verify(bus).publish(eq(BookingEventHub.TOPIC), payload.capture());
+        assertEquals(event, objectMapper.readValue(payload.getValue(), BookingEvent.class));
+        hub.subscribe(booker.getId());
+        assertDoesNotThrow(() -> hub.onClusterMessage(payload.getValue()));
+        assertEquals(1, hub.subscriberCount(booker.getId()));
+    }
+
+    @Test
+    void onClusterMessage_malformedPayload_throws() {
+        assertThrows(IllegalStateException.class, () -> hub.onClusterMessage("{"));
+    }
+
+    @Test
+    void onResync_closesSubscriptionsSoClientsReread() {
+        hub.subscribe(owner.getId());
+
+        hub.onResync();
+
+        assertEquals(0, hub.subscriberCount(owner.getId()));
+    }
+
+    @Test
+    void closeAll_removesSubscriptions() {
+        hub.subscribe(owner.getId());
+        hub.subscribe(booker.getId());
+
+        hub.closeAll();
+
+        assertEquals(0, hub.subscriberCount(owner.getId()));
+        assertEquals(0, hub.subscriberCount(booker.getId()));
+    }
+}
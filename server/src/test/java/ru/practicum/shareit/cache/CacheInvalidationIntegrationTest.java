@@ -0,0 +1,257 @@
+package ru.practicum.shareit.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.ShareItServer;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingCreateDto;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Два экземпляра сервера с общей базой данных: изменение на одном узле сбрасывает кэш другого,
+ * а после обрыва соединения шины узел очищает кэши и не отдаёт устаревшие данные. События
+ * бронирований и новые запросы на вещи доходят до подписчиков, подключённых к другому узлу.
+ * Ошибки получателей не останавливают приём оповещений.
+ * Требуется запущенный PostgreSQL (по умолчанию из application.properties, адрес можно переопределить
+ * через {@code -Dspring.datasource.url=...}).
+ */
+class CacheInvalidationIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void updateOnOneNode_invalidatesCacheOnOther() {
+        UserService usersA = nodeA.getBean(UserService.class);
+        UserService usersB = nodeB.getBean(UserService.class);
+        UserDto user = usersA.create(new UserDto(null, "Before", "before" + System.nanoTime() + "@example.com"));
+        assertEquals("Before", usersA.getById(user.id()).name());
+        assertEquals("Before", usersB.getById(user.id()).name());
+
+        usersB.update(user.id(), new UserDto(null, "After", null));
+
+        await(() -> "After".equals(usersA.getById(user.id()).name()));
+    }
+
+    @Test
+    void lostConnection_resyncsCachesAfterReconnect() {
+        UserService usersA = nodeA.getBean(UserService.class);
+        UserService usersB = nodeB.getBean(UserService.class);
+        InvalidationBus busA = nodeA.getBean(InvalidationBus.class);
+        double resyncsBefore = resyncCount(nodeA);
+        UserDto user = usersA.create(new UserDto(null, "Before", "resync" + System.nanoTime() + "@example.com"));
+        assertEquals("Before", usersA.getById(user.id()).name());
+
+        new JdbcTemplate(nodeB.getBean(DataSource.class)).queryForList(
+                "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = ?",
+                "shareit-invalidation-" + busA.nodeId());
+        usersB.update(user.id(), new UserDto(null, "After", null));
+
+        await(() -> resyncCount(nodeA) > resyncsBefore);
+        await(() -> "After".equals(usersA.getById(user.id()).name()));
+    }
+
+    @Test
+    void bookingOnOneNode_reachesEventStreamOnOther() throws Exception {
+        UserDto owner = nodeA.getBean(UserService.class)
+                .create(new UserDto(null, "Owner", "owner" + System.nanoTime() + "@example.com"));
+        UserDto booker = nodeA.getBean(UserService.class)
+                .create(new UserDto(null, "Booker", "booker" + System.nanoTime() + "@example.com"));
+        ItemDto item = nodeA.getBean(ItemService.class)
+                .create(owner.id(), new ItemDto(null, "Drill", "Cordless drill", true, null));
+        HttpRequest subscribe = HttpRequest.newBuilder(URI.create(
+                        "http://localhost:" + nodeB.getEnvironment().getProperty("local.server.port") + "/bookings/stream"))
+                .header("X-Sharer-User-Id", String.valueOf(owner.id()))
+                .build();
+
+        try (HttpClient client = HttpClient.newHttpClient();
+             Stream<String> stream = client.send(subscribe, HttpResponse.BodyHandlers.ofLines()).body()) {
+            Iterator<String> lines = stream.iterator();
+            assertEquals(":subscribed", lines.next());
+
+            BookingResponseDto booking = nodeA.getBean(BookingService.class).create(booker.id(),
+                    new BookingCreateDto(item.id(), LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)));
+
+            CompletableFuture<String> data = CompletableFuture.supplyAsync(() -> {
+                while (lines.hasNext()) {
+                    String line = lines.next();
+                    if (line.startsWith("data:")) {
+                        return line;
+                    }
+                }
+                return null;
+            });
+            assertTrue(data.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).contains("\"bookingId\":" + booking.id()));
+        }
+    }
+
+    @Test
+    void requestOnOneNode_reachesFeedOnOther() {
+        UserDto requestor = nodeA.getBean(UserService.class)
+                .create(new UserDto(null, "Requestor", "requestor" + System.nanoTime() + "@example.com"));
+        ItemRequestFeed feedB = nodeB.getBean(ItemRequestFeed.class);
+        long cursor = ((ItemRequestFeedDto) feedB.poll(0L, null, 0, 10).getResult()).cursor();
+        DeferredResult<ItemRequestFeedDto> poll = feedB.poll(0L, cursor, TIMEOUT.toMillis(), 10);
+
+        ItemRequestResponseDto request = nodeA.getBean(ItemRequestService.class)
+                .create(requestor.id(), new ItemRequestCreateDto("Need a ladder"));
+
+        await(poll::hasResult);
+        ItemRequestFeedDto batch = (ItemRequestFeedDto) poll.getResult();
+        assertEquals(List.of(request.id()), batch.requests().stream().map(ItemRequestResponseDto::id).toList());
+    }
+
+    @Test
+    void failingListeners_doNotStopListener() {
+        List<EntityChangedEvent> received = new CopyOnWriteArrayList<>();
+        CacheInvalidationListener failing = new CacheInvalidationListener() {
+            @Override
+            public void onEntityChanged(EntityChangedEvent event) {
+                throw new IllegalStateException("сбой кэша");
+            }
+
+            @Override
+            public void invalidateAll() {
+                throw new IllegalStateException("сбой кэша");
+            }
+        };
+        CacheInvalidationListener recording = new CacheInvalidationListener() {
+            @Override
+            public void onEntityChanged(EntityChangedEvent event) {
+                received.add(event);
+            }
+
+            @Override
+            public void invalidateAll() {
+            }
+        };
+        ClusterMessageListener failingResync = new ClusterMessageListener() {
+            @Override
+            public String topic() {
+                return "test";
+            }
+
+            @Override
+            public void onClusterMessage(String payload) {
+            }
+
+            @Override
+            public void onResync() {
+                throw new IllegalStateException("сбой получателя");
+            }
+        };
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of(
+                "failing", failing, "recording", recording, "failingResync", failingResync));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InvalidationBus bus = new InvalidationBus(nodeA.getBean(DataSource.class),
+                nodeA.getBean(DataSourceProperties.class),
+                beans.getBeanProvider(CacheInvalidationListener.class),
+                beans.getBeanProvider(ClusterMessageListener.class),
+                meterRegistry, true, 1000, 200, 1000);
+        bus.afterSingletonsInstantiated();
+        try {
+            await(() -> meterRegistry.counter("shareit.cache.invalidation.resync").count() > 0);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(nodeA.getBean(DataSource.class));
+            EntityChangedEvent first = new EntityChangedEvent(EntityType.USER, -1L, Set.of());
+            EntityChangedEvent second = new EntityChangedEvent(EntityType.USER, -2L, Set.of());
+
+            for (EntityChangedEvent event : List.of(first, second)) {
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", InvalidationBus.CHANNEL,
+                        InvalidationBus.encode("other-node", event));
+            }
+
+            await(() -> received.containsAll(List.of(first, second)));
+        } finally {
+            bus.stop();
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode() {
+        // Аргументы командной строки приоритетнее application.properties и профиля test, включённого surefire
+        return new SpringApplicationBuilder(ShareItServer.class)
+                .run(
+                        "--spring.profiles.active=default",
+                        "--server.port=0",
+                        "--shareit.outbox.relay.enabled=false",
+                        "--shareit.item-stats.completion.enabled=false",
+                        "--shareit.item-stats.reconcile.enabled=false",
+                        "--shareit.booking.expiry.enabled=false",
+                        "--shareit.booking.partitioning.enabled=false",
+                        "--shareit.cache.invalidation.poll-ms=1000",
+                        "--shareit.cache.invalidation.reconnect-delay-ms=200");
+    }
+
+    private static double resyncCount(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).counter("shareit.cache.invalidation.resync").count();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Условие не выполнилось за " + TIMEOUT);
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Ожидание прервано");
+            }
+        }
+    }
+}
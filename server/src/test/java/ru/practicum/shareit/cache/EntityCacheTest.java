@@ -0,0 +1,76 @@
+package ru.practicum.shareit.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityCacheTest {
+
+    private final EntityCache<String> cache = new EntityCache<>(EntityType.USER, 3);
+
+    @Test
+    void get_loadsOnceUntilEntityChanges() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, () -> "v" + loads.incrementAndGet());
+        assertEquals("v1", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+
+        cache.onEntityChanged(EntityChangedEvent.user(1L));
+        assertEquals("v2", cache.get(1L, () -> "v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void onEntityChanged_ignoresOtherTypes() {
+        cache.get(1L, () -> "user");
+
+        cache.onEntityChanged(new EntityChangedEvent(EntityType.ITEM, 1L, Set.of(2L)));
+
+        assertEquals("user", cache.get(1L, () -> "reloaded"));
+    }
+
+    @Test
+    void get_valueLoadedBeforeChange_isNotCached() {
+        String value = cache.get(1L, () -> {
+            cache.onEntityChanged(EntityChangedEvent.user(1L));
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertEquals("fresh", cache.get(1L, () -> "fresh"));
+    }
+
+    @Test
+    void get_overMaxSize_startsOver() {
+        for (long id = 1; id <= 4; id++) {
+            long current = id;
+            cache.get(id, () -> "v" + current);
+        }
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidateAll_clearsEverything() {
+        cache.get(1L, () -> "a");
+        cache.get(2L, () -> "b");
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void encodeDecode_roundTrip() {
+        EntityChangedEvent event = new EntityChangedEvent(EntityType.BOOKING, 7L, Set.of(1L, 2L));
+
+        Optional<InvalidationBus.RemoteChange> decoded = InvalidationBus.decode(InvalidationBus.encode("node", event));
+
+        assertEquals(Optional.of(new InvalidationBus.RemoteChange("node", event)), decoded);
+        assertTrue(InvalidationBus.decode("garbage").isEmpty());
+        assertTrue(InvalidationBus.decode("node:UNKNOWN:1:").isEmpty());
+    }
+}
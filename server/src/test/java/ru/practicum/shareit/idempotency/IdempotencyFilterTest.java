@@ -0,0 +1,216 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.idempotency.repository.IdempotencyRecordRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+class IdempotencyFilterTest {
+
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private IdempotencyFilter filter;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<IdempotencyService> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable())
+                .thenReturn(new IdempotencyService(repository, transactionManager, dataSource, 24));
+        filter = new IdempotencyFilter(provider, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void retry_replaysStoredResponse() throws Exception {
+        FilterChain chain = respond(201, "application/json", "{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse first = send("{\"name\":\"a\"}", chain);
+
+        MockHttpServletResponse retry = send("{\"name\":\"a\"}", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, retry.getStatus());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertArrayEquals(first.getContentAsByteArray(), retry.getContentAsByteArray());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void sameKeyOtherBody_isRejectedWith422() throws Exception {
+        FilterChain chain = respond(201, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        send("{\"name\":\"a\"}", chain);
+
+        MockHttpServletResponse retry = send("{\"name\":\"b\"}", chain);
+
+        assertEquals(422, retry.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void largeSmileBody_isReplayedByteForByte() throws Exception {
+        byte[] body = new byte[20_000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (i * 31);
+        }
+        FilterChain chain = respond(200, SMILE, body);
+        MockHttpServletResponse first = send("{}", chain);
+
+        MockHttpServletResponse retry = send("{}", chain);
+
+        assertEquals(1, executions.get());
+        assertArrayEquals(body, first.getContentAsByteArray());
+        assertArrayEquals(body, retry.getContentAsByteArray());
+        assertEquals(SMILE, retry.getContentType());
+    }
+
+    @Test
+    void serverError_isNotStoredAndRetryExecutes() throws Exception {
+        send("{}", respond(503, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+
+        MockHttpServletResponse retry = send("{}", respond(201, "application/json", new byte[0]));
+
+        assertEquals(201, retry.getStatus());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void clientError_isStoredAndReplayed() throws Exception {
+        FilterChain chain = respond(404, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+        send("{}", chain);
+
+        MockHttpServletResponse retry = send("{}", chain);
+
+        assertEquals(404, retry.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void concurrentRetry_waitsAndReplays() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.getOutputStream().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        };
+        CompletableFuture<MockHttpServletResponse> original = sendAsync(slow);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<MockHttpServletResponse> retry = sendAsync(slow);
+        Thread.sleep(200);
+        assertFalse(retry.isDone());
+        finish.countDown();
+
+        assertNull(original.get(5, TimeUnit.SECONDS).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("true", retry.get(5, TimeUnit.SECONDS).getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals("{\"id\":1}", retry.get().getContentAsString());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void requestBody_isAvailableToReadListener() throws Exception {
+        StringBuilder read = new StringBuilder();
+        FilterChain chain = (request, response) -> request.getInputStream().setReadListener(
+                new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        read.append(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        read.append('|');
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        fail(t);
+                    }
+                });
+
+        send("{\"name\":\"a\"}", chain);
+
+        assertEquals("{\"name\":\"a\"}|", read.toString());
+    }
+
+    private FilterChain respond(int status, String contentType, byte[] body) {
+        return (request, response) -> {
+            executions.incrementAndGet();
+            request.getInputStream().readAllBytes();
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType(contentType);
+            response.getOutputStream().write(body);
+        };
+    }
+
+    private MockHttpServletResponse send(String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/items");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key");
+        request.addHeader(IdempotencyFilter.USER_ID_HEADER, "1");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private CompletableFuture<MockHttpServletResponse> sendAsync(FilterChain chain) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send("{}", chain);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
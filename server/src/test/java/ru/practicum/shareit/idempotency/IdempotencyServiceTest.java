@@ -0,0 +1,191 @@
+package ru.practicum.shareit.idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.idempotency.IdempotencyService.Claim;
+import ru.practicum.shareit.idempotency.IdempotencyService.Outcome;
+import ru.practicum.shareit.idempotency.IdempotencyService.StoredResponse;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecord;
+import ru.practicum.shareit.idempotency.repository.IdempotencyRecordRepository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Транзакции сервиса фиксируются по-настоящему, поэтому тест выполняется без общей тестовой транзакции.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final StoredResponse CREATED = new StoredResponse(201, "application/json", "{\"id\":1}".getBytes());
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private IdempotencyService service;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        service = new IdempotencyService(repository, transactionManager, dataSource, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void execute_retry_replaysStoredResponseWithoutExecuting() throws Exception {
+        assertEquals(Outcome.ACQUIRED, execute(1L, "key", "hash", CREATED).outcome());
+
+        Claim retry = execute(1L, "key", "hash", CREATED);
+
+        assertEquals(Outcome.REPLAY, retry.outcome());
+        assertEquals(201, retry.record().getResponseStatus());
+        assertArrayEquals(CREATED.body(), retry.record().getResponseBody());
+        assertEquals(1, executions.get());
+        assertEquals(Outcome.ACQUIRED, execute(2L, "key", "hash", CREATED).outcome());
+    }
+
+    @Test
+    void execute_sameKeyOtherRequest_isMismatch() throws Exception {
+        execute(1L, "key", "hash", CREATED);
+
+        assertEquals(Outcome.MISMATCH, execute(1L, "key", "other", CREATED).outcome());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_largeBinaryBody_isStoredAsIs() throws Exception {
+        byte[] body = new byte[64 * 1024];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        execute(1L, "key", "hash", new StoredResponse(200, "application/x-jackson-smile", body));
+
+        Claim retry = execute(1L, "key", "hash", CREATED);
+
+        assertEquals(Outcome.REPLAY, retry.outcome());
+        assertArrayEquals(body, retry.record().getResponseBody());
+    }
+
+    @Test
+    void execute_serverError_releasesKey() throws Exception {
+        execute(1L, "key", "hash", new StoredResponse(500, "application/json", new byte[0]));
+
+        assertEquals(Outcome.ACQUIRED, execute(1L, "key", "hash", CREATED).outcome());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_clientErrorAfterRollback_isStoredSeparately() throws Exception {
+        service.execute(1L, "key", "hash", () -> {
+            new TransactionTemplate(transactionManager).executeWithoutResult(TransactionStatus::setRollbackOnly);
+            return new StoredResponse(404, "application/json", "{}".getBytes());
+        });
+
+        Claim retry = execute(1L, "key", "hash", CREATED);
+
+        assertEquals(Outcome.REPLAY, retry.outcome());
+        assertEquals(404, retry.record().getResponseStatus());
+    }
+
+    @Test
+    void execute_exception_releasesKey() {
+        assertThrows(IllegalStateException.class, () -> service.execute(1L, "key", "hash", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertTrue(repository.findByUserIdAndIdempotencyKey(1L, "key").isEmpty());
+    }
+
+    @Test
+    void execute_concurrentRetry_waitsForOriginalAndReplays() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<Claim> original = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.execute(1L, "key", "hash", () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    try {
+                        finish.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CREATED;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Claim> retry = CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(1L, "key", "hash", CREATED);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(retry.isDone());
+        finish.countDown();
+
+        assertEquals(Outcome.ACQUIRED, original.get(5, TimeUnit.SECONDS).outcome());
+        assertEquals(Outcome.REPLAY, retry.get(5, TimeUnit.SECONDS).outcome());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_recordWithoutResponse_isInProgress() throws Exception {
+        repository.save(new IdempotencyRecord(null, 1L, "key", "hash", null, null, null, LocalDateTime.now()));
+
+        assertEquals(Outcome.IN_PROGRESS, execute(1L, "key", "hash", CREATED).outcome());
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void cleanup_deletesExpiredKeys() throws Exception {
+        execute(1L, "key", "hash", CREATED);
+        IdempotencyRecord record = repository.findByUserIdAndIdempotencyKey(1L, "key").orElseThrow();
+        record.setCreated(LocalDateTime.now().minusDays(2));
+        repository.save(record);
+
+        service.cleanup();
+
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    private Claim execute(Long userId, String key, String hash, StoredResponse response) throws Exception {
+        return service.execute(userId, key, hash, () -> {
+            executions.incrementAndGet();
+            return response;
+        });
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.comment.dto.CommentCreateDto;
 import ru.practicum.shareit.comment.dto.CommentDto;
@@ -38,6 +39,9 @@ public class ItemControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ItemController itemController;
+
     @MockBean
     private ItemService itemService;
 
@@ -125,7 +129,7 @@ public class ItemControllerTest {
     @Test
     void getItemById_ValidId_ReturnsOk() throws Exception {
         // Arrange
-        ItemResponseDto itemResponseDto = new ItemResponseDto(1L, "Drill", "Electric drill", true, null, null, null, List.of());
+        ItemResponseDto itemResponseDto = new ItemResponseDto(1L, "Drill", "Electric drill", true, null, null, null, List.of(), 0L, null);
         when(itemService.getById(1L, 1L)).thenReturn(itemResponseDto);
 
         // Act & Assert
@@ -140,6 +144,33 @@ public class ItemControllerTest {
         verify(itemService, times(1)).getById(1L, 1L);
     }
 
+    /**
+     * Тестирует получение вещи по ID при включённой JSON-агрегации в базе данных.
+     * Ожидается, что документ из сервиса передаётся клиенту без повторной сериализации.
+     */
+    @Test
+    void getItemById_JsonAggregationEnabled_ReturnsRawJson() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(itemController, "jsonAggregationEnabled", true);
+        when(itemService.getDetailJson(1L, 1L))
+                .thenReturn("{\"id\":1,\"name\":\"Drill\",\"comments\":[],\"commentCount\":0}");
+
+        try {
+            // Act & Assert
+            mockMvc.perform(get("/items/1")
+                            .header(USER_ID_HEADER, 1L))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.id", is(1)))
+                    .andExpect(jsonPath("$.name", is("Drill")));
+
+            verify(itemService, times(1)).getDetailJson(1L, 1L);
+            verify(itemService, never()).getById(anyLong(), anyLong());
+        } finally {
+            ReflectionTestUtils.setField(itemController, "jsonAggregationEnabled", false);
+        }
+    }
+
     /**
      * Тестирует получение всех вещей владельца (GET /items).
      * Ожидается статус 200 и корректный JSON-ответ.
@@ -148,8 +179,8 @@ public class ItemControllerTest {
     void getAllItemsByOwner_ValidRequest_ReturnsOk() throws Exception {
         // Arrange
         List<ItemResponseDto> items = List.of(
-                new ItemResponseDto(1L, "Drill", "Electric drill", true, null, null, null, List.of()),
-                new ItemResponseDto(2L, "Hammer", "Heavy hammer", true, null, null, null, List.of())
+                new ItemResponseDto(1L, "Drill", "Electric drill", true, null, null, null, List.of(), 0L, null),
+                new ItemResponseDto(2L, "Hammer", "Heavy hammer", true, null, null, null, List.of(), 0L, null)
         );
         when(itemService.getAllByOwner(1L, 0, 10)).thenReturn(items);
 
@@ -221,6 +252,24 @@ public class ItemControllerTest {
         verify(itemService, times(1)).addComment(eq(1L), eq(1L), any(CommentCreateDto.class));
     }
 
+    /**
+     * Тестирует получение комментариев вещи постранично (GET /items/{itemId}/comments).
+     */
+    @Test
+    void getComments_ReturnsPage() throws Exception {
+        CommentDto comment = new CommentDto(2L, "Second", "Test User", LocalDateTime.now());
+        when(itemService.getComments(1L, 0, 1)).thenReturn(List.of(comment));
+
+        mockMvc.perform(get("/items/1/comments")
+                        .param("from", "0")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].text", is("Second")));
+
+        verify(itemService, times(1)).getComments(1L, 0, 1);
+    }
+
     /**
      * Тестирует добавление комментария без завершенного бронирования (POST /items/{itemId}/comment).
      * Ожидается статус 400 и сообщение об ошибке.
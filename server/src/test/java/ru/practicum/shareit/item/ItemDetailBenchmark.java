@@ -0,0 +1,130 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.comment.model.Comment;
+import ru.practicum.shareit.comment.repository.CommentRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.monitoring.QueryStats;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Сравнение двух способов получения вещи владельцем (GET /items/{itemId}): через JPA
+ * (вещь, комментарии, последнее и следующее бронирования отдельными запросами, затем сериализация Jackson)
+ * и одним SQL-запросом, собирающим JSON в PostgreSQL.
+ * Требуется запущенный PostgreSQL (по умолчанию из application.properties, адрес можно переопределить
+ * через {@code -Dspring.datasource.url=...}). Запуск: {@code mvn -pl server test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "shareit.outbox.relay.enabled=false",
+        "shareit.item-stats.completion.enabled=false",
+        "shareit.item-stats.reconcile.enabled=false"
+})
+class ItemDetailBenchmark {
+
+    private static final int COMMENTS = 50;
+    private static final int BOOKINGS = 50;
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 5_000;
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private ItemStatsRepository itemStatsRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long ownerId;
+    private Long itemId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long suffix = System.nanoTime();
+            User owner = userRepository.save(new User(null, "Owner", "owner" + suffix + "@example.com"));
+            Item item = itemRepository.save(new Item(null, "Дрель", "Аккумуляторная дрель", true, owner, null));
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < Math.max(COMMENTS, BOOKINGS); i++) {
+                User booker = userRepository.save(new User(null, "Booker " + i, "booker" + i + "-" + suffix + "@example.com"));
+                if (i < BOOKINGS) {
+                    bookingRepository.save(new Booking(null, now.minusDays(i + 2L), now.minusDays(i + 1L),
+                            item, booker, BookingStatus.APPROVED));
+                }
+                if (i < COMMENTS) {
+                    commentRepository.save(new Comment(null, "Отличная дрель, спасибо! #" + i, item, booker,
+                            now.minusHours(i)));
+                }
+            }
+            bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2),
+                    item, userRepository.save(new User(null, "Next", "next" + suffix + "@example.com")),
+                    BookingStatus.APPROVED));
+            itemStatsRepository.createMissingFromSource(List.of(item.getId()));
+            ownerId = owner.getId();
+            itemId = item.getId();
+        });
+    }
+
+    @Test
+    void compareDetailPaths() throws Exception {
+        Callable<String> jpa = () -> serialize(itemService.getById(ownerId, itemId));
+        Callable<String> json = () -> itemService.getDetailJson(ownerId, itemId);
+
+        report("JPA + Jackson", jpa);
+        report("JSON в PostgreSQL", json);
+    }
+
+    private void report(String name, Callable<String> path) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            path.call();
+        }
+
+        QueryStats.start();
+        path.call();
+        int statements = QueryStats.stop().getStatementCount();
+
+        long start = System.nanoTime();
+        long bytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes += path.call().length();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / ITERATIONS;
+
+        System.out.printf("%s: %.0f мкс на запрос, SQL-операторов: %d, размер ответа: %d символов%n",
+                name, micros, statements, bytes / ITERATIONS);
+    }
+
+    private String serialize(Object dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -76,7 +76,9 @@ class ItemServiceImplIntegrationTest {
         CommentDto savedCommentDto = itemService.addComment(author.getId(), item.getId(), commentDto);
 
         // ASSERT: Проверка, что комментарий сохранен в БД и имеет корректные поля.
-        List<Comment> commentsInDb = commentRepository.findAllByItemId(item.getId());
+        List<Comment> commentsInDb = commentRepository.findAll().stream()
+                .filter(comment -> comment.getItem().getId().equals(item.getId()))
+                .toList();
 
         assertFalse(commentsInDb.isEmpty(), "Комментарий должен быть сохранен в БД.");
         assertEquals(1, commentsInDb.size(), "Должен быть сохранен ровно один комментарий.");
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,6 +20,10 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.monitoring.QueryBudget;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
@@ -25,6 +31,8 @@ import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DataJpaTest
@@ -32,6 +40,13 @@ import static org.junit.jupiter.api.Assertions.*;
 @ActiveProfiles("test")
 class ItemServiceImplTest {
 
+    /**
+     * Список вещей владельца: пользователь, страница вещей, последние комментарии, последние
+     * и следующие бронирования — по одному оператору при любом размере страницы.
+     */
+    private static final int OWNER_LIST_QUERY_BUDGET = 5;
+    private static final int SEARCH_QUERY_BUDGET = 1;
+
     @Autowired
     private ItemRepository itemRepository;
     @Autowired
@@ -42,6 +57,12 @@ class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Autowired
     private ItemRequestRepository requestRepository; // Добавляем ItemRequestRepository
+    @Autowired
+    private ItemStatsRepository itemStatsRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private EntityManager entityManager;
 
     private ItemServiceImpl itemService;
 
@@ -54,7 +75,10 @@ class ItemServiceImplTest {
     @BeforeEach
     void setUp() {
         // Передаем ItemRequestRepository в конструктор
-        itemService = new ItemServiceImpl(itemRepository, userRepository, bookingRepository, commentRepository, requestRepository);
+        itemService = new ItemServiceImpl(itemRepository, userRepository, bookingRepository, commentRepository, requestRepository,
+                new ItemStatsUpdater(itemStatsRepository),
+                new OutboxWriter(outboxRepository, new ObjectMapper().findAndRegisterModules()),
+                event -> { });
 
         owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
         booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
@@ -172,6 +196,22 @@ class ItemServiceImplTest {
         assertNull(responseDto.nextBooking(), "Не-владелец не должен видеть nextBooking.");
     }
 
+    @Test
+    void getById_statsVisibleOnlyToOwner() {
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        new ItemStatsUpdater(itemStatsRepository).onBookingApproved(item.getId());
+
+        ItemResponseDto ownerView = itemService.getById(owner.getId(), item.getId());
+        ItemResponseDto otherView = itemService.getById(otherUser.getId(), item.getId());
+
+        assertNotNull(ownerView.stats());
+        assertEquals(1L, ownerView.stats().bookingCount());
+        assertEquals(0L, ownerView.stats().completedRentalCount());
+        assertNull(otherView.stats(), "Не-владелец не должен видеть показатели вещи.");
+        assertEquals(0L, otherView.commentCount());
+    }
+
     @Test
     void getById_itemNotFound_throwsException() {
         Long nonExistingItemId = 999L;
@@ -193,7 +233,7 @@ class ItemServiceImplTest {
         Booking futureBooking = new Booking(null, now.plusDays(1), now.plusDays(2), item2, booker, BookingStatus.APPROVED);
         bookingRepository.save(futureBooking);
 
-        List<ItemResponseDto> items = itemService.getAllByOwner(owner.getId(), 0, 10);
+        List<ItemResponseDto> items = withinBudget(OWNER_LIST_QUERY_BUDGET, () -> itemService.getAllByOwner(owner.getId(), 0, 10));
         assertEquals(2, items.size());
 
         // Проверка item
@@ -217,7 +257,7 @@ class ItemServiceImplTest {
     @Test
     void searchItems_success() {
         itemRepository.save(new Item(null, "Screwdriver", "Flathead screwdriver", true, owner, null));
-        List<ItemDto> items = itemService.search("screw", 0, 10);
+        List<ItemDto> items = withinBudget(SEARCH_QUERY_BUDGET, () -> itemService.search("screw", 0, 10));
         assertEquals(1, items.size());
         assertEquals("Screwdriver", items.getFirst().name());
     }
@@ -246,6 +286,69 @@ class ItemServiceImplTest {
         assertEquals(booker.getName(), result.authorName());
     }
 
+    @Test
+    void addComment_updatesCountAndLatestComments() {
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+
+        itemService.addComment(booker.getId(), item.getId(), new CommentCreateDto("First"));
+        itemService.addComment(booker.getId(), item.getId(), new CommentCreateDto("Second"));
+
+        ItemResponseDto result = itemService.getById(otherUser.getId(), item.getId());
+        assertEquals(2L, result.commentCount());
+        assertEquals(List.of("Second", "First"), result.comments().stream().map(CommentDto::text).toList());
+    }
+
+    @Test
+    void createItem_thenComment_countStartsFromZero() {
+        ItemDto created = itemService.create(owner.getId(), new ItemDto(null, "Saw", "Hand saw", true, null));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                itemRepository.findById(created.id()).orElseThrow(), booker, BookingStatus.APPROVED));
+
+        itemService.addComment(booker.getId(), created.id(), new CommentCreateDto("Sharp"));
+
+        assertEquals(1L, itemStatsRepository.findById(created.id()).orElseThrow().getCommentCount());
+    }
+
+    @Test
+    void getComments_returnsPageNewestFirst() {
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        for (int i = 1; i <= 3; i++) {
+            itemService.addComment(booker.getId(), item.getId(), new CommentCreateDto("Comment " + i));
+        }
+
+        List<CommentDto> page = itemService.getComments(item.getId(), 1, 1);
+
+        assertEquals(1, page.size());
+        assertEquals("Comment 2", page.getFirst().text());
+        assertEquals(booker.getName(), page.getFirst().authorName());
+    }
+
+    @Test
+    void getComments_itemNotFound_throwsException() {
+        assertThrows(NotFoundException.class, () -> itemService.getComments(999L, 0, 10));
+    }
+
+    @Test
+    void getAllByOwner_groupsCommentsByItem() {
+        Item secondItem = itemRepository.save(new Item(null, "Hammer", "Heavy hammer", true, owner, null));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                item, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1),
+                secondItem, booker, BookingStatus.APPROVED));
+        itemService.addComment(booker.getId(), item.getId(), new CommentCreateDto("About drill"));
+        itemService.addComment(booker.getId(), secondItem.getId(), new CommentCreateDto("About hammer"));
+
+        List<ItemResponseDto> result = withinBudget(OWNER_LIST_QUERY_BUDGET, () -> itemService.getAllByOwner(owner.getId(), 0, 10));
+
+        assertEquals(2, result.size());
+        assertEquals(List.of("About drill"), result.get(0).comments().stream().map(CommentDto::text).toList());
+        assertEquals(1L, result.get(0).commentCount());
+        assertEquals(List.of("About hammer"), result.get(1).comments().stream().map(CommentDto::text).toList());
+        assertEquals(1L, result.get(1).commentCount());
+    }
+
     @Test
     void addComment_noBooking_throwsException() {
         CommentCreateDto commentDto = new CommentCreateDto("Great item!");
@@ -273,4 +376,13 @@ class ItemServiceImplTest {
         assertThrows(NotFoundException.class, () -> itemService.addComment(booker.getId(), nonExistingItemId, commentDto),
                 "Должно выброситься исключение, если вещь не найдена.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Выполняет запрос списка с очищенным контекстом персистентности и проверяет бюджет SQL-операторов.
+     */
+    private <T> T withinBudget(int maxStatements, Supplier<T> action) {
+        entityManager.flush();
+        entityManager.clear();
+        return QueryBudget.assertWithin(maxStatements, action);
+    }
+}
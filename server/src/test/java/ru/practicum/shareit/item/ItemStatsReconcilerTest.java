@@ -0,0 +1,69 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemStats;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemStatsRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class ItemStatsReconcilerTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemStatsRepository itemStatsRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ItemStatsReconciler reconciler;
+
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new ItemStatsReconciler(itemRepository, itemStatsRepository, transactionManager, 1);
+        owner = userRepository.save(new User(null, "Owner", "owner@example.com"));
+        booker = userRepository.save(new User(null, "Booker", "booker@example.com"));
+    }
+
+    @Test
+    void reconcile_fixesDriftAndCreatesMissingStats() {
+        Item tracked = itemRepository.save(new Item(null, "Drill", "Power drill", true, owner, null));
+        Item untracked = itemRepository.save(new Item(null, "Saw", "Hand saw", true, owner, null));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                tracked, booker, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(null, LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2),
+                untracked, booker, BookingStatus.APPROVED));
+        itemStatsRepository.saveAndFlush(new ItemStats(tracked.getId(), 7L, 5L, 0L, null));
+
+        reconciler.reconcile();
+
+        ItemStats trackedStats = itemStatsRepository.findById(tracked.getId()).orElseThrow();
+        assertEquals(0L, trackedStats.getCommentCount());
+        assertEquals(1L, trackedStats.getBookingCount());
+        assertEquals(1L, itemStatsRepository.findById(untracked.getId()).orElseThrow().getBookingCount());
+    }
+}
@@ -52,7 +52,8 @@ public class ItemResponseDtoTest {
         CommentDto comment1 = new CommentDto(1L, "Отлично!", "Пользователь А", LocalDateTime.of(2024, 10, 1, 9, 0, 0));
         List<CommentDto> comments = List.of(comment1);
 
-        ItemResponseDto dto = new ItemResponseDto(itemId, "Дрель", "Мощная дрель", true, requestId, lastBooking, nextBooking, comments);
+        ItemResponseDto dto = new ItemResponseDto(itemId, "Дрель", "Мощная дрель", true, requestId, lastBooking, nextBooking, comments, 1L,
+                new ItemStatsDto(3L, 2L, 1L, LocalDateTime.of(2025, 3, 2, 10, 0, 0)));
 
         // Ожидаемые строковые представления дат
         String expectedLastStartJson = "2025-01-01T10:00:00";
@@ -78,6 +79,12 @@ public class ItemResponseDtoTest {
         assertThat(result).extractingJsonPathValue("$.comments").asList().hasSize(1);
         assertThat(result).extractingJsonPathStringValue("$.comments[0].text").isEqualTo("Отлично!");
         assertThat(result).extractingJsonPathStringValue("$.comments[0].created").as("Проверка формата даты в CommentDto").isEqualTo(expectedCommentCreatedJson);
+        assertThat(result).extractingJsonPathNumberValue("$.commentCount").isEqualTo(1);
+
+        // Проверка показателей вещи
+        assertThat(result).extractingJsonPathNumberValue("$.stats.bookingCount").isEqualTo(3);
+        assertThat(result).extractingJsonPathNumberValue("$.stats.completedRentalCount").isEqualTo(2);
+        assertThat(result).extractingJsonPathStringValue("$.stats.lastRentedAt").isEqualTo("2025-03-02T10:00:00");
     }
 
     /**
@@ -109,7 +116,8 @@ public class ItemResponseDtoTest {
                 + "\"authorName\": \"Юзер 1\","
                 + "\"created\": \"2024-11-05T12:00:00\""
                 + "}"
-                + "]"
+                + "],"
+                + "\"commentCount\": 1"
                 + "}";
 
         // Ожидаемые DTO-объекты
@@ -122,7 +130,7 @@ public class ItemResponseDtoTest {
 
         ItemResponseDto expectedDto = new ItemResponseDto(
                 2L, "Телескоп", "Мощный телескоп", true, 20L,
-                expectedLastBooking, null, List.of(expectedComment)
+                expectedLastBooking, null, List.of(expectedComment), 1L, null
         );
 
         // 2. Действие: Десериализация JSON
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.logging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogFieldsTest {
+
+    @Test
+    void truncate_shortValue_returnsAsIs() {
+        assertEquals("Дрель", LogFields.truncate("Дрель"));
+    }
+
+    @Test
+    void truncate_null_returnsNull() {
+        assertNull(LogFields.truncate(null));
+    }
+
+    @Test
+    void truncate_longValue_cutsAndKeepsOriginalLength() {
+        String value = "a".repeat(LogFields.MAX_LENGTH + 36);
+
+        String result = LogFields.truncate(value);
+
+        assertEquals("a".repeat(LogFields.MAX_LENGTH) + "…(100)", result);
+    }
+
+    @Test
+    void truncate_multilineValue_replacesLineBreaks() {
+        assertEquals("первая вторая", LogFields.truncate("первая\nвторая"));
+    }
+}
@@ -0,0 +1,234 @@
+package ru.practicum.shareit.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareit.exception.NotFoundException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Сравнение пропускной способности старого режима логирования (синхронная запись, полные строки
+ * в контроллере и сервисе, стек вызовов на каждый 404) и производственного режима
+ * (асинхронная запись, одно выборочное событие на запрос, обрезанные поля, 404 без стека).
+ * Замер длится до остановки контекста логирования, то есть и асинхронный режим учитывается
+ * вместе с записью очереди в файл. Записанные в файл события сверяются с отправленными:
+ * производственный режим настроен как в logback-spring.xml и должен записать все события
+ * и быть не медленнее старого. Для сравнения замеряется прежняя настройка с отбрасыванием
+ * (discardingThreshold и neverBlock).
+ * Запуск: {@code mvn -pl server test -Pbenchmark}.
+ * <p>
+ * Все режимы сначала прогоняются вне замеров.
+ * <p>
+ * Результаты (JDK 21, один vCPU Xeon, три прогона, 8 потоков по 20 000 запросов):
+ * <pre>
+ * старый режим                         25–28 тыс. запросов/с, записано 100% событий
+ * производственный режим              111–145 тыс. запросов/с, записано 100% событий
+ * производственный с отбрасыванием    354–469 тыс. запросов/с, отброшено 85–88% событий
+ * </pre>
+ * Основной выигрыш дают меньшее число событий и отказ от стека вызовов для 404. Отбрасывание
+ * ускоряет потоки запросов только за счёт потери большинства событий: на одном ядре с neverBlock
+ * они не уступают процессор потоку записи, и очередь постоянно переполнена.
+ */
+@Tag("benchmark")
+class LoggingBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 20_000;
+    private static final double NOT_FOUND_SHARE = 0.1;
+    private static final double SAMPLE_RATE = 0.1;
+    private static final String LEGACY_LOG = "legacy.log";
+    private static final String PRODUCTION_LOG = "production.log";
+    private static final String DISCARDING_LOG = "discarding.log";
+    private static final String WARMUP_PREFIX = "warmup-";
+    /** Начало строки события; строки стека вызовов так не начинаются. */
+    private static final String LEGACY_EVENT_PREFIX = "event ";
+    private static final String PRODUCTION_EVENT_PREFIX = "ts=";
+    private static final String DESCRIPTION = "Аккумуляторная дрель с двумя батареями и набором свёрл. ".repeat(20);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compareLoggingModes() throws InterruptedException, IOException {
+        warmUp();
+        Result legacy = run(legacyLogger(LEGACY_LOG), this::legacyRequest, LEGACY_LOG, LEGACY_EVENT_PREFIX);
+        Result production = run(productionLogger(PRODUCTION_LOG, false), this::productionRequest,
+                PRODUCTION_LOG, PRODUCTION_EVENT_PREFIX);
+        Result discarding = run(productionLogger(DISCARDING_LOG, true), this::productionRequest,
+                DISCARDING_LOG, PRODUCTION_EVENT_PREFIX);
+
+        print("Старый режим", legacy);
+        print("Производственный режим", production);
+        print("Производственный режим с отбрасыванием", discarding);
+        System.out.printf("Прирост: %.1fx (с отбрасыванием %.1fx)%n",
+                production.requestsPerSecond() / legacy.requestsPerSecond(),
+                discarding.requestsPerSecond() / legacy.requestsPerSecond());
+
+        assertEquals(legacy.emitted(), legacy.written());
+        assertEquals(production.emitted(), production.written(), "производственный режим пишет все события");
+        assertTrue(production.requestsPerSecond() >= legacy.requestsPerSecond(),
+                "производственный режим не медленнее старого");
+    }
+
+    /**
+     * Прогон всех режимов вне замеров: иначе JIT-компиляция общего кода попадает в замер первых режимов.
+     */
+    private void warmUp() throws InterruptedException, IOException {
+        run(legacyLogger(WARMUP_PREFIX + LEGACY_LOG), this::legacyRequest, WARMUP_PREFIX + LEGACY_LOG,
+                LEGACY_EVENT_PREFIX);
+        run(productionLogger(WARMUP_PREFIX + PRODUCTION_LOG, false), this::productionRequest,
+                WARMUP_PREFIX + PRODUCTION_LOG, PRODUCTION_EVENT_PREFIX);
+        run(productionLogger(WARMUP_PREFIX + DISCARDING_LOG, true), this::productionRequest,
+                WARMUP_PREFIX + DISCARDING_LOG, PRODUCTION_EVENT_PREFIX);
+    }
+
+    private static void print(String mode, Result result) {
+        System.out.printf("%s: %.0f запросов/с, записано %d из %d событий (отброшено %.1f%%)%n",
+                mode, result.requestsPerSecond(), result.written(), result.emitted(),
+                100.0 * (result.emitted() - result.written()) / result.emitted());
+    }
+
+    private int legacyRequest(Logger log, long id) {
+        log.info("Вызван метод создания вещи: владелец (ID) = {}, описание = '{}'", id, DESCRIPTION);
+        log.info("Создание вещи: владелец (ID) = {}, описание = '{}'", id, DESCRIPTION);
+        if (ThreadLocalRandom.current().nextDouble() < NOT_FOUND_SHARE) {
+            NotFoundException e = new NotFoundException("Вещь ID " + id + " не найдена.");
+            log.error("Объект не найден: {}", e.getMessage(), e);
+        } else {
+            log.info("Вещь успешно создана: ID = {}", id);
+        }
+        return 3;
+    }
+
+    private int productionRequest(Logger log, long id) {
+        log.debug("Вызван метод создания вещи: владелец (ID) = {}", id);
+        if (ThreadLocalRandom.current().nextDouble() < NOT_FOUND_SHARE) {
+            NotFoundException e = new NotFoundException("Вещь ID " + id + " не найдена.");
+            log.warn("Объект не найден: {}", e.getMessage());
+            log.info("event=http_request method=POST endpoint=/items status=404 durationMs=1");
+            return 2;
+        }
+        log.info("Вещь успешно создана: ID = {}, название = '{}'", id, LogFields.truncate(DESCRIPTION));
+        if (ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE) {
+            log.info("event=http_request method=POST endpoint=/items status=200 durationMs=1");
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Выполняет запросы в {@link #THREADS} потоках и останавливает контекст логирования: остановка
+     * асинхронного журнала ждёт, пока очередь будет записана в файл, и входит в замер.
+     */
+    private Result run(Logger log, RequestSimulation simulation, String fileName, String eventPrefix)
+            throws InterruptedException, IOException {
+        List<Thread> threads = new ArrayList<>();
+        LongAdder emitted = new LongAdder();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (long i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    emitted.add(simulation.handle(log, i));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.getLoggerContext().stop();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long written;
+        try (Stream<String> lines = Files.lines(tempDir.resolve(fileName))) {
+            written = lines.filter(line -> line.startsWith(eventPrefix)).count();
+        }
+        return new Result(THREADS * REQUESTS_PER_THREAD / seconds, emitted.sum(), written);
+    }
+
+    private Logger legacyLogger(String fileName) {
+        LoggerContext context = newContext();
+        Logger logger = context.getLogger("legacy");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(fileAppender(context, fileName,
+                LEGACY_EVENT_PREFIX + "%d %-5level [%thread] %logger{36} - %msg%n"));
+        return logger;
+    }
+
+    /**
+     * @param discarding Прежняя настройка: при заполнении очереди события INFO отбрасываются,
+     *                   а при полной очереди поток не ждёт места. Иначе, как в logback-spring.xml,
+     *                   поток ждёт места в очереди.
+     */
+    private Logger productionLogger(String fileName, boolean discarding) {
+        LoggerContext context = newContext();
+        Appender<ILoggingEvent> file = fileAppender(context, fileName,
+                PRODUCTION_EVENT_PREFIX + "%d level=%level thread=%thread logger=%logger{36} msg=\"%msg\"%n");
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(discarding ? 8192 / 5 : 0);
+        async.setNeverBlock(discarding);
+        // Остановка ждёт записи всей очереди (в logback-spring.xml — не дольше секунды)
+        async.setMaxFlushTime(0);
+        async.addAppender(file);
+        async.start();
+        Logger logger = context.getLogger("production");
+        logger.setLevel(Level.INFO);
+        logger.addAppender(async);
+        return logger;
+    }
+
+    /**
+     * Отдельный контекст без конфигурации Spring Boot. Logback 1.5 требует явно заданного MDC:
+     * без него каждое событие завершается ошибкой добавления и в файл ничего не пишется.
+     */
+    private static LoggerContext newContext() {
+        LoggerContext context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.start();
+        return context;
+    }
+
+    private Appender<ILoggingEvent> fileAppender(LoggerContext context, String fileName, String pattern) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(tempDir.resolve(fileName).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+
+    /**
+     * Обработка одного запроса; возвращает число событий уровня INFO и выше.
+     */
+    @FunctionalInterface
+    private interface RequestSimulation {
+        int handle(Logger log, long id);
+    }
+
+    private record Result(double requestsPerSecond, long emitted, long written) {
+    }
+}
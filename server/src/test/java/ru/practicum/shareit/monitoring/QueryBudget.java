@@ -0,0 +1,76 @@
+package ru.practicum.shareit.monitoring;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Проверка бюджета SQL-запросов в тестах.
+ * <p>
+ * Для сервисов: {@code QueryBudget.assertWithin(3, () -> itemService.getById(userId, itemId))}.
+ * Перед замером следует выполнить flush/clear контекста персистентности, иначе в бюджет попадут
+ * отложенные INSERT подготовки данных, а сущности из кэша первого уровня не будут загружены.
+ * Для эндпоинтов: {@code mockMvc.perform(...).andExpect(QueryBudget.maxQueries(3))}, что требует
+ * {@code shareit.sql.query-count-header.enabled=true} (включено в профиле test).
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Выполняет действие и проверяет, что количество SQL-операторов не превысило бюджет.
+     *
+     * @param maxStatements Допустимое количество операторов.
+     * @param action        Проверяемое действие.
+     * @return Результат действия.
+     */
+    public static <T> T assertWithin(int maxStatements, Supplier<T> action) {
+        QueryStats.start();
+        T result;
+        QueryStats stats;
+        try {
+            result = action.get();
+        } finally {
+            stats = QueryStats.stop();
+        }
+        assertBudget(maxStatements, stats.getStatementCount(), stats.getMostRepeatedStatement());
+        return result;
+    }
+
+    /**
+     * Выполняет действие без результата и проверяет бюджет SQL-операторов.
+     *
+     * @param maxStatements Допустимое количество операторов.
+     * @param action        Проверяемое действие.
+     */
+    public static void assertWithin(int maxStatements, Runnable action) {
+        assertWithin(maxStatements, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Проверяет бюджет по заголовку {@link QueryStatsFilter#QUERY_COUNT_HEADER} ответа.
+     *
+     * @param maxStatements Допустимое количество операторов.
+     * @return Проверка для MockMvc.
+     */
+    public static ResultMatcher maxQueries(int maxStatements) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryStatsFilter.QUERY_COUNT_HEADER);
+            assertNotNull(header, "Ответ не содержит заголовок " + QueryStatsFilter.QUERY_COUNT_HEADER);
+            assertBudget(maxStatements, Integer.parseInt(header), null);
+        };
+    }
+
+    private static void assertBudget(int maxStatements, int actual, String mostRepeated) {
+        if (actual > maxStatements) {
+            fail("Превышен бюджет SQL-запросов: выполнено " + actual + ", допустимо " + maxStatements
+                    + (mostRepeated == null ? "" : ". Чаще всего выполнялся: " + mostRepeated));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.monitoring;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class QueryBudgetTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(new User(null, "User", "user@example.com"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void assertWithin_countsStatements() {
+        long count = QueryBudget.assertWithin(3, () -> {
+            userRepository.count();
+            userRepository.count();
+            return userRepository.count();
+        });
+
+        assertEquals(1, count);
+    }
+
+    @Test
+    void assertWithin_overBudget_fails() {
+        AssertionFailedError error = assertThrows(AssertionFailedError.class, () ->
+                QueryBudget.assertWithin(2, () -> {
+                    userRepository.count();
+                    userRepository.count();
+                    userRepository.count();
+                }));
+
+        assertTrue(error.getMessage().contains("выполнено 3"));
+    }
+
+    @Test
+    void stats_detectRepeatedStatement() {
+        QueryStats.start();
+        userRepository.count();
+        userRepository.count();
+        QueryStats stats = QueryStats.stop();
+
+        assertEquals(2, stats.getStatementCount());
+        assertEquals(2, stats.getMaxRepeats());
+        assertNotNull(stats.getMostRepeatedStatement());
+    }
+}
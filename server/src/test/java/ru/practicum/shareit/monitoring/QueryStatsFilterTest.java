@@ -0,0 +1,134 @@
+package ru.practicum.shareit.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты SQL-запросов эндпоинтов и данные, которые {@link QueryStatsFilter} добавляет в ответ и метрики.
+ * Тест выполняется без общей транзакции: иначе сущности подготовки берутся из кэша первого уровня
+ * и не попадают в счёт.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class QueryStatsFilterTest {
+
+    private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final int OWNER_LIST_QUERY_BUDGET = 5;
+    private static final int SEARCH_QUERY_BUDGET = 1;
+    private static final int ITEMS = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private User owner;
+
+    @BeforeEach
+    void setUp() {
+        owner = userRepository.save(new User(null, "Owner", "stats-owner@example.com"));
+        User booker = userRepository.save(new User(null, "Booker", "stats-booker@example.com"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemRepository.save(new Item(null, "Дрель " + i, "Ударная дрель", true, owner, null));
+            bookingRepository.save(new Booking(null, now.minusDays(3), now.minusDays(2), item, booker,
+                    BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(null, now.plusDays(1), now.plusDays(2), item, booker,
+                    BookingStatus.APPROVED));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookingRepository.deleteAll();
+        itemRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void ownerItems_withinBudget_andRecorded() throws Exception {
+        double countBefore = statementCount("/items");
+        double statementsBefore = statementTotal("/items");
+        long timerBefore = jdbcTimeCount("/items");
+
+        MvcResult result = mockMvc.perform(get("/items").header(USER_ID_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.maxQueries(OWNER_LIST_QUERY_BUDGET))
+                .andExpect(header().exists(QueryStatsFilter.QUERY_TIME_HEADER))
+                .andReturn();
+
+        int statements = Integer.parseInt(result.getResponse().getHeader(QueryStatsFilter.QUERY_COUNT_HEADER));
+        assertTrue(statements > 0);
+        assertTrue(Long.parseLong(result.getResponse().getHeader(QueryStatsFilter.QUERY_TIME_HEADER)) >= 0);
+        assertEquals(countBefore + 1, statementCount("/items"));
+        assertEquals(statementsBefore + statements, statementTotal("/items"), "метрика совпадает с заголовком");
+        assertEquals(timerBefore + 1, jdbcTimeCount("/items"));
+    }
+
+    @Test
+    void search_withinBudget() throws Exception {
+        mockMvc.perform(get("/items/search").param("text", "дрель"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.maxQueries(SEARCH_QUERY_BUDGET));
+    }
+
+    @Test
+    void maxQueries_overBudget_fails() {
+        AssertionFailedError error = assertThrows(AssertionFailedError.class, () ->
+                mockMvc.perform(get("/items").header(USER_ID_HEADER, owner.getId()))
+                        .andExpect(QueryBudget.maxQueries(0)));
+
+        assertTrue(error.getMessage().contains("Превышен бюджет SQL-запросов"));
+    }
+
+    private double statementCount(String uri) {
+        DistributionSummary summary = statements(uri);
+        return summary == null ? 0 : summary.count();
+    }
+
+    private double statementTotal(String uri) {
+        DistributionSummary summary = statements(uri);
+        return summary == null ? 0 : summary.totalAmount();
+    }
+
+    private DistributionSummary statements(String uri) {
+        return meterRegistry.find("shareit.http.db.statements").tags("method", "GET", "uri", uri).summary();
+    }
+
+    private long jdbcTimeCount(String uri) {
+        Timer timer = meterRegistry.find("shareit.http.db.time").tags("method", "GET", "uri", uri).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,154 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.outbox.model.OutboxEvent;
+import ru.practicum.shareit.outbox.model.OutboxEventType;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class OutboxRelayTest {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<OutboxMessage> received = new ArrayList<>();
+    private final List<Long> failingIds = new ArrayList<>();
+
+    private StaticListableBeanFactory subscribers;
+    private SimpleMeterRegistry meterRegistry;
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        OutboxSubscriber subscriber = message -> {
+            if (failingIds.contains(message.id())) {
+                throw new IllegalStateException("Подписчик недоступен");
+            }
+            received.add(message);
+        };
+        subscribers = new StaticListableBeanFactory(Map.of("subscriber", subscriber));
+        meterRegistry = new SimpleMeterRegistry();
+        relay = relay(3, 0, 0);
+    }
+
+    @Test
+    void relay_deliversPendingEventsInOrder() {
+        OutboxEvent first = save(OutboxEventType.BOOKING_CREATED, 1L);
+        OutboxEvent second = save(OutboxEventType.BOOKING_APPROVED, 1L);
+
+        relay.relay();
+
+        assertEquals(List.of(first.getId(), second.getId()), received.stream().map(OutboxMessage::id).toList());
+        assertEquals(0, outboxRepository.countByPublishedAtIsNull());
+        assertEquals(2.0, meterRegistry.get("shareit.outbox.published").counter().count());
+        assertEquals(0.0, meterRegistry.get("shareit.outbox.pending").gauge().value());
+    }
+
+    @Test
+    void relay_failureHoldsBackLaterEventsOfSameAggregateOnly() {
+        OutboxEvent failing = save(OutboxEventType.BOOKING_CREATED, 1L);
+        OutboxEvent blocked = save(OutboxEventType.BOOKING_APPROVED, 1L);
+        OutboxEvent other = save(OutboxEventType.BOOKING_CREATED, 2L);
+        failingIds.add(failing.getId());
+
+        relay.relay();
+
+        assertEquals(List.of(other.getId()), received.stream().map(OutboxMessage::id).toList());
+        assertEquals(1, failing.getAttempts());
+        assertNotNull(failing.getLastError());
+        assertNull(failing.getPublishedAt());
+        assertNull(blocked.getPublishedAt());
+        assertEquals(2, outboxRepository.countByPublishedAtIsNull());
+
+        failingIds.clear();
+        relay.relay();
+
+        assertEquals(List.of(other.getId(), failing.getId(), blocked.getId()),
+                received.stream().map(OutboxMessage::id).toList());
+    }
+
+    @Test
+    void relay_eventExceedingMaxAttempts_isParked() {
+        OutboxEvent failing = save(OutboxEventType.ITEM_CREATED, 1L);
+        failingIds.add(failing.getId());
+
+        relay.relay();
+        relay.relay();
+        relay.relay();
+
+        assertEquals(3, failing.getAttempts());
+        assertNotNull(failing.getPublishedAt());
+        assertEquals(3.0, meterRegistry.get("shareit.outbox.failed").counter().count());
+    }
+
+    @Test
+    void relay_failedEvent_waitsForBackoffAndHoldsBackItsAggregate() {
+        relay = relay(3, 60_000, 60_000);
+        OutboxEvent failing = save(OutboxEventType.BOOKING_CREATED, 1L);
+        OutboxEvent blocked = save(OutboxEventType.BOOKING_APPROVED, 1L);
+        failingIds.add(failing.getId());
+
+        relay.relay();
+        relay.relay();
+        OutboxEvent other = save(OutboxEventType.BOOKING_CREATED, 2L);
+        relay.relay();
+
+        assertEquals(1, failing.getAttempts(), "до истечения задержки событие не доставляется повторно");
+        assertEquals(List.of(other.getId()), received.stream().map(OutboxMessage::id).toList());
+        assertNull(blocked.getPublishedAt());
+
+        failingIds.clear();
+        failing.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        relay.relay();
+
+        assertEquals(List.of(other.getId(), failing.getId(), blocked.getId()),
+                received.stream().map(OutboxMessage::id).toList());
+    }
+
+    @Test
+    void relay_backoffDoublesUpToMaximum() {
+        relay = relay(10, 1_000, 3_000);
+        OutboxEvent failing = save(OutboxEventType.ITEM_CREATED, 1L);
+        failingIds.add(failing.getId());
+
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            LocalDateTime before = LocalDateTime.now();
+            relay.relay();
+            delays.add(Duration.between(before, failing.getNextAttemptAt()).toSeconds());
+            failing.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 3L), delays);
+    }
+
+    private OutboxRelay relay(int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        return new OutboxRelay(outboxRepository, subscribers.getBeanProvider(OutboxSubscriber.class),
+                transactionManager, meterRegistry, 10, maxAttempts, backoffMillis, maxBackoffMillis, 24);
+    }
+
+    private OutboxEvent save(OutboxEventType type, Long aggregateId) {
+        return outboxRepository.save(new OutboxEvent(null, type.getAggregateType(), aggregateId, type,
+                "{}", LocalDateTime.now(), null, 0, null, null));
+    }
+}
@@ -8,9 +8,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.DeferredResult;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.feed.ItemRequestFeed;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,6 +42,9 @@ public class ItemRequestControllerTest {
     @MockBean
     private ItemRequestService requestService;
 
+    @MockBean
+    private ItemRequestFeed requestFeed;
+
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
 
     /**
@@ -153,4 +160,31 @@ public class ItemRequestControllerTest {
 
         verify(requestService, times(1)).getById(1L, 1L);
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестирует опрос ленты новых запросов (GET /requests/feed).
+     * Ожидается асинхронный ответ с новыми запросами и курсором.
+     */
+    @Test
+    void feed_NewRequests_ReturnsBatch() throws Exception {
+        // Arrange
+        DeferredResult<ItemRequestFeedDto> deferred = new DeferredResult<>();
+        deferred.setResult(new ItemRequestFeedDto(11L, false,
+                List.of(new ItemRequestResponseDto(11L, "Need a drill", LocalDateTime.now(), List.of()))));
+        when(requestFeed.poll(1L, 10L, 1000L, 100)).thenReturn(deferred);
+
+        // Act & Assert
+        MvcResult result = mockMvc.perform(get("/requests/feed")
+                        .header(USER_ID_HEADER, 1L)
+                        .param("after", "10")
+                        .param("waitMs", "1000"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cursor", is(11)))
+                .andExpect(jsonPath("$.resync", is(false)))
+                .andExpect(jsonPath("$.requests[0].description", is("Need a drill")));
+    }
+}
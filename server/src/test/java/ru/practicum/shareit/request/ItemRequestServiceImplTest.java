@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,14 +10,18 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.outbox.OutboxWriter;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
 import ru.practicum.shareit.request.dto.ItemRequestCreateDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.feed.ItemRequestCreatedEvent;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,14 +37,19 @@ class ItemRequestServiceImplTest {
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private OutboxRepository outboxRepository;
 
     private ItemRequestServiceImpl requestService;
+    private final List<Object> publishedEvents = new ArrayList<>();
 
     private User user;
 
     @BeforeEach
     void setUp() {
-        requestService = new ItemRequestServiceImpl(requestRepository, userRepository, itemRepository);
+        requestService = new ItemRequestServiceImpl(requestRepository, userRepository, itemRepository,
+                new OutboxWriter(outboxRepository, new ObjectMapper().findAndRegisterModules()),
+                publishedEvents::add);
         user = userRepository.save(new User(null, "User", "user@example.com"));
     }
 
@@ -53,6 +63,13 @@ class ItemRequestServiceImplTest {
         assertNotNull(result.created());
     }
 
+    @Test
+    void createRequest_publishesFeedEvent() {
+        ItemRequestResponseDto result = requestService.create(user.getId(), new ItemRequestCreateDto("Need a drill"));
+
+        assertEquals(List.of(new ItemRequestCreatedEvent(user.getId(), result)), publishedEvents);
+    }
+
     @Test
     void getAllByRequestor_success() {
         ItemRequest request = new ItemRequest(null, "Need a drill", user, LocalDateTime.now());
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.request.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.cache.InvalidationBus;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Transactional
+@ActiveProfiles("test")
+class ItemRequestFeedTest {
+
+    private static final Long OWNER_ID = 1L;
+    private static final Long REQUESTOR_ID = 2L;
+
+    @Autowired
+    private ItemRequestRepository requestRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private final InvalidationBus bus = mock(InvalidationBus.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ItemRequestFeed feed;
+    private long startCursor;
+
+    @BeforeEach
+    void setUp() {
+        User requestor = userRepository.save(new User(null, "Requestor", "requestor@example.com"));
+        requestRepository.save(new ItemRequest(null, "Need a ladder", requestor, LocalDateTime.now()));
+
+        feed = new ItemRequestFeed(requestRepository, bus, objectMapper, 3, 30_000, 100);
+        startCursor = pollResult(feed.poll(OWNER_ID, null, 0, 10)).cursor();
+    }
+
+    @Test
+    void firstPoll_startsFromLatestRequestId() {
+        assertEquals(requestRepository.findMaxId(), startCursor);
+    }
+
+    @Test
+    void poll_afterNewRequest_returnsItImmediately() {
+        publish(REQUESTOR_ID, 101L);
+
+        ItemRequestFeedDto batch = pollResult(feed.poll(OWNER_ID, startCursor, 1000, 10));
+
+        assertEquals(List.of(101L), ids(batch));
+        assertEquals(startCursor + 1, batch.cursor());
+        assertFalse(batch.resync());
+    }
+
+    @Test
+    void poll_withoutNewRequests_waitsUntilRequestCreated() {
+        DeferredResult<ItemRequestFeedDto> result = feed.poll(OWNER_ID, startCursor, 1000, 10);
+        assertFalse(result.hasResult());
+        assertEquals(1, feed.waiterCount());
+
+        publish(REQUESTOR_ID, 101L);
+
+        assertEquals(List.of(101L), ids(pollResult(result)));
+        assertEquals(0, feed.waiterCount());
+    }
+
+    @Test
+    void poll_skipsOwnRequestsButAdvancesCursor() {
+        publish(OWNER_ID, 101L);
+        publish(REQUESTOR_ID, 102L);
+
+        ItemRequestFeedDto batch = pollResult(feed.poll(OWNER_ID, startCursor, 0, 10));
+
+        assertEquals(List.of(102L), ids(batch));
+        assertEquals(startCursor + 2, batch.cursor());
+    }
+
+    @Test
+    void poll_ownRequestDoesNotWakeWaiter() {
+        DeferredResult<ItemRequestFeedDto> result = feed.poll(OWNER_ID, startCursor, 1000, 10);
+
+        publish(OWNER_ID, 101L);
+
+        assertFalse(result.hasResult());
+    }
+
+    @Test
+    void poll_respectsLimit() {
+        publish(REQUESTOR_ID, 101L);
+        publish(REQUESTOR_ID, 102L);
+
+        ItemRequestFeedDto batch = pollResult(feed.poll(OWNER_ID, startCursor, 0, 1));
+
+        assertEquals(List.of(101L), ids(batch));
+        assertEquals(List.of(102L), ids(pollResult(feed.poll(OWNER_ID, batch.cursor(), 0, 1))));
+    }
+
+    @Test
+    void poll_cursorEvictedFromBuffer_requestsResync() {
+        for (long id = 101; id <= 104; id++) {
+            publish(REQUESTOR_ID, id);
+        }
+
+        ItemRequestFeedDto batch = pollResult(feed.poll(OWNER_ID, startCursor, 0, 10));
+
+        assertTrue(batch.resync());
+        assertEquals(List.of(102L, 103L, 104L), ids(batch));
+    }
+
+    @Test
+    void poll_cursorAheadOfFeed_requestsResync() {
+        ItemRequestFeedDto batch = pollResult(feed.poll(OWNER_ID, startCursor + 100, 1000, 10));
+
+        assertTrue(batch.resync());
+        assertEquals(startCursor, batch.cursor());
+    }
+
+    @Test
+    void publishToCluster_requestFromOtherNode_wakesWaiter() {
+        ItemRequestCreatedEvent event = new ItemRequestCreatedEvent(REQUESTOR_ID,
+                new ItemRequestResponseDto(101L, "Request 101", LocalDateTime.of(2030, 1, 1, 10, 0), List.of()));
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        feed.publishToCluster(event);
+        verify(bus).publish(eq(ItemRequestFeed.TOPIC), payload.capture());
+        DeferredResult<ItemRequestFeedDto> result = feed.poll(OWNER_ID, startCursor, 1000, 10);
+
+        feed.onClusterMessage(payload.getValue());
+
+        ItemRequestFeedDto batch = pollResult(result);
+        assertEquals(List.of(101L), ids(batch));
+        assertEquals(event.request(), batch.requests().get(0));
+    }
+
+    @Test
+    void onResync_requestsResyncFromEarlierCursors() {
+        publish(REQUESTOR_ID, 101L);
+        DeferredResult<ItemRequestFeedDto> waiting = feed.poll(OWNER_ID, startCursor + 1, 1000, 10);
+
+        feed.onResync();
+
+        assertTrue(pollResult(waiting).resync());
+        assertTrue(pollResult(feed.poll(OWNER_ID, startCursor, 0, 10)).resync());
+        ItemRequestFeedDto current = pollResult(feed.poll(OWNER_ID, null, 0, 10));
+        assertFalse(pollResult(feed.poll(OWNER_ID, current.cursor(), 0, 10)).resync());
+    }
+
+    private void publish(Long requestorId, Long requestId) {
+        feed.onItemRequestCreated(new ItemRequestCreatedEvent(requestorId,
+                new ItemRequestResponseDto(requestId, "Request " + requestId, LocalDateTime.now(), List.of())));
+    }
+
+    private static ItemRequestFeedDto pollResult(DeferredResult<ItemRequestFeedDto> result) {
+        assertTrue(result.hasResult());
+        return (ItemRequestFeedDto) result.getResult();
+    }
+
+    private static List<Long> ids(ItemRequestFeedDto batch) {
+        return batch.requests().stream().map(ItemRequestResponseDto::id).toList();
+    }
+}
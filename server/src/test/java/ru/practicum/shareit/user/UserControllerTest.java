@@ -8,11 +8,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.exception.InvalidUserEmailException;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
@@ -184,7 +186,7 @@ public class UserControllerTest {
                 new UserDto(1L, "User1", "user1@example.com"),
                 new UserDto(2L, "User2", "user2@example.com")
         );
-        when(userService.getAll()).thenReturn(users);
+        when(userService.getAll(0L, 100)).thenReturn(users);
 
         // Act & Assert
         mockMvc.perform(get("/users"))
@@ -195,7 +197,52 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$[1].id", is(2)))
                 .andExpect(jsonPath("$[1].name", is("User2")));
 
-        verify(userService, times(1)).getAll();
+        verify(userService, times(1)).getAll(0L, 100);
+    }
+
+    /**
+     * Тестирует получение следующей порции пользователей (GET /users?afterId=&size=).
+     * Ожидается передача курсора и размера порции в сервис.
+     */
+    @Test
+    void getAllUsers_WithCursor_PassesKeysetParams() throws Exception {
+        // Arrange
+        when(userService.getAll(2L, 1)).thenReturn(List.of(new UserDto(3L, "User3", "user3@example.com")));
+
+        // Act & Assert
+        mockMvc.perform(get("/users")
+                        .param("afterId", "2")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(3)));
+
+        verify(userService, times(1)).getAll(2L, 1);
+    }
+
+    /**
+     * Тестирует потоковую выгрузку пользователей (GET /users/stream).
+     * Ожидается по одному JSON-объекту на строку.
+     */
+    @Test
+    void streamAllUsers_ReturnsNdjson() throws Exception {
+        // Arrange
+        when(userService.streamAll(any())).thenAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            consumer.accept(new UserDto(1L, "User1", "user1@example.com"));
+            consumer.accept(new UserDto(2L, "User2", "user2@example.com"));
+            return 2L;
+        });
+
+        // Act & Assert
+        MvcResult result = mockMvc.perform(get("/users/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        "{\"id\":1,\"name\":\"User1\",\"email\":\"user1@example.com\"}\n"
+                                + "{\"id\":2,\"name\":\"User2\",\"email\":\"user2@example.com\"}\n"));
     }
 
     /**
@@ -6,11 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.cache.EntityChangedEvent;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,10 +26,13 @@ class UserServiceImplTest {
     private UserRepository userRepository;
 
     private UserServiceImpl userService;
+    private UserCache userCache;
 
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userRepository);
+        userCache = new UserCache(100);
+        userService = new UserServiceImpl(userRepository, userCache,
+                event -> userCache.onEntityChanged((EntityChangedEvent) event));
     }
 
     @Test
@@ -60,6 +65,18 @@ class UserServiceImplTest {
         assertEquals("john@example.com", userDto.email());
     }
 
+    @Test
+    void getById_cachedUntilUserChanges() {
+        User savedUser = userRepository.save(new User(null, "John Doe", "john@example.com"));
+        userService.getById(savedUser.getId());
+
+        userRepository.save(new User(savedUser.getId(), "Changed Elsewhere", "john@example.com"));
+        assertEquals("John Doe", userService.getById(savedUser.getId()).name());
+
+        userService.update(savedUser.getId(), new UserDto(null, "John Updated", null));
+        assertEquals("John Updated", userService.getById(savedUser.getId()).name());
+    }
+
     @Test
     void getById_notFound_throwsException() {
         assertThrows(NotFoundException.class, () -> userService.getById(999L));
@@ -70,10 +87,38 @@ class UserServiceImplTest {
         userRepository.save(new User(null, "John Doe", "john@example.com"));
         userRepository.save(new User(null, "Jane Doe", "jane@example.com"));
 
-        List<UserDto> users = userService.getAll();
+        List<UserDto> users = userService.getAll(0L, 10);
         assertEquals(2, users.size());
     }
 
+    @Test
+    void getAll_keysetPages_coverAllUsersOnce() {
+        for (int i = 1; i <= 5; i++) {
+            userRepository.save(new User(null, "User " + i, "user" + i + "@example.com"));
+        }
+
+        List<UserDto> firstPage = userService.getAll(0L, 2);
+        List<UserDto> secondPage = userService.getAll(firstPage.getLast().id(), 2);
+        List<UserDto> lastPage = userService.getAll(secondPage.getLast().id(), 2);
+
+        assertEquals(List.of("User 1", "User 2"), firstPage.stream().map(UserDto::name).toList());
+        assertEquals(List.of("User 3", "User 4"), secondPage.stream().map(UserDto::name).toList());
+        assertEquals(List.of("User 5"), lastPage.stream().map(UserDto::name).toList());
+        assertTrue(userService.getAll(lastPage.getLast().id(), 2).isEmpty());
+    }
+
+    @Test
+    void streamAll_passesEveryUserInIdOrder() {
+        userRepository.save(new User(null, "John Doe", "john@example.com"));
+        userRepository.save(new User(null, "Jane Doe", "jane@example.com"));
+        List<UserDto> received = new ArrayList<>();
+
+        long count = userService.streamAll(received::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of("John Doe", "Jane Doe"), received.stream().map(UserDto::name).toList());
+    }
+
     @Test
     void updateUser_success() {
         User user = new User(null, "John Doe", "john@example.com");